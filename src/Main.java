@@ -2,6 +2,7 @@ import controller.IGuiController;
 import controller.IPortfolioController;
 import controller.JFrameController;
 import controller.PortfolioController;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import model.IPortfolioModel;
 import model.PortfolioModel;
@@ -12,15 +13,28 @@ import view.PortfolioView;
 
 class Main {
 
+  // portfolios and stocks valued at the same time, while their prices are downloaded
+  private static final int VALUATION_PARALLELISM = 4;
+
   public static void main(String[] args) {
     IPortfolioModel model = new PortfolioModel();
+    model.setValuationParallelism(VALUATION_PARALLELISM);
 
     boolean isOldGui = true;
 
     for (String arg : args) {
       if (arg.equals("oldGui")) {
         isOldGui = true;
-        break;
+      } else if (arg.startsWith("journal=")) {
+        // restores the flexible portfolios and keeps every change made to them
+        String directoryPath = arg.substring("journal=".length());
+        try {
+          model.openFlexiblePortfolioJournal(directoryPath);
+        } catch (IOException e) {
+          // the application still starts, but the changes to flexible portfolios are not kept
+          System.out.println("Journal Init Failed: The journal in " + directoryPath
+              + " could not be opened (" + e.getMessage() + "), continuing without it!");
+        }
       }
     }
 
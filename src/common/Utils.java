@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -39,6 +40,10 @@ public class Utils {
 
   private final static ZoneId BOSTON_ZONE_ID = ZoneId.of("America/New_York");
 
+  private final static TimeZone BOSTON_TIME_ZONE = TimeZone.getTimeZone(BOSTON_ZONE_ID);
+
+  private final static long DAY_IN_MS = 86400000L;
+
   //</editor-fold>
 
   //<editor-fold desc="String Input Validator methods and Converter methods">
@@ -429,6 +434,56 @@ public class Utils {
     return Date.from(localDate.atStartOfDay(BOSTON_ZONE_ID).toInstant());
   }
 
+  /**
+   * Converts the given date to the number of days since 1970-01-01. The system time zone is used
+   * as dates parsed by {@code convertStringToDate} are at midnight in the system time zone.
+   *
+   * @param date the date in {@code Date} data type.
+   * @return the number of days since the epoch.
+   */
+  public static int convertDateToEpochDay(Date date) {
+    // computed arithmetically as this is used in tight loops for price lookups
+    long time = date.getTime();
+    return (int) Math.floorDiv(time + TimeZone.getDefault().getOffset(time), DAY_IN_MS);
+  }
+
+  /**
+   * Converts the given date to the number of days since 1970-01-01 of the calendar day it stands
+   * for. Dates are at midnight either in the system time zone, e.g. when parsed by
+   * {@code convertStringToDate}, or in the America/New_York time zone, e.g. the occurrences of
+   * recurring events created by {@code convertLocalDateToDate}. Midnight in either time zone falls
+   * on the same day in the more eastern of the two, so the day is taken in that time zone.
+   *
+   * @param date the date in {@code Date} data type.
+   * @return the number of days since the epoch.
+   */
+  public static int convertDateToCalendarEpochDay(Date date) {
+    long time = date.getTime();
+    int offset = Math.max(TimeZone.getDefault().getOffset(time), BOSTON_TIME_ZONE.getOffset(time));
+    return (int) Math.floorDiv(time + offset, DAY_IN_MS);
+  }
+
+  /**
+   * Converts the given number of days since 1970-01-01 to a date at midnight in the system time
+   * zone.
+   *
+   * @param epochDay the number of days since the epoch.
+   * @return the date in {@code Date} data type.
+   */
+  public static Date convertEpochDayToDate(int epochDay) {
+    return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault())
+        .toInstant());
+  }
+
+  /**
+   * Gets today's date as the number of days since 1970-01-01 in the system time zone.
+   *
+   * @return the number of days since the epoch for today.
+   */
+  public static int getTodayEpochDay() {
+    return (int) LocalDate.now(ZoneId.systemDefault()).toEpochDay();
+  }
+
   //</editor-fold>
 
   //<editor-fold desc="Date difference methods">
@@ -7,7 +7,6 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import features.IPortfolioManagerFeatures;
 import model.IPortfolioModel;
@@ -55,10 +54,9 @@ public class JFrameController implements IPortfolioManagerFeatures, IGuiControll
 
   @Override
   public void loadPortfolioList() {
-    List<Pair<Integer, String>> portfolioNames = this.model.getAllFlexiblePortfolios()
-            .stream()
-            .map(p -> new Pair<>(p.getO1(), p.getO2().getName()))
-            .collect(Collectors.toList());
+    List<Pair<Integer, String>> portfolioNames = new ArrayList<>();
+    this.model.forEachFlexiblePortfolio(
+            (portfolio, id) -> portfolioNames.add(new Pair<>(id, portfolio.getName())));
 
     this.view.loadPortfoliosList(portfolioNames);
   }
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.function.ObjIntConsumer;
 
 import model.chart.IChart;
 import model.portfolio.IDollarCostInvestment;
@@ -63,6 +64,26 @@ public interface IPortfolioModel {
    */
   List<Pair<Integer, IFlexiblePortfolio>> getAllFlexiblePortfolios();
 
+  /**
+   * Gets the flexible portfolios with ids starting from the given offset, in the order of their
+   * ids.
+   *
+   * @param offset the id of the first flexible portfolio.
+   * @param limit  the maximum number of flexible portfolios.
+   * @return a list of pairs with the id of the flexible portfolio and the flexible portfolio.
+   * @throws IllegalArgumentException when the offset or the limit is negative.
+   */
+  List<Pair<Integer, IFlexiblePortfolio>> getFlexiblePortfolioPage(int offset, int limit)
+      throws IllegalArgumentException;
+
+  /**
+   * Performs the action for each flexible portfolio in the order of their ids, without copying the
+   * flexible portfolios into a list.
+   *
+   * @param action the action which is given each flexible portfolio and its id.
+   */
+  void forEachFlexiblePortfolio(ObjIntConsumer<IFlexiblePortfolio> action);
+
   /**
    * Gets the number of portfolios available in the application.
    *
@@ -187,6 +208,46 @@ public interface IPortfolioModel {
   Pair<BigDecimal, List<IPortfolioStockValue>> getFlexiblePortfolioValue(int id, Date date)
       throws IllegalArgumentException, StockDataSourceException;
 
+  /**
+   * Values all portfolios and flexible portfolios on the requested date. The prices are shared by
+   * all portfolios, so every stock is looked up once however many portfolios hold it.
+   *
+   * @param date the date on which the portfolios are to be valued.
+   * @return a {@code Triplet} with the total value of all portfolios, the value of each portfolio
+   *     by id and the value of each flexible portfolio by id.
+   * @throws IllegalArgumentException when the provided date is invalid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  Triplet<BigDecimal, List<Pair<Integer, BigDecimal>>, List<Pair<Integer, BigDecimal>>> valueAll(
+      Date date) throws IllegalArgumentException, StockDataSourceException;
+
+  /**
+   * Values all portfolios and flexible portfolios on each of the requested dates, sharing the
+   * prices across all portfolios and dates.
+   *
+   * @param dates the dates on which the portfolios are to be valued.
+   * @return for each date in the order given, a {@code Triplet} with the total value of all
+   *     portfolios, the value of each portfolio by id and the value of each flexible portfolio by
+   *     id.
+   * @throws IllegalArgumentException when a provided date is invalid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  List<Triplet<BigDecimal, List<Pair<Integer, BigDecimal>>, List<Pair<Integer, BigDecimal>>>>
+      valueAll(List<Date> dates) throws IllegalArgumentException, StockDataSourceException;
+
+  /**
+   * Sets how many valuations run at the same time, for the portfolios valued by {@code valueAll}
+   * and the stocks of a flexible portfolio valued by {@code getFlexiblePortfolioValue} and
+   * {@code getCostBasis}. Valuations waiting on the stock data source for their prices then run
+   * concurrently instead of one after another, while the results stay in the same order. Until
+   * this is set, the valuations run one after another.
+   *
+   * @param parallelism the number of valuations run at the same time, 1 to run them one after
+   *                    another.
+   * @throws IllegalArgumentException when the parallelism is less than 1.
+   */
+  void setValuationParallelism(int parallelism) throws IllegalArgumentException;
+
   /**
    * Imports the portfolios in the provided file.
    *
@@ -221,6 +282,18 @@ public interface IPortfolioModel {
    */
   void exportFlexiblePortfolios(String filePath) throws IOException;
 
+  /**
+   * Restores the flexible portfolios from the journal in the provided directory, and journals
+   * every change made to the flexible portfolios from now on.
+   *
+   * @param directoryPath the path of the directory of the journal.
+   * @throws IOException           when the journal cannot be read or written, or is not valid.
+   * @throws IllegalStateException when flexible portfolios were created before the journal was
+   *                               opened.
+   */
+  void openFlexiblePortfolioJournal(String directoryPath) throws IOException,
+      IllegalStateException;
+
   /**
    * Gets the performance chart for the selected flexible portfolio.
    *
@@ -1,5 +1,6 @@
 package model;
 
+import common.Utils;
 import common.pair.Pair;
 import common.triplet.Triplet;
 
@@ -8,8 +9,19 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
 
 import model.alphavantage.AlphaVantageAPI;
 import model.chart.ChartService;
@@ -30,8 +42,10 @@ import model.portfolio.IStockDataSource;
 import model.portfolio.Portfolio;
 import model.portfolio.Portfolio.PortfolioImplBuilder;
 import model.portfolio.PortfolioStore;
+import model.portfolio.PriceSnapshot;
 import model.portfolio.StockDataSourceException;
 import model.portfolio.eRecurringIntervalType;
+import model.store.ConcurrentStore;
 
 /**
  * A class that implements features for portfolio management.
@@ -41,12 +55,16 @@ public class PortfolioModel implements IPortfolioModel {
   //<editor-fold desc="State variables">
 
   private final IAbstractPortfolioStore<IPortfolio> portfolioStore;
-  private final IAbstractPortfolioStore<IFlexiblePortfolio> flexiblePortfolioStore;
-  private IStockDataSource dataSource;
+  private final FlexiblePortfolioStore flexiblePortfolioStore;
+  private final IStockDataSource dataSource;
   private final IChartService chartService;
 
   private final PortfolioImplBuilder portfolioImplBuilder;
 
+  // values the stocks of flexible portfolios concurrently, null to value them one after another;
+  // replaced as a whole, so every valuation reads it once and keeps the executor it started with
+  private volatile ExecutorService valuationExecutor;
+
   //</editor-fold>
 
   //<editor-fold desc="Constructors">
@@ -55,19 +73,131 @@ public class PortfolioModel implements IPortfolioModel {
    * Instantiates a model for portfolio management.
    */
   public PortfolioModel() {
-    try {
-      this.dataSource = new AlphaVantageAPI();
-    } catch (StockDataSourceException e) {
-      System.out.println("Stock Data Source Init Failed: " + e.getMessage());
-    }
+    this(new AlphaVantageAPI());
+  }
+
+  /**
+   * Instantiates a model for portfolio management whose portfolios can be stored from multiple
+   * threads, e.g. the GUI thread and background workers.
+   *
+   * @param isConcurrent whether the stores of portfolios can be shared by multiple threads.
+   */
+  public PortfolioModel(boolean isConcurrent) {
+    this(new AlphaVantageAPI(), isConcurrent);
+  }
+
+  /**
+   * Instantiates a model for portfolio management which uses the provided stock data source.
+   *
+   * @param dataSource the data source of stocks to be utilized.
+   */
+  PortfolioModel(IStockDataSource dataSource) {
+    this(dataSource, false);
+  }
+
+  /**
+   * Instantiates a model for portfolio management which uses the provided stock data source.
+   *
+   * @param dataSource   the data source of stocks to be utilized.
+   * @param isConcurrent whether the stores of portfolios can be shared by multiple threads.
+   */
+  PortfolioModel(IStockDataSource dataSource, boolean isConcurrent) {
+    this.dataSource = dataSource;
     this.chartService = new ChartService(5, 30, 50);
-    this.portfolioStore = new PortfolioStore(this.dataSource);
-    this.flexiblePortfolioStore = new FlexiblePortfolioStore(this.dataSource);
+    if (isConcurrent) {
+      this.portfolioStore = new PortfolioStore(this.dataSource, new ConcurrentStore<>());
+      this.flexiblePortfolioStore =
+          new FlexiblePortfolioStore(this.dataSource, new ConcurrentStore<>());
+    } else {
+      this.portfolioStore = new PortfolioStore(this.dataSource);
+      this.flexiblePortfolioStore = new FlexiblePortfolioStore(this.dataSource);
+    }
     this.portfolioImplBuilder = Portfolio.getBuilder();
   }
 
   //</editor-fold>
 
+  //<editor-fold desc="Configuration methods">
+
+  @Override
+  public void setValuationParallelism(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("The valuation parallelism has to be at least 1!");
+    }
+
+    ExecutorService executor = null;
+    if (parallelism > 1) {
+      AtomicInteger threadCount = new AtomicInteger();
+      executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+        Thread thread = new Thread(runnable,
+            "portfolio-valuation-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    ExecutorService previousExecutor = this.valuationExecutor;
+    this.valuationExecutor = executor;
+    if (previousExecutor != null) {
+      // the valuations submitted to the previous executor still finish on it
+      previousExecutor.shutdown();
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  /**
+   * Runs the valuations on the valuation executor, or one after another if there is none or it
+   * was shut down in the meantime. The results are in the order of the valuations, and the error
+   * of the first valuation that failed is thrown.
+   */
+  private <T> List<T> runValuations(List<Callable<T>> tasks)
+      throws IllegalArgumentException, StockDataSourceException {
+    List<T> result = new ArrayList<>(tasks.size());
+    ExecutorService executor = this.valuationExecutor;
+
+    try {
+      if (executor != null) {
+        try {
+          for (Future<T> future : executor.invokeAll(tasks)) {
+            result.add(future.get());
+          }
+          return result;
+        } catch (RejectedExecutionException e) {
+          // the executor was replaced before taking the valuations, which then run here
+          result.clear();
+        }
+      }
+
+      for (Callable<T> task : tasks) {
+        result.add(task.call());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StockDataSourceException("The valuation of the portfolios was interrupted!", e);
+    } catch (ExecutionException e) {
+      throw this.unwrapValuationError(e.getCause());
+    } catch (Exception e) {
+      throw this.unwrapValuationError(e);
+    }
+
+    return result;
+  }
+
+  private StockDataSourceException unwrapValuationError(Throwable error) {
+    if (error instanceof StockDataSourceException) {
+      return (StockDataSourceException) error;
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    return new StockDataSourceException(error.getMessage(), error);
+  }
+
+  //</editor-fold>
+
   //<editor-fold desc="Core methods">
 
   //<editor-fold desc="Regular Portfolio methods">
@@ -167,6 +297,17 @@ public class PortfolioModel implements IPortfolioModel {
     return this.flexiblePortfolioStore.getAll();
   }
 
+  @Override
+  public List<Pair<Integer, IFlexiblePortfolio>> getFlexiblePortfolioPage(int offset, int limit)
+      throws IllegalArgumentException {
+    return this.flexiblePortfolioStore.getPage(offset, limit);
+  }
+
+  @Override
+  public void forEachFlexiblePortfolio(ObjIntConsumer<IFlexiblePortfolio> action) {
+    this.flexiblePortfolioStore.forEach(action);
+  }
+
   @Override
   public IFlexiblePortfolio getFlexiblePortfolio(int id) throws IllegalArgumentException {
     return this.flexiblePortfolioStore.retrieve(id);
@@ -189,7 +330,84 @@ public class PortfolioModel implements IPortfolioModel {
   @Override
   public Pair<BigDecimal, List<IPortfolioStockValue>> getFlexiblePortfolioValue(int id, Date date)
       throws StockDataSourceException {
-    return this.flexiblePortfolioStore.retrieve(id).getValue(this.dataSource, date);
+    return this.flexiblePortfolioStore.retrieve(id)
+        .getValue(this.dataSource, date, this.valuationExecutor);
+  }
+
+  @Override
+  public Triplet<BigDecimal, List<Pair<Integer, BigDecimal>>, List<Pair<Integer, BigDecimal>>>
+      valueAll(Date date) throws IllegalArgumentException, StockDataSourceException {
+    return this.valueAll(List.of(date)).get(0);
+  }
+
+  @Override
+  public List<Triplet<BigDecimal, List<Pair<Integer, BigDecimal>>, List<Pair<Integer, BigDecimal>>>>
+      valueAll(List<Date> dates) throws IllegalArgumentException, StockDataSourceException {
+    for (Date date : dates) {
+      Utils.validateFutureDate(date);
+    }
+
+    List<Pair<Integer, IPortfolio>> portfolios = this.portfolioStore.getAll();
+    List<Pair<Integer, IFlexiblePortfolio>> flexiblePortfolios =
+        this.flexiblePortfolioStore.getAll();
+
+    // every price is resolved once for all portfolios, starting with one prefetch of all symbols
+    SharedPriceSource source = new SharedPriceSource(this.dataSource);
+    Set<String> symbols = new HashSet<>();
+    for (var portfolio : portfolios) {
+      for (IPortfolioStock stock : portfolio.getO2().getStocks()) {
+        symbols.add(stock.getSymbol());
+      }
+    }
+    for (var portfolio : flexiblePortfolios) {
+      for (IObservableFlexiblePortfolioStock stock : portfolio.getO2().getStocks()) {
+        symbols.add(stock.getSymbol());
+      }
+    }
+    source.prefetch(symbols);
+
+    List<Callable<List<BigDecimal>>> tasks = new ArrayList<>();
+    for (var portfolio : portfolios) {
+      tasks.add(() -> {
+        List<BigDecimal> values = new ArrayList<>();
+        for (Date date : dates) {
+          values.add(portfolio.getO2().getValue(source, date).getO1());
+        }
+        return values;
+      });
+    }
+    for (var portfolio : flexiblePortfolios) {
+      // the dates of a flexible portfolio are valued in a single sweep over its transactions
+      tasks.add(() -> portfolio.getO2().getValues(source, dates));
+    }
+
+    List<List<BigDecimal>> values = this.runValuations(tasks);
+
+    List<Triplet<BigDecimal, List<Pair<Integer, BigDecimal>>, List<Pair<Integer, BigDecimal>>>>
+        result = new ArrayList<>();
+    for (int i = 0; i < dates.size(); i++) {
+      BigDecimal total = new BigDecimal(0);
+      List<Pair<Integer, BigDecimal>> portfolioValues = new ArrayList<>();
+      List<Pair<Integer, BigDecimal>> flexiblePortfolioValues = new ArrayList<>();
+
+      for (int j = 0; j < portfolios.size(); j++) {
+        BigDecimal value = values.get(j).get(i);
+        portfolioValues.add(new Pair<>(portfolios.get(j).getO1(), value));
+        // a portfolio without any available stock value is valued at -1
+        if (!value.equals(new BigDecimal("-1"))) {
+          total = total.add(value);
+        }
+      }
+      for (int j = 0; j < flexiblePortfolios.size(); j++) {
+        BigDecimal value = values.get(portfolios.size() + j).get(i);
+        flexiblePortfolioValues.add(new Pair<>(flexiblePortfolios.get(j).getO1(), value));
+        total = total.add(value);
+      }
+
+      result.add(new Triplet<>(total, portfolioValues, flexiblePortfolioValues));
+    }
+
+    return result;
   }
 
   @Override
@@ -214,7 +432,8 @@ public class PortfolioModel implements IPortfolioModel {
   @Override
   public BigDecimal getCostBasis(int portfolioId, Date date)
       throws IllegalArgumentException, StockDataSourceException {
-    return this.flexiblePortfolioStore.retrieve(portfolioId).getCostBasis(this.dataSource, date);
+    return this.flexiblePortfolioStore.retrieve(portfolioId)
+        .getCostBasis(this.dataSource, date, this.valuationExecutor);
   }
 
   @Override
@@ -236,6 +455,12 @@ public class PortfolioModel implements IPortfolioModel {
     this.flexiblePortfolioStore.exportItemsToCsv(Files.newOutputStream(path));
   }
 
+  @Override
+  public void openFlexiblePortfolioJournal(String directoryPath) throws IOException,
+      IllegalStateException {
+    this.flexiblePortfolioStore.openJournal(Paths.get(directoryPath));
+  }
+
   @Override
   public Pair<Integer, List<IObservableFlexiblePortfolioStock>> addDollarCostInvestment(
       int portfolioId, Date date, BigDecimal amount,
@@ -254,9 +479,17 @@ public class PortfolioModel implements IPortfolioModel {
           int portfolioId, Date date,
           List<Pair<String, BigDecimal>> stocksWithPercentage)
           throws IllegalArgumentException, StockDataSourceException {
-    IFlexiblePortfolio portfolio = this.flexiblePortfolioStore.retrieve(portfolioId)
-            .addRebalance(this.dataSource, date, getFlexiblePortfolioValue
-                    (portfolioId, date).getO1(), stocksWithPercentage);
+    IFlexiblePortfolio portfolio = this.flexiblePortfolioStore.retrieve(portfolioId);
+
+    // the total value and the trades of the rebalance use the same prices
+    List<String> symbols = new ArrayList<>();
+    for (IObservableFlexiblePortfolioStock stock : portfolio.getStocks()) {
+      symbols.add(stock.getSymbol());
+    }
+    PriceSnapshot snapshot = PriceSnapshot.of(this.dataSource, date, symbols);
+
+    portfolio = portfolio.addRebalance(this.dataSource, snapshot,
+            portfolio.getValue(snapshot).getO1(), stocksWithPercentage);
 
     return new Pair<>(portfolioId, portfolio.getStocks());
   }
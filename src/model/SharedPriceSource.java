@@ -0,0 +1,166 @@
+package model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import model.portfolio.IStock;
+import model.portfolio.IStockDataSource;
+import model.portfolio.StockDataSourceException;
+import model.portfolio.TradingCalendar;
+
+/**
+ * A stock data source shared by the valuation of many portfolios. Every price is resolved by the
+ * underlying data source once and then reused by all portfolios holding the stock, and symbols
+ * which were already prefetched are not prefetched again. It can be used from many threads.
+ */
+class SharedPriceSource implements IStockDataSource {
+
+  //<editor-fold desc="Inner classes">
+
+  /**
+   * The key of a resolved price.
+   */
+  private static class PriceKey {
+
+    private final String symbol;
+    private final long time;
+    private final boolean takeFuturePrice;
+
+    private PriceKey(String symbol, Date date, boolean takeFuturePrice) {
+      this.symbol = symbol;
+      this.time = date.getTime();
+      this.takeFuturePrice = takeFuturePrice;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+
+      if (!(obj instanceof PriceKey)) {
+        return false;
+      }
+
+      PriceKey o = (PriceKey) obj;
+      return this.time == o.time
+          && this.takeFuturePrice == o.takeFuturePrice
+          && this.symbol.equals(o.symbol);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.symbol, this.time, this.takeFuturePrice);
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final IStockDataSource source;
+  private final Map<PriceKey, BigDecimal> prices;
+  private final Set<String> prefetchedSymbols;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a shared price source on top of the given data source.
+   *
+   * @param source the data source which resolves the prices.
+   */
+  SharedPriceSource(IStockDataSource source) {
+    this.source = source;
+    this.prices = new ConcurrentHashMap<>();
+    this.prefetchedSymbols = ConcurrentHashMap.newKeySet();
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  @Override
+  public IStock getStock(String symbol) throws IllegalArgumentException {
+    return this.source.getStock(symbol);
+  }
+
+  @Override
+  public Date getIPODate(String symbol) throws IllegalArgumentException {
+    return this.source.getIPODate(symbol);
+  }
+
+  @Override
+  public Date getDelistingDate(String symbol) {
+    return this.source.getDelistingDate(symbol);
+  }
+
+  @Override
+  public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+      throws StockDataSourceException {
+    PriceKey key = new PriceKey(symbol, date, takeFuturePrice);
+    BigDecimal price = this.prices.get(key);
+
+    if (price == null) {
+      // two threads may both resolve the same price, which only costs a repeated lookup
+      price = this.source.getStockPrice(symbol, date, takeFuturePrice);
+      this.prices.put(key, price);
+    }
+    return price;
+  }
+
+  @Override
+  public List<BigDecimal> getStockPrices(String symbol, List<Date> dates,
+      boolean takeFuturePrice) throws StockDataSourceException {
+    // only the prices which were not resolved before are asked for, in one batch
+    List<Date> missingDates = new ArrayList<>();
+    for (Date date : dates) {
+      if (!this.prices.containsKey(new PriceKey(symbol, date, takeFuturePrice))) {
+        missingDates.add(date);
+      }
+    }
+
+    if (!missingDates.isEmpty()) {
+      List<BigDecimal> missingPrices =
+          this.source.getStockPrices(symbol, missingDates, takeFuturePrice);
+      for (int i = 0; i < missingDates.size(); i++) {
+        this.prices.put(new PriceKey(symbol, missingDates.get(i), takeFuturePrice),
+            missingPrices.get(i));
+      }
+    }
+
+    List<BigDecimal> result = new ArrayList<>(dates.size());
+    for (Date date : dates) {
+      result.add(this.prices.get(new PriceKey(symbol, date, takeFuturePrice)));
+    }
+    return result;
+  }
+
+  @Override
+  public TradingCalendar getTradingCalendar() {
+    return this.source.getTradingCalendar();
+  }
+
+  @Override
+  public void prefetch(Collection<String> symbols) throws StockDataSourceException {
+    List<String> newSymbols = new ArrayList<>();
+    for (String symbol : symbols) {
+      if (this.prefetchedSymbols.add(symbol)) {
+        newSymbols.add(symbol);
+      }
+    }
+
+    if (!newSymbols.isEmpty()) {
+      this.source.prefetch(newSymbols);
+    }
+  }
+
+  //</editor-fold>
+}
@@ -2,28 +2,46 @@ package model.alphavantage;
 
 import common.Utils;
 import common.pair.Pair;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.math.BigDecimal;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import model.portfolio.IStock;
 import model.portfolio.IStockDataSource;
 import model.portfolio.Stock;
 import model.portfolio.StockDataSourceException;
+import model.portfolio.TradingCalendar;
 
 /**
- * This class handles the interaction with the AlphaVantage API.
+ * This class handles the interaction with the AlphaVantage API. An instance can be shared by
+ * multiple threads.
  */
 public class AlphaVantageAPI implements IStockDataSource {
 
@@ -106,54 +124,6 @@ public class AlphaVantageAPI implements IStockDataSource {
     String getStatus();
   }
 
-  /**
-   * An interface representing the result from the Alpha Vantage API time series daily endpoint.
-   */
-  interface IAVTimeSeriesDailyResult extends IAVResult {
-
-    /**
-     * Gets the time stamp of the result row.
-     *
-     * @return the time stamp of the result row.
-     */
-    Date getTimeStamp();
-
-    /**
-     * Gets the opening value of the stock's price on the day.
-     *
-     * @return the value of the stock at the opening bell of the exchange.
-     */
-    BigDecimal getOpenValue();
-
-    /**
-     * Gets the high value of the stock's price on the day.
-     *
-     * @return the highest value of the stock on the day.
-     */
-    BigDecimal getHighValue();
-
-    /**
-     * Gets the low value of the stock's price on the day.
-     *
-     * @return the lowest value of the stock on the day.
-     */
-    BigDecimal getLowValue();
-
-    /**
-     * Gets the closing value of the stock's price on the day.
-     *
-     * @return the value of the stock at the closing bell of the exchange.
-     */
-    BigDecimal getCloseValue();
-
-    /**
-     * Gets the volume of the stock that was traded on the day.
-     *
-     * @return the trade volume.
-     */
-    long getVolume();
-  }
-
   //</editor-fold>
 
   //<editor-fold desc="Inner classes">
@@ -192,7 +162,7 @@ public class AlphaVantageAPI implements IStockDataSource {
 
       this.ipoDate = Utils.convertStringToDate(values[4], "yyyy-MM-dd");
       this.delistingDate =
-          values[5].equals("null") ? null : Utils.convertStringToDate(values[4], "yyyy-MM-dd");
+          values[5].equals("null") ? null : Utils.convertStringToDate(values[5], "yyyy-MM-dd");
 
       try {
         this.symbol = values[0];
@@ -260,94 +230,25 @@ public class AlphaVantageAPI implements IStockDataSource {
   }
 
   /**
-   * The Alpha Vantage Time series daily result.
+   * The load of a price series by the prefetch executor. Loads are started in the order of their
+   * priority, and in the order they were submitted within a priority.
    */
-  class AVTimeSeriesDailyResult implements IAVTimeSeriesDailyResult {
+  private static class PrefetchLoad extends FutureTask<PriceSeries>
+      implements Comparable<PrefetchLoad> {
 
-    //<editor-fold desc="State Variables">
+    private final eRequestPriority priority;
+    private final long sequence;
 
-    private final Date timeStamp;
-    private final BigDecimal openValue;
-    private final BigDecimal highValue;
-    private final BigDecimal lowValue;
-    private final BigDecimal closeValue;
-    private final long volume;
-
-    //</editor-fold>
-
-    //<editor-fold desc="Constructors">
-
-    /**
-     * Creates an object containing a row if the time series daily API results.
-     *
-     * @param text the text form of the API result row.
-     * @throws IllegalArgumentException if the format isn't as expected for the API result row.
-     */
-    AVTimeSeriesDailyResult(String text) throws IllegalArgumentException {
-      String[] values = text.split(",");
-
-      if (values.length != 6) {
-        throw new IllegalArgumentException("Provided String is not in expected format!");
-      }
-
-      this.timeStamp = Utils.convertStringToDate(values[0], "yyyy-MM-dd");
-
-      try {
-        this.openValue = new BigDecimal(values[1]);
-        this.highValue = new BigDecimal(values[2]);
-        this.lowValue = new BigDecimal(values[3]);
-        this.closeValue = new BigDecimal(values[4]);
-        this.volume = Long.parseLong(values[5]);
-      } catch (NumberFormatException e) {
-        throw new IllegalArgumentException("One or more provided values is not a number!");
-      }
-    }
-
-    //</editor-fold>
-
-    //<editor-fold desc="Getters">
-
-    @Override
-    public Date getTimeStamp() {
-      return this.timeStamp;
-    }
-
-    @Override
-    public BigDecimal getOpenValue() {
-      return this.openValue;
-    }
-
-    @Override
-    public BigDecimal getHighValue() {
-      return this.highValue;
-    }
-
-    @Override
-    public BigDecimal getLowValue() {
-      return this.lowValue;
+    private PrefetchLoad(Callable<PriceSeries> load, eRequestPriority priority, long sequence) {
+      super(load);
+      this.priority = priority;
+      this.sequence = sequence;
     }
 
     @Override
-    public BigDecimal getCloseValue() {
-      return this.closeValue;
-    }
-
-    @Override
-    public long getVolume() {
-      return this.volume;
-    }
-
-    //</editor-fold>
-  }
-
-  /**
-   * A builder class for the time series result.
-   */
-  class AVTimeSeriesDailyResultBuilder implements IAVResultBuilder {
-
-    @Override
-    public IAVResult create(String text) {
-      return new AVTimeSeriesDailyResult(text);
+    public int compareTo(PrefetchLoad other) {
+      int result = this.priority.compareTo(other.priority);
+      return result != 0 ? result : Long.compare(this.sequence, other.sequence);
     }
   }
 
@@ -375,75 +276,388 @@ public class AlphaVantageAPI implements IStockDataSource {
     }
   }
 
+  /**
+   * The number of days since the last cached price within which a compact (last 100 trading days)
+   * response is enough to top up the cache.
+   */
+  private static final int COMPACT_OUTPUT_DAYS = 100;
+
+  /**
+   * The default number of days from the requested date within which the closest trading day is
+   * taken.
+   */
+  private static final int DEFAULT_MAX_PRICE_STALENESS_DAYS = 10;
+
+  /**
+   * The maximum number of requests sent to the API at the same time when prefetching.
+   */
+  private static final int MAX_CONCURRENT_REQUESTS = 5;
+
+  /**
+   * The address of the Alpha Vantage API.
+   */
+  private static final String DEFAULT_BASE_URL = "https://www.alphavantage.co";
+
+  /**
+   * The HTTP status codes with which requests over the request limit are rejected.
+   */
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final int HTTP_UNAVAILABLE = 503;
+
+  /**
+   * The name of the file in the cache directory in which the listed stocks are persisted.
+   */
+  private static final String SYMBOL_DIRECTORY_FILE = "listing-status.dir";
+
   //</editor-fold>
 
   //<editor-fold desc="State variables">
 
   private final String apiKey;
 
+  private final String baseUrl;
+
+  private final RequestScheduler requestScheduler;
+
+  private volatile int maxPriceStalenessDays;
+
   //</editor-fold>
 
   //<editor-fold desc="Internal caching">
 
-  private Map<String, IAVListingStatusResult> supportedStocks;
+  // the latest loaded directory, replaced once a refresh completes
+  private volatile SymbolDirectory symbolDirectory;
+
+  // the load of the directory in progress, or the last completed load, guarded by this
+  private CompletableFuture<SymbolDirectory> symbolDirectoryLoad;
+
+  private final Path symbolDirectoryPath;
+
+  private final Map<String, PriceSeries> timeSeriesCache;
+
+  // the loads in progress, so that concurrent requests for one symbol share a single fetch
+  private final Map<String, CompletableFuture<PriceSeries>> timeSeriesLoads;
 
-  private Map<Pair<String, Date>, IAVTimeSeriesDailyResult> timeSeriesCache;
+  // loads the prefetched price series, shared by all prefetches and started on first use
+  private final ThreadPoolExecutor prefetchExecutor;
+  private final AtomicLong prefetchSequence;
 
-  private Set<String> fetchedTimeSeriesForCache;
+  private final PriceHistoryCache priceHistoryCache;
+
+  private final ParseStatistics parseStatistics;
+
+  // the default calendar refined with the longest price series loaded, guarded by this
+  private volatile TradingCalendar tradingCalendar;
+  private int tradingCalendarSeriesSize;
 
   //</editor-fold>
 
   //<editor-fold desc="Constructors">
 
   /**
-   * Initializes the Alpha Vantage API with a default API key.
+   * Initializes the Alpha Vantage API with a default API key. The listed stocks are loaded in the
+   * background, see {@link #AlphaVantageAPI(String, Path)}.
    *
-   * @throws StockDataSourceException when an error occurred in the Alpha Vantage API.
    */
-  public AlphaVantageAPI() throws StockDataSourceException {
+  public AlphaVantageAPI() {
     // default API key with 60 requests per minute and no daily limit
-    this.apiKey = "4FKEALJIRNBQQBDM";
-    this.setupSupportedStocksCache();
-    this.setupTimeSeriesCache();
+    this("4FKEALJIRNBQQBDM");
   }
 
   /**
-   * Initializes the Alpha Vantage API with the provided API key.
+   * Initializes the Alpha Vantage API with the provided API key. Price history is cached in the
+   * default cache directory in the user's home directory.
    *
    * @param apiKey The API key required to communicate with the Alpha Vantage API.
-   * @throws StockDataSourceException when an error occurred in the Alpha Vantage API.
    */
-  public AlphaVantageAPI(String apiKey) throws StockDataSourceException {
+  public AlphaVantageAPI(String apiKey) {
+    this(apiKey, Paths.get(System.getProperty("user.home"), ".portfolio-manager", "prices"));
+  }
+
+  /**
+   * Initializes the Alpha Vantage API with the provided API key and price history cache directory.
+   * The constructor does not wait for the API: the listed stocks persisted on a previous run are
+   * served while the listings are refreshed in the background, and only lookups of symbols unknown
+   * to the persisted listings wait for the refresh.
+   *
+   * @param apiKey         The API key required to communicate with the Alpha Vantage API.
+   * @param cacheDirectory the directory in which price history and the listed stocks are persisted
+   *                       between runs. They are only kept in memory if {@code null}.
+   */
+  public AlphaVantageAPI(String apiKey, Path cacheDirectory) {
+    // the default API key allows 60 requests per minute, throttled requests are retried for
+    // just over a minute
+    this(apiKey, cacheDirectory, DEFAULT_BASE_URL, new RequestScheduler(60, 0, 5, 2000));
+  }
+
+  /**
+   * Initializes the Alpha Vantage API with the provided API key, price history cache directory,
+   * API address and request scheduler.
+   *
+   * @param apiKey           The API key required to communicate with the Alpha Vantage API.
+   * @param cacheDirectory   the directory in which price history and the listed stocks are
+   *                         persisted between runs. They are only kept in memory if {@code null}.
+   * @param baseUrl          the address of the API, without a trailing slash.
+   * @param requestScheduler the scheduler which keeps the requests within the limits of the key.
+   */
+  AlphaVantageAPI(String apiKey, Path cacheDirectory, String baseUrl,
+      RequestScheduler requestScheduler) {
     this.apiKey = apiKey;
-    this.setupSupportedStocksCache();
-    this.setupTimeSeriesCache();
+    this.baseUrl = baseUrl;
+    this.requestScheduler = requestScheduler;
+    this.maxPriceStalenessDays = DEFAULT_MAX_PRICE_STALENESS_DAYS;
+    this.priceHistoryCache = cacheDirectory == null ? null : new PriceHistoryCache(cacheDirectory);
+    this.parseStatistics = new ParseStatistics();
+    this.tradingCalendar = TradingCalendar.getDefault();
+    this.timeSeriesCache = new ConcurrentHashMap<>();
+    this.timeSeriesLoads = new ConcurrentHashMap<>();
+    this.prefetchExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS,
+        MAX_CONCURRENT_REQUESTS, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "alpha-vantage-prefetch");
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.prefetchExecutor.allowCoreThreadTimeOut(true);
+    this.prefetchSequence = new AtomicLong();
+    this.symbolDirectoryPath =
+        cacheDirectory == null ? null : cacheDirectory.resolve(SYMBOL_DIRECTORY_FILE);
+    this.setupSymbolDirectory();
   }
 
   //</editor-fold>
 
   //<editor-fold desc="Supported Stocks Cache and Time Series Cache Setup">
 
-  private void setupSupportedStocksCache() throws StockDataSourceException {
-    this.supportedStocks = new HashMap<>();
+  /**
+   * Sets up the directory of the listed stocks from the persisted snapshot, and starts a refresh
+   * in the background if there is no snapshot from today.
+   */
+  private void setupSymbolDirectory() {
+    SymbolDirectory snapshot =
+        this.symbolDirectoryPath == null ? null : SymbolDirectory.read(this.symbolDirectoryPath);
+
+    if (snapshot != null && snapshot.getFetchedOn() >= Utils.getTodayEpochDay()) {
+      this.symbolDirectory = snapshot;
+      this.symbolDirectoryLoad = CompletableFuture.completedFuture(snapshot);
+      return;
+    }
+
+    // until the first load completes no symbols are known
+    this.symbolDirectory =
+        snapshot != null ? snapshot : new SymbolDirectory.Builder().build(Integer.MIN_VALUE);
+    this.symbolDirectoryLoad = this.startSymbolDirectoryLoad(
+        snapshot != null ? eRequestPriority.BACKGROUND : eRequestPriority.INTERACTIVE);
+  }
+
+  private CompletableFuture<SymbolDirectory> startSymbolDirectoryLoad(eRequestPriority priority) {
+    CompletableFuture<SymbolDirectory> load = new CompletableFuture<>();
+
+    Thread thread = new Thread(() -> {
+      try {
+        SymbolDirectory directory = this.fetchSymbolDirectory(priority);
+        this.persistSymbolDirectory(directory);
+        this.symbolDirectory = directory;
+        load.complete(directory);
+      } catch (StockDataSourceException | RuntimeException e) {
+        load.completeExceptionally(e);
+      }
+    }, "alpha-vantage-listing-status");
+
+    // the load must not keep the application running
+    thread.setDaemon(true);
+    thread.start();
+    return load;
+  }
+
+  /**
+   * Waits for the load of the directory in progress. A failed load is started again, so that
+   * unknown symbols are looked up once the API is reachable.
+   *
+   * @return the latest loaded directory.
+   * @throws IllegalArgumentException when no directory could be loaded at all.
+   */
+  private SymbolDirectory awaitSymbolDirectory() throws IllegalArgumentException {
+    CompletableFuture<SymbolDirectory> load;
+    synchronized (this) {
+      if (this.symbolDirectoryLoad.isCompletedExceptionally()) {
+        this.symbolDirectoryLoad = this.startSymbolDirectoryLoad(eRequestPriority.INTERACTIVE);
+      }
+      load = this.symbolDirectoryLoad;
+    }
+
+    try {
+      return load.join();
+    } catch (CompletionException | CancellationException e) {
+      // the snapshot is still usable if the refresh failed
+      SymbolDirectory directory = this.symbolDirectory;
+      if (directory.size() == 0) {
+        throw new IllegalArgumentException("The stocks supported by the API could not be loaded!");
+      }
+      return directory;
+    }
+  }
+
+  private void persistSymbolDirectory(SymbolDirectory directory) {
+    if (this.symbolDirectoryPath == null) {
+      return;
+    }
 
     try {
-      List<IAVListingStatusResult> activeStocks = this.alphaVantageEndpointListingStatus(true);
-      List<IAVListingStatusResult> delistedStocks = this.alphaVantageEndpointListingStatus(false);
+      directory.write(this.symbolDirectoryPath);
+    } catch (IOException e) {
+      // persisting is best effort, the directory is still available in memory
+    }
+  }
+
+  private SymbolDirectory fetchSymbolDirectory(eRequestPriority priority)
+      throws StockDataSourceException {
+    List<IAVListingStatusResult> activeStocks = this.requestScheduler.execute(priority,
+        () -> this.alphaVantageEndpointListingStatus(true));
+    List<IAVListingStatusResult> delistedStocks = this.requestScheduler.execute(priority,
+        () -> this.alphaVantageEndpointListingStatus(false));
+
+    // delisted stocks replace active listings of the same symbol
+    SymbolDirectory.Builder builder = new SymbolDirectory.Builder();
+    for (List<IAVListingStatusResult> stocks : List.of(activeStocks, delistedStocks)) {
+      for (IAVListingStatusResult stock : stocks) {
+        builder.add(stock.getSymbol(), stock.getName(), stock.getExchange(),
+            stock.getAssetType(), stock.getStatus(),
+            Utils.convertDateToEpochDay(stock.getIpoDate()),
+            stock.getDelistingDate() == null ? SymbolDirectory.NO_DELISTING_DAY
+                : Utils.convertDateToEpochDay(stock.getDelistingDate()));
+      }
+    }
+
+    return builder.build(Utils.getTodayEpochDay());
+  }
+
+  private boolean isTopUpNeeded(PriceSeries series, int requestedDay, int today) {
+    if (requestedDay <= series.getLastEpochDay() || series.getFetchedOn() >= today) {
+      return false;
+    }
+
+    // the exchange may not have been open on any day since the last price, e.g. over a weekend
+    return series.size() == 0
+        || this.tradingCalendar.nextTradingDay(series.getLastEpochDay() + 1) <= requestedDay;
+  }
+
+  /**
+   * Refines the trading calendar with the trading days of the given price series, if it covers
+   * more trading days than the series the calendar was refined with so far.
+   *
+   * @param series the loaded price series.
+   */
+  private synchronized void refineTradingCalendar(PriceSeries series) {
+    if (series.size() > this.tradingCalendarSeriesSize) {
+      this.tradingCalendar = TradingCalendar.getDefault().withTradingDays(series.getEpochDays());
+      this.tradingCalendarSeriesSize = series.size();
+    }
+  }
+
+  /**
+   * Gets the price series of the stock covering the given day. The persistent cache is consulted
+   * first and only the missing recent days are fetched from the API when the requested day is
+   * after the last cached price. Concurrent requests for the same symbol wait for a single load
+   * instead of each fetching the series.
+   *
+   * @param symbol       the symbol of the stock.
+   * @param requestedDay the day since the epoch for which the price is requested.
+   * @param priority     the priority of the requests sent to the API.
+   * @return the price series of the stock.
+   * @throws StockDataSourceException when an error occurs in the API.
+   */
+  private PriceSeries loadTimeSeries(String symbol, int requestedDay, eRequestPriority priority)
+      throws StockDataSourceException {
+    int today = Utils.getTodayEpochDay();
+
+    while (true) {
+      PriceSeries series = this.timeSeriesCache.get(symbol);
+      if (series != null && !isTopUpNeeded(series, requestedDay, today)) {
+        return series;
+      }
 
-      for (IAVListingStatusResult stock : activeStocks) {
-        this.supportedStocks.put(stock.getSymbol(), stock);
+      CompletableFuture<PriceSeries> load = new CompletableFuture<>();
+      CompletableFuture<PriceSeries> inFlightLoad = this.timeSeriesLoads.putIfAbsent(symbol, load);
+
+      if (inFlightLoad == null) {
+        try {
+          series = this.loadTimeSeries(symbol, series, requestedDay, today, priority);
+          this.timeSeriesCache.put(symbol, series);
+          this.refineTradingCalendar(series);
+          load.complete(series);
+          return series;
+        } catch (StockDataSourceException | RuntimeException e) {
+          load.completeExceptionally(e);
+          throw e;
+        } finally {
+          this.timeSeriesLoads.remove(symbol, load);
+        }
       }
-      for (IAVListingStatusResult stock : delistedStocks) {
-        this.supportedStocks.put(stock.getSymbol(), stock);
+
+      // the load in progress may have been for an earlier day, in which case this is retried
+      series = this.awaitLoad(inFlightLoad);
+      if (!isTopUpNeeded(series, requestedDay, today)) {
+        return series;
       }
-    } catch (StockDataSourceException e) {
-      throw new StockDataSourceException("Setup of cache failed!");
     }
   }
 
-  private void setupTimeSeriesCache() {
-    this.fetchedTimeSeriesForCache = new HashSet<>();
-    this.timeSeriesCache = new HashMap<>();
+  private PriceSeries loadTimeSeries(String symbol, PriceSeries series, int requestedDay,
+      int today, eRequestPriority priority) throws StockDataSourceException {
+    if (series == null && this.priceHistoryCache != null) {
+      series = this.priceHistoryCache.read(symbol);
+    }
+
+    if (series == null) {
+      series = this.fetchPriceSeries(symbol, true, priority);
+      this.persistPriceSeries(symbol, series);
+    } else if (isTopUpNeeded(series, requestedDay, today)) {
+      // top up only the days missing since the last fetch
+      if (today - series.getLastEpochDay() < COMPACT_OUTPUT_DAYS) {
+        series = series.merge(this.fetchPriceSeries(symbol, false, priority));
+      } else {
+        series = this.fetchPriceSeries(symbol, true, priority);
+      }
+      this.persistPriceSeries(symbol, series);
+    }
+
+    return series;
+  }
+
+  private PriceSeries awaitLoad(Future<PriceSeries> load) throws StockDataSourceException {
+    try {
+      return load.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof StockDataSourceException) {
+        throw (StockDataSourceException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new StockDataSourceException("Loading the price data failed!", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StockDataSourceException("Loading the price data was interrupted!", e);
+    }
+  }
+
+  private PriceSeries fetchPriceSeries(String symbol, boolean isFullOutput,
+      eRequestPriority priority) throws StockDataSourceException {
+    return this.requestScheduler.execute(priority,
+        () -> this.alphaVantageEndpointTimeSeriesDailySeries(symbol, isFullOutput));
+  }
+
+  private void persistPriceSeries(String symbol, PriceSeries series) {
+    if (this.priceHistoryCache == null) {
+      return;
+    }
+
+    try {
+      this.priceHistoryCache.write(symbol, series);
+    } catch (IOException e) {
+      // persisting is best effort, the prices are still available in memory
+    }
   }
 
   //</editor-fold>
@@ -453,8 +667,7 @@ public class AlphaVantageAPI implements IStockDataSource {
   private String buildQueryUrl(eAlphaVantageFunction function, List<Pair<String, String>> params) {
     StringBuilder urlBuilder = new StringBuilder();
 
-    String baseUrl = "https://www.alphavantage.co";
-    urlBuilder.append(baseUrl).append("/query?");
+    urlBuilder.append(this.baseUrl).append("/query?");
     urlBuilder.append("function=").append(function.getFunctionVal());
 
     for (Pair<String, String> p : params) {
@@ -463,76 +676,73 @@ public class AlphaVantageAPI implements IStockDataSource {
     return urlBuilder.toString();
   }
 
-  private StringBuilder query(eAlphaVantageFunction function, List<Pair<String, String>> params)
-      throws StockDataSourceException {
-    URL url = null;
+  private URL buildQuery(eAlphaVantageFunction function, List<Pair<String, String>> params) {
     String urlString = this.buildQueryUrl(function, params);
 
     try {
-      url = new URL(urlString);
+      return new URL(urlString);
     } catch (MalformedURLException e) {
       throw new RuntimeException("The alpha Vantage API has either changed or no longer works!");
     }
-
-    InputStream in;
-    StringBuilder output = new StringBuilder();
-
-    try {
-      /*
-      Execute this query. This returns an InputStream object.
-      In the csv format, it returns several lines, each line being separated
-      by commas. Each line contains the date, price at opening time, the highest
-      price for that date, the lowest price for that date, price at closing time
-      and the volume of trade (no. of shares bought/sold) on that date.
-
-      This is printed below.
-       */
-      in = url.openStream();
-      int ioByte;
-
-      while ((ioByte = in.read()) != -1) {
-        output.append((char) ioByte);
-      }
-    } catch (IOException e) {
-      throw new StockDataSourceException("No price data found for provided symbol!");
-    }
-
-    return output;
   }
 
-  private List<String> splitStringByLine(String text) {
-    List<String> result = new ArrayList<>();
-    try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
-      String line = reader.readLine();
-      while (line != null) {
-        result.add(line);
-        line = reader.readLine();
-      }
-    } catch (IOException exc) {
-      // quit
-    }
-
-    return result;
+  /**
+   * Checks whether a JSON message of the API is the notice of the request limit. The API answers
+   * with other JSON messages too, e.g. for an invalid key or a premium endpoint, which are not
+   * resolved by waiting.
+   *
+   * @param messageText the JSON message.
+   * @return true if the message is the notice of the request limit.
+   */
+  private static boolean isRequestLimitNotice(String messageText) {
+    String text = messageText.toLowerCase(Locale.ROOT);
+    return (text.contains("\"note\"") || text.contains("\"information\""))
+        && (text.contains("call frequency") || text.contains("rate limit"));
   }
 
-  //</editor-fold>
-
-  //<editor-fold desc="API endpoints helpers">
+  /**
+   * Opens the response of the query. The Alpha Vantage API answers requests over the request limit
+   * either with an HTTP error or with a short JSON notice instead of the requested CSV, both of
+   * which are reported as throttled. Any other JSON message rejects the query for good.
+   *
+   * @param url the query to be sent.
+   * @return the response of the query.
+   * @throws IOException                when the query could not be sent.
+   * @throws RequestThrottledException when the API rejected the query due to the request limit.
+   * @throws StockDataSourceException  when the API rejected the query for another reason.
+   */
+  private InputStream openQuery(URL url) throws IOException, StockDataSourceException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    int responseCode = connection.getResponseCode();
 
-  private List<IAVResult> convertQueryResultToObjectList(IAVResultBuilder builder,
-      String queryResult) {
-    // split results by line and remove first line (the first line contains the column names)
-    List<String> queryResultByLine = this.splitStringByLine(queryResult);
-    queryResultByLine.remove(0);
+    if (responseCode == HTTP_TOO_MANY_REQUESTS || responseCode == HTTP_UNAVAILABLE) {
+      connection.disconnect();
+      throw new RequestThrottledException("The API rejected the request due to the request limit!");
+    }
 
-    // convert the provided list of strings to list of usable objects
-    List<IAVResult> result = new ArrayList<>();
+    InputStream in = new BufferedInputStream(connection.getInputStream());
+    in.mark(1);
+    int firstByte = in.read();
+    in.reset();
 
-    for (String queryResultLine : queryResultByLine) {
-      result.add(builder.create(queryResultLine));
+    if (firstByte != '{') {
+      return in;
     }
 
-    return result;
+    // a JSON response is only a short message, which is read to check for the limit notice
+    byte[] message;
+    try (InputStream messageStream = in) {
+      message = messageStream.readAllBytes();
+    }
+    String messageText = new String(message, StandardCharsets.UTF_8);
+    if (isRequestLimitNotice(messageText)) {
+      throw new RequestThrottledException("The API rejected the request due to the request limit!");
+    }
+    if (messageText.contains("\"Information\"") || messageText.contains("\"Error Message\"")) {
+      throw new StockDataSourceException(
+          "The API rejected the request! Please check the API key and the requested data.");
+    }
+    return new ByteArrayInputStream(message);
   }
 
   //</editor-fold>
@@ -540,31 +750,38 @@ public class AlphaVantageAPI implements IStockDataSource {
   //<editor-fold desc="API endpoints">
 
   /**
-   * Gets the time series from Alpha Vantage API for the specified stock.
+   * Gets the closing prices of the time series from Alpha Vantage API for the specified stock. The
+   * response is parsed while it is streamed, without holding the response text in memory.
    *
-   * @param symbol the stock symbol.
-   * @return the result from the API
+   * @param symbol       the stock symbol.
+   * @param isFullOutput whether the full history is to be fetched instead of the latest 100 days.
+   * @return the closing prices of the stock ordered by date.
    * @throws StockDataSourceException when an error occurs in the API.
    */
-  List<IAVTimeSeriesDailyResult> alphaVantageEndpointTimeSeriesDaily(String symbol)
+  PriceSeries alphaVantageEndpointTimeSeriesDailySeries(String symbol, boolean isFullOutput)
       throws StockDataSourceException {
     this.validateSupportedStock(symbol);
 
     // setup parameters for query to be sent to Alpha Vantage
     ArrayList<Pair<String, String>> params = new ArrayList<>();
 
-    params.add(new Pair<>("outputsize", "full"));
+    params.add(new Pair<>("outputsize", isFullOutput ? "full" : "compact"));
     params.add(new Pair<>("symbol", symbol));
     params.add(new Pair<>("apikey", this.apiKey));
     params.add(new Pair<>("datatype", "csv"));
 
-    String queryResult = this.query(eAlphaVantageFunction.TIME_SERIES_DAILY, params).toString();
+    URL url = this.buildQuery(eAlphaVantageFunction.TIME_SERIES_DAILY, params);
+    long startTime = System.nanoTime();
 
-    try {
-      return this.convertQueryResultToObjectList(new AVTimeSeriesDailyResultBuilder(), queryResult)
-          .stream()
-          .map(r -> (AVTimeSeriesDailyResult) r)
-          .collect(Collectors.toList());
+    try (InputStream in = this.openQuery(url)) {
+      TimeSeriesCsvParser parser = new TimeSeriesCsvParser(in);
+      PriceSeries result = parser.parse(Utils.getTodayEpochDay());
+
+      this.parseStatistics.record(parser.getBytesRead(), parser.getRowsRead(),
+          System.nanoTime() - startTime);
+      return result;
+    } catch (IOException e) {
+      throw new StockDataSourceException("No price data found for provided symbol!");
     } catch (IllegalArgumentException e) {
       throw new StockDataSourceException(
           "One or more errors occurred while parsing the response from the API: " + e.getMessage());
@@ -588,25 +805,79 @@ public class AlphaVantageAPI implements IStockDataSource {
       params.add(new Pair<>("state", "delisted"));
     }
 
-    String queryResult = this.query(eAlphaVantageFunction.LISTING_STATUS, params).toString();
+    URL url = this.buildQuery(eAlphaVantageFunction.LISTING_STATUS, params);
+    AVListingStatusResultBuilder builder = new AVListingStatusResultBuilder();
+    List<IAVListingStatusResult> result = new ArrayList<>();
 
-    try {
-      return this.convertQueryResultToObjectList(new AVListingStatusResultBuilder(), queryResult)
-          .stream()
-          .map(r -> (IAVListingStatusResult) r)
-          .collect(Collectors.toList());
+    try (InputStream in = this.openQuery(url)) {
+      TimeSeriesCsvParser parser = new TimeSeriesCsvParser(in);
+
+      // the first line contains the column names
+      parser.readLine();
+      for (String line = parser.readLine(); line != null; line = parser.readLine()) {
+        result.add((IAVListingStatusResult) builder.create(line));
+      }
+    } catch (IOException e) {
+      throw new StockDataSourceException("No price data found for provided symbol!");
     } catch (IllegalArgumentException e) {
       throw new StockDataSourceException(
           "One or more errors occurred while parsing the response from the API: " + e.getMessage());
     }
+
+    return result;
   }
 
   //</editor-fold>
 
   //<editor-fold desc="Result converter helpers">
 
-  private IStock convertListingResultToStock(IAVListingStatusResult s) {
-    return new Stock(s.getSymbol(), s.getName(), s.getExchange());
+  private IStock convertDirectoryEntryToStock(SymbolDirectory directory, int index) {
+    return new Stock(directory.getSymbol(index), directory.getName(index),
+        directory.getExchange(index));
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Price helper methods">
+
+  /**
+   * Resolves the price of the stock on the given date from its price series.
+   *
+   * @param symbol          the symbol of the stock.
+   * @param series          the price series of the stock.
+   * @param date            the date on which the price is requested.
+   * @param takeFuturePrice whether the next trading day is to be taken instead of the previous
+   *                        one if the requested date has no price.
+   * @return the price of the stock, or 0 if the stock wasn't listed on the date.
+   * @throws StockDataSourceException when the stock has no price near the date.
+   */
+  private BigDecimal resolveStockPrice(String symbol, PriceSeries series, Date date,
+      boolean takeFuturePrice) throws StockDataSourceException {
+    int epochDay = Utils.convertDateToEpochDay(date);
+    SymbolDirectory directory = this.validateSupportedStock(symbol);
+    int listingIndex = directory.indexOf(symbol);
+    if (epochDay < directory.getIpoDay(listingIndex)
+        || epochDay > directory.getDelistingDay(listingIndex)) {
+      return new BigDecimal(0);
+    }
+
+    // taking the closest trading day before (or after) the provided date in case value is not
+    // found on given date, upto the maximum staleness away from the given date
+    int maxStaleness = this.maxPriceStalenessDays;
+    int index = takeFuturePrice ? series.indexOnOrAfter(epochDay)
+        : series.indexOnOrBefore(epochDay);
+
+    if (takeFuturePrice && index >= series.size()) {
+      // no later trading day has been published yet, so the last close is the closest
+      index = series.size() - 1;
+    }
+
+    if (index < 0 || Math.abs(series.getEpochDay(index) - epochDay) > maxStaleness) {
+      throw new StockDataSourceException("No price of stock symbol: " + symbol
+          + " is available within " + maxStaleness + " days of " + date + "!");
+    }
+
+    return series.getClose(index);
   }
 
   //</editor-fold>
@@ -614,38 +885,117 @@ public class AlphaVantageAPI implements IStockDataSource {
   //<editor-fold desc="Validation helper methods">
 
   /**
-   * Validates whether the stock is supported by the Alpha Vantage API.
+   * Validates whether the stock is supported by the Alpha Vantage API. A symbol unknown to the
+   * loaded listings waits for the refresh of the listings in progress.
    *
    * @param symbol The symbol of the stock using which the stock is traded.
+   * @return the directory of listed stocks containing the stock.
    * @throws IllegalArgumentException when the stock is not valid or is not supported by the API.
    */
-  private void validateSupportedStock(String symbol) throws IllegalArgumentException {
-    if (!this.supportedStocks.containsKey(symbol)) {
-      throw new IllegalArgumentException(
-          "Provided stock symbol: " + symbol + " is not supported by the API!");
+  private SymbolDirectory validateSupportedStock(String symbol) throws IllegalArgumentException {
+    SymbolDirectory directory = this.symbolDirectory;
+
+    if (directory.indexOf(symbol) < 0) {
+      directory = this.awaitSymbolDirectory();
+      if (directory.indexOf(symbol) < 0) {
+        throw new IllegalArgumentException(
+            "Provided stock symbol: " + symbol + " is not supported by the API!");
+      }
     }
+    return directory;
   }
 
   //</editor-fold>
 
   //<editor-fold desc="Public Stock methods">
 
+  /**
+   * Gets the throughput statistics of the time series responses parsed so far.
+   *
+   * @return the cumulative parse statistics.
+   */
+  public ParseStatistics getTimeSeriesParseStatistics() {
+    return this.parseStatistics;
+  }
+
+  /**
+   * Sets the number of days from the requested date within which the closest trading day is taken
+   * as the price of a stock. A stock without a trading day that close to the requested date has no
+   * price on it. Defaults to 10 days.
+   *
+   * @param maxPriceStalenessDays the maximum number of days between the requested date and the
+   *                              trading day of the price.
+   * @throws IllegalArgumentException when the number of days is negative.
+   */
+  public void setMaxPriceStaleness(int maxPriceStalenessDays) throws IllegalArgumentException {
+    if (maxPriceStalenessDays < 0) {
+      throw new IllegalArgumentException("The maximum staleness of a price cannot be negative!");
+    }
+    this.maxPriceStalenessDays = maxPriceStalenessDays;
+  }
+
+  /**
+   * Gets the scheduler of the requests sent to the API, which provides the queue metrics.
+   *
+   * @return the request scheduler.
+   */
+  public RequestScheduler getRequestScheduler() {
+    return this.requestScheduler;
+  }
+
+  /**
+   * Searches the listed stocks whose symbol or name starts with the given prefix. Stocks matching
+   * by symbol come first, ordered by symbol, followed by stocks matching by name. The search is
+   * over the latest loaded listings, and only waits for the listings if none are loaded yet.
+   *
+   * @param prefix the prefix of the symbol or name, the name is matched ignoring case.
+   * @param limit  the maximum number of stocks to be found.
+   * @return the stocks found.
+   * @throws IllegalArgumentException when the prefix is empty or the limit is not positive.
+   */
+  public List<IStock> searchStocks(String prefix, int limit) throws IllegalArgumentException {
+    if (prefix == null || prefix.isEmpty() || limit <= 0) {
+      throw new IllegalArgumentException("A search needs a prefix and a positive limit!");
+    }
+
+    SymbolDirectory directory = this.symbolDirectory;
+    if (directory.size() == 0) {
+      directory = this.awaitSymbolDirectory();
+    }
+
+    Set<Integer> indices = new LinkedHashSet<>(directory.findBySymbolPrefix(prefix, limit));
+    for (int index : directory.findByNamePrefix(prefix, limit)) {
+      if (indices.size() >= limit) {
+        break;
+      }
+      indices.add(index);
+    }
+
+    List<IStock> result = new ArrayList<>(indices.size());
+    for (int index : indices) {
+      result.add(this.convertDirectoryEntryToStock(directory, index));
+    }
+    return result;
+  }
+
   @Override
   public IStock getStock(String symbol) throws IllegalArgumentException {
-    this.validateSupportedStock(symbol);
-    return this.convertListingResultToStock(this.supportedStocks.get(symbol));
+    SymbolDirectory directory = this.validateSupportedStock(symbol);
+    return this.convertDirectoryEntryToStock(directory, directory.indexOf(symbol));
   }
 
   @Override
   public Date getIPODate(String symbol) throws IllegalArgumentException {
-    this.validateSupportedStock(symbol);
-    return this.supportedStocks.get(symbol).getIpoDate();
+    SymbolDirectory directory = this.validateSupportedStock(symbol);
+    return Utils.convertEpochDayToDate(directory.getIpoDay(directory.indexOf(symbol)));
   }
 
   @Override
   public Date getDelistingDate(String symbol) throws IllegalArgumentException {
-    this.validateSupportedStock(symbol);
-    return this.supportedStocks.get(symbol).getDelistingDate();
+    SymbolDirectory directory = this.validateSupportedStock(symbol);
+    int delistingDay = directory.getDelistingDay(directory.indexOf(symbol));
+    return delistingDay == SymbolDirectory.NO_DELISTING_DAY ? null
+        : Utils.convertEpochDayToDate(delistingDay);
   }
 
   @Override
@@ -654,42 +1004,96 @@ public class AlphaVantageAPI implements IStockDataSource {
     Utils.validateFutureDate(date);
     this.validateSupportedStock(symbol);
 
-    // fetch and store values from API if value isn't available in cache
-    if (!this.fetchedTimeSeriesForCache.contains(symbol)) {
-      List<IAVTimeSeriesDailyResult> timeSeriesResults = this.alphaVantageEndpointTimeSeriesDaily(
-          symbol);
-      for (IAVTimeSeriesDailyResult tsr : timeSeriesResults) {
-        this.timeSeriesCache.put(new Pair<>(symbol, tsr.getTimeStamp()), tsr);
-      }
+    // fetch and store values from the persistent cache or API if value isn't available in cache
+    PriceSeries series = this.loadTimeSeries(symbol, Utils.convertDateToEpochDay(date),
+        eRequestPriority.INTERACTIVE);
 
-      this.fetchedTimeSeriesForCache.add(symbol);
+    return this.resolveStockPrice(symbol, series, date, takeFuturePrice);
+  }
+
+  @Override
+  public List<BigDecimal> getStockPrices(String symbol, List<Date> dates, boolean takeFuturePrice)
+      throws StockDataSourceException {
+    this.validateSupportedStock(symbol);
+
+    List<BigDecimal> result = new ArrayList<>(dates.size());
+    if (dates.isEmpty()) {
+      return result;
     }
 
-    if (date.before(this.getIPODate(symbol))
-        || (this.getDelistingDate(symbol) != null && date.after(this.getDelistingDate(symbol)))) {
-      return new BigDecimal(0);
+    Date latestDate = dates.get(0);
+    for (Date date : dates) {
+      Utils.validateFutureDate(date);
+      if (date.after(latestDate)) {
+        latestDate = date;
+      }
     }
 
-    Pair<String, Date> timeSeriesTargetPair = new Pair<>(symbol, date);
+    // the series is loaded once for all the dates
+    PriceSeries series = this.loadTimeSeries(symbol, Utils.convertDateToEpochDay(latestDate),
+        eRequestPriority.INTERACTIVE);
 
-    // checking days before the provided date in case value is not found on given date
-    // trying upto 10 days before given date
-    for (int i = 1; i <= 10; i++) {
-      if (this.timeSeriesCache.containsKey(timeSeriesTargetPair)) {
-        return this.timeSeriesCache.get(timeSeriesTargetPair).getCloseValue();
-      }
+    for (Date date : dates) {
+      result.add(this.resolveStockPrice(symbol, series, date, takeFuturePrice));
+    }
+    return result;
+  }
+
+  @Override
+  public TradingCalendar getTradingCalendar() {
+    return this.tradingCalendar;
+  }
 
-      int dayInMS = 86400000;
-      int dayMultiplier = i;
-      if (takeFuturePrice) {
-        dayMultiplier = -dayMultiplier;
+  /**
+   * Loads the price series of the given stocks ahead of price requests, for a user waiting on
+   * their prices.
+   *
+   * @param symbols The symbols of the stocks using which the stocks are traded.
+   * @throws StockDataSourceException when an error occurred in the API.
+   */
+  @Override
+  public void prefetch(Collection<String> symbols) throws StockDataSourceException {
+    this.prefetch(symbols, eRequestPriority.INTERACTIVE);
+  }
+
+  /**
+   * Loads the price series of the given stocks ahead of price requests. A few series are loaded at
+   * the same time on an executor shared by all prefetches, where loads of a higher priority start
+   * before waiting loads of a lower priority.
+   *
+   * @param symbols  The symbols of the stocks using which the stocks are traded.
+   * @param priority the priority of the requests sent to the API.
+   * @throws StockDataSourceException when an error occurred in the API.
+   */
+  public void prefetch(Collection<String> symbols, eRequestPriority priority)
+      throws StockDataSourceException {
+    List<String> missingSymbols = new ArrayList<>();
+
+    for (String symbol : new LinkedHashSet<>(symbols)) {
+      this.validateSupportedStock(symbol);
+      if (!this.timeSeriesCache.containsKey(symbol)) {
+        missingSymbols.add(symbol);
       }
-      Date backtrackDate = new Date(date.getTime() - dayInMS * dayMultiplier);
-      timeSeriesTargetPair = new Pair<>(symbol, backtrackDate);
     }
 
-    return new BigDecimal(0);
+    List<PrefetchLoad> loads = new ArrayList<>();
+    for (String symbol : missingSymbols) {
+      // any cached history will do, the missing recent days are topped up when requested
+      PrefetchLoad load = new PrefetchLoad(
+          () -> this.loadTimeSeries(symbol, Integer.MIN_VALUE, priority), priority,
+          this.prefetchSequence.getAndIncrement());
+      this.prefetchExecutor.execute(load);
+      loads.add(load);
+    }
 
+    // the loads which no thread of the executor has started yet are run here, so a prefetch
+    // never waits for the executor to finish the loads of other prefetches
+    for (PrefetchLoad load : loads) {
+      load.run();
+    }
+    for (PrefetchLoad load : loads) {
+      this.awaitLoad(load);
+    }
   }
 
   //</editor-fold>
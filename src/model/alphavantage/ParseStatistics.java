@@ -0,0 +1,91 @@
+package model.alphavantage;
+
+/**
+ * Cumulative throughput statistics of the responses parsed from the Alpha Vantage API. The time
+ * measured includes the time spent waiting on the network stream.
+ */
+public class ParseStatistics {
+
+  //<editor-fold desc="State variables">
+
+  private long bytes;
+  private long rows;
+  private long nanos;
+  private int responses;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Records a parsed response.
+   *
+   * @param bytes the number of bytes in the response.
+   * @param rows  the number of rows in the response.
+   * @param nanos the time taken to read and parse the response in nanoseconds.
+   */
+  synchronized void record(long bytes, long rows, long nanos) {
+    this.bytes += bytes;
+    this.rows += rows;
+    this.nanos += nanos;
+    this.responses++;
+  }
+
+  /**
+   * Gets the total number of bytes parsed.
+   *
+   * @return the number of bytes parsed.
+   */
+  public synchronized long getBytes() {
+    return this.bytes;
+  }
+
+  /**
+   * Gets the total number of rows parsed.
+   *
+   * @return the number of rows parsed.
+   */
+  public synchronized long getRows() {
+    return this.rows;
+  }
+
+  /**
+   * Gets the number of responses parsed.
+   *
+   * @return the number of responses parsed.
+   */
+  public synchronized int getResponses() {
+    return this.responses;
+  }
+
+  /**
+   * Gets the average number of bytes parsed per second.
+   *
+   * @return the bytes parsed per second, or 0 if nothing has been parsed.
+   */
+  public synchronized double getBytesPerSecond() {
+    return this.nanos == 0 ? 0 : this.bytes * 1e9 / this.nanos;
+  }
+
+  /**
+   * Gets the average number of rows parsed per second.
+   *
+   * @return the rows parsed per second, or 0 if nothing has been parsed.
+   */
+  public synchronized double getRowsPerSecond() {
+    return this.nanos == 0 ? 0 : this.rows * 1e9 / this.nanos;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Object methods">
+
+  @Override
+  public synchronized String toString() {
+    return String.format("Parsed %d rows (%d bytes) from %d responses in %.1f ms: "
+            + "%.0f rows/s, %.0f bytes/s", this.rows, this.bytes, this.responses,
+        this.nanos / 1e6, this.getRowsPerSecond(), this.getBytesPerSecond());
+  }
+
+  //</editor-fold>
+}
@@ -0,0 +1,128 @@
+package model.alphavantage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A persistent store of the daily closing prices of stocks. The history of each symbol is kept in
+ * its own compact binary file inside the cache directory, so that it survives restarts of the
+ * application and only the missing recent days have to be fetched from the API.
+ */
+class PriceHistoryCache {
+
+  //<editor-fold desc="Constants">
+
+  private static final int FILE_MAGIC = 0x41565048;
+  private static final int FILE_VERSION = 1;
+  private static final String FILE_EXTENSION = ".prices";
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final Path directory;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a price history cache backed by files in the given directory. The directory is created
+   * when the first history is written.
+   *
+   * @param directory the directory in which the price files are kept.
+   */
+  PriceHistoryCache(Path directory) {
+    this.directory = directory;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private Path getFilePath(String symbol) {
+    // symbols may contain characters such as '/' which are not valid in file names
+    return this.directory.resolve(symbol.replaceAll("[^A-Za-z0-9.\\-]", "_") + FILE_EXTENSION);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Reads the price history of the given symbol from the cache directory.
+   *
+   * @param symbol the symbol of the stock.
+   * @return the cached price history, or {@code null} if the symbol is not cached or the file is
+   *     unreadable.
+   */
+  PriceSeries read(String symbol) {
+    Path path = this.getFilePath(symbol);
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+        return null;
+      }
+
+      int fetchedOn = in.readInt();
+      int count = in.readInt();
+      int[] epochDays = new int[count];
+      long[] closes = new long[count];
+
+      for (int i = 0; i < count; i++) {
+        epochDays[i] = in.readInt();
+        closes[i] = in.readLong();
+      }
+
+      return new PriceSeries(fetchedOn, epochDays, closes);
+    } catch (IOException | IllegalArgumentException e) {
+      // a corrupt cache file is treated as a cache miss
+      return null;
+    }
+  }
+
+  /**
+   * Writes the price history of the given symbol to the cache directory. The file is replaced
+   * atomically so that a crash never leaves a partially written history behind.
+   *
+   * @param symbol the symbol of the stock.
+   * @param series the price series to be written.
+   * @throws IOException when the file could not be written.
+   */
+  void write(String symbol, PriceSeries series) throws IOException {
+    Files.createDirectories(this.directory);
+    Path path = this.getFilePath(symbol);
+    Path tempPath = Files.createTempFile(this.directory, symbol.replaceAll("\\W", "_"), ".tmp");
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      out.writeInt(FILE_MAGIC);
+      out.writeInt(FILE_VERSION);
+      out.writeInt(series.getFetchedOn());
+      out.writeInt(series.size());
+
+      for (int i = 0; i < series.size(); i++) {
+        out.writeInt(series.getEpochDay(i));
+        out.writeLong(series.getScaledClose(i));
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tempPath);
+      throw e;
+    }
+
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  //</editor-fold>
+}
@@ -0,0 +1,207 @@
+package model.alphavantage;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * The daily closing prices of a stock ordered by date, stored in primitive arrays indexed by the
+ * number of days since 1970-01-01. A dense index over every calendar day in the series resolves
+ * the last trading day on or before any date with a single array lookup. A price series is
+ * immutable and can be read from multiple threads.
+ */
+class PriceSeries {
+
+  //<editor-fold desc="Constants">
+
+  /**
+   * The number of decimal places the prices are stored with. Alpha Vantage reports 4.
+   */
+  static final int PRICE_SCALE = 4;
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final int fetchedOn;
+  private final int[] epochDays;
+  private final long[] closes;
+
+  // calendarIndex[d - firstEpochDay] is the index of the last trading day on or before day d
+  private final int[] calendarIndex;
+
+  // prices are converted to BigDecimal lazily and reused for subsequent lookups. Concurrent
+  // lookups may at worst both create an equal immutable value, so no locking is needed.
+  private final BigDecimal[] closeValues;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a price series.
+   *
+   * @param fetchedOn the day since the epoch on which the prices were fetched from the API.
+   * @param epochDays the days since the epoch of each closing price in ascending order.
+   * @param closes    the closing prices scaled by {@code PRICE_SCALE} decimal places.
+   * @throws IllegalArgumentException when the number of days and prices do not match or the days
+   *                                  are not in ascending order.
+   */
+  PriceSeries(int fetchedOn, int[] epochDays, long[] closes) throws IllegalArgumentException {
+    if (epochDays.length != closes.length) {
+      throw new IllegalArgumentException("Each day in the price series needs a price!");
+    }
+
+    for (int i = 1; i < epochDays.length; i++) {
+      if (epochDays[i] <= epochDays[i - 1]) {
+        throw new IllegalArgumentException("The days in a price series have to be ascending!");
+      }
+    }
+
+    this.fetchedOn = fetchedOn;
+    this.epochDays = epochDays;
+    this.closes = closes;
+    this.closeValues = new BigDecimal[closes.length];
+
+    if (epochDays.length == 0) {
+      this.calendarIndex = new int[0];
+      return;
+    }
+
+    this.calendarIndex = new int[epochDays[epochDays.length - 1] - epochDays[0] + 1];
+    int index = 0;
+    for (int day = 0; day < this.calendarIndex.length; day++) {
+      if (index + 1 < epochDays.length && epochDays[index + 1] == epochDays[0] + day) {
+        index++;
+      }
+      this.calendarIndex[day] = index;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Price conversion helpers">
+
+  static long toScaledPrice(BigDecimal price) {
+    return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+  }
+
+  static BigDecimal fromScaledPrice(long scaledPrice) {
+    return BigDecimal.valueOf(scaledPrice, PRICE_SCALE);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Getters">
+
+  int getFetchedOn() {
+    return this.fetchedOn;
+  }
+
+  int size() {
+    return this.epochDays.length;
+  }
+
+  int getEpochDay(int index) {
+    return this.epochDays[index];
+  }
+
+  /**
+   * Gets the days of the closing prices. The array is shared and must not be modified.
+   *
+   * @return the days since the epoch in ascending order.
+   */
+  int[] getEpochDays() {
+    return this.epochDays;
+  }
+
+  long getScaledClose(int index) {
+    return this.closes[index];
+  }
+
+  /**
+   * Gets the closing price at the given index.
+   *
+   * @param index the index of the trading day in this series.
+   * @return the closing price of the stock.
+   */
+  BigDecimal getClose(int index) {
+    BigDecimal value = this.closeValues[index];
+    if (value == null) {
+      value = fromScaledPrice(this.closes[index]);
+      this.closeValues[index] = value;
+    }
+    return value;
+  }
+
+  /**
+   * Gets the last day for which a price is available.
+   *
+   * @return the last day since the epoch with a price, or {@code Integer.MIN_VALUE} if the series
+   *     is empty.
+   */
+  int getLastEpochDay() {
+    return this.epochDays.length == 0 ? Integer.MIN_VALUE
+        : this.epochDays[this.epochDays.length - 1];
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Finds the last trading day on or before the given day.
+   *
+   * @param epochDay the day since the epoch.
+   * @return the index of the trading day, or -1 if the given day is before the first price.
+   */
+  int indexOnOrBefore(int epochDay) {
+    if (this.epochDays.length == 0 || epochDay < this.epochDays[0]) {
+      return -1;
+    }
+
+    int offset = epochDay - this.epochDays[0];
+    return offset >= this.calendarIndex.length ? this.epochDays.length - 1
+        : this.calendarIndex[offset];
+  }
+
+  /**
+   * Finds the first trading day on or after the given day.
+   *
+   * @param epochDay the day since the epoch.
+   * @return the index of the trading day, or {@code size()} if the given day is after the last
+   *     price.
+   */
+  int indexOnOrAfter(int epochDay) {
+    int index = this.indexOnOrBefore(epochDay);
+    if (index >= 0 && this.epochDays[index] == epochDay) {
+      return index;
+    }
+    return index + 1;
+  }
+
+  /**
+   * Merges a more recent price series into this one. Prices of the newer series take precedence
+   * from its first day onwards.
+   *
+   * @param newer the more recent price series.
+   * @return the merged price series.
+   */
+  PriceSeries merge(PriceSeries newer) {
+    if (newer.size() == 0) {
+      return new PriceSeries(newer.fetchedOn, this.epochDays, this.closes);
+    }
+
+    int keep = Arrays.binarySearch(this.epochDays, newer.epochDays[0]);
+    keep = keep < 0 ? -keep - 1 : keep;
+
+    int[] mergedDays = Arrays.copyOf(this.epochDays, keep + newer.size());
+    long[] mergedCloses = Arrays.copyOf(this.closes, keep + newer.size());
+    System.arraycopy(newer.epochDays, 0, mergedDays, keep, newer.size());
+    System.arraycopy(newer.closes, 0, mergedCloses, keep, newer.size());
+
+    return new PriceSeries(newer.fetchedOn, mergedDays, mergedCloses);
+  }
+
+  //</editor-fold>
+}
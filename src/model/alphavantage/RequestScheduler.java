@@ -0,0 +1,338 @@
+package model.alphavantage;
+
+import common.Utils;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import model.portfolio.StockDataSourceException;
+
+/**
+ * A scheduler for requests sent to the Alpha Vantage API which keeps within the per-minute and
+ * per-day request limits of the API key. Requests wait in a queue ordered by their priority and
+ * are released at the rate of a token bucket. Requests rejected by the API as throttled are
+ * retried with an exponential backoff.
+ */
+public class RequestScheduler {
+
+  //<editor-fold desc="Inner interfaces and classes">
+
+  /**
+   * A request to be sent to the API.
+   *
+   * @param <T> the type of the result of the request.
+   */
+  interface Request<T> {
+
+    /**
+     * Sends the request.
+     *
+     * @return the result of the request.
+     * @throws StockDataSourceException when an error occurs in the API. A
+     *                                  {@code RequestThrottledException} is thrown when the
+     *                                  request was rejected due to the request limit.
+     */
+    T send() throws StockDataSourceException;
+  }
+
+  /**
+   * A place in the queue of requests waiting to be sent.
+   */
+  private static class Ticket {
+
+    private final eRequestPriority priority;
+    private final long sequence;
+
+    private Ticket(eRequestPriority priority, long sequence) {
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final int requestsPerMinute;
+  private final int requestsPerDay;
+  private final int maxRetries;
+  private final long initialBackoffMillis;
+
+  private final ReentrantLock lock;
+  private final Condition queueChanged;
+  private final PriorityQueue<Ticket> queue;
+  private long nextSequence;
+
+  private double tokens;
+  private long lastRefillNanos;
+  private int requestDay;
+  private int requestsOnRequestDay;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Metrics">
+
+  private long requestCount;
+  private long throttledCount;
+  private long totalWaitNanos;
+  private long maxWaitNanos;
+  private int maxQueueDepth;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a request scheduler.
+   *
+   * @param requestsPerMinute    the number of requests allowed per minute.
+   * @param requestsPerDay       the number of requests allowed per day. No daily limit is applied
+   *                             if this is 0.
+   * @param maxRetries           the number of times a throttled request is retried.
+   * @param initialBackoffMillis the time waited before the first retry of a throttled request in
+   *                             milliseconds. The time is doubled for every further retry.
+   * @throws IllegalArgumentException when any of the limits is not valid.
+   */
+  public RequestScheduler(int requestsPerMinute, int requestsPerDay, int maxRetries,
+      long initialBackoffMillis) throws IllegalArgumentException {
+    if (requestsPerMinute <= 0) {
+      throw new IllegalArgumentException("Requests per minute has to be a positive number!");
+    }
+    if (requestsPerDay < 0 || maxRetries < 0 || initialBackoffMillis < 0) {
+      throw new IllegalArgumentException(
+          "Requests per day, retries and backoff have to be non-negative numbers!");
+    }
+
+    this.requestsPerMinute = requestsPerMinute;
+    this.requestsPerDay = requestsPerDay;
+    this.maxRetries = maxRetries;
+    this.initialBackoffMillis = initialBackoffMillis;
+
+    this.lock = new ReentrantLock();
+    this.queueChanged = this.lock.newCondition();
+    this.queue = new PriorityQueue<>(Comparator
+        .comparing((Ticket t) -> t.priority)
+        .thenComparingLong(t -> t.sequence));
+
+    this.tokens = requestsPerMinute;
+    this.lastRefillNanos = System.nanoTime();
+    this.requestDay = Utils.getTodayEpochDay();
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Token bucket helpers">
+
+  private void refillTokens() {
+    long now = System.nanoTime();
+    double refill = (now - this.lastRefillNanos) * this.requestsPerMinute
+        / (double) TimeUnit.MINUTES.toNanos(1);
+    this.tokens = Math.min(this.requestsPerMinute, this.tokens + refill);
+    this.lastRefillNanos = now;
+
+    int today = Utils.getTodayEpochDay();
+    if (today != this.requestDay) {
+      this.requestDay = today;
+      this.requestsOnRequestDay = 0;
+    }
+  }
+
+  private long getNanosUntilNextToken() {
+    return (long) Math.ceil((1 - this.tokens) * TimeUnit.MINUTES.toNanos(1)
+        / this.requestsPerMinute);
+  }
+
+  /**
+   * Waits until the request is first in the queue and a token is available, and takes the token.
+   *
+   * @param priority the priority of the request.
+   * @throws StockDataSourceException when the daily limit is reached or the wait is interrupted.
+   */
+  private void acquire(eRequestPriority priority) throws StockDataSourceException {
+    long startTime = System.nanoTime();
+    this.lock.lock();
+
+    try {
+      Ticket ticket = new Ticket(priority, this.nextSequence++);
+      this.queue.add(ticket);
+      this.maxQueueDepth = Math.max(this.maxQueueDepth, this.queue.size());
+
+      try {
+        while (true) {
+          if (this.queue.peek() != ticket) {
+            this.queueChanged.await();
+            continue;
+          }
+
+          this.refillTokens();
+          if (this.requestsPerDay > 0 && this.requestsOnRequestDay >= this.requestsPerDay) {
+            throw new StockDataSourceException(
+                "The daily request limit of the API has been reached!");
+          }
+          if (this.tokens >= 1) {
+            this.tokens -= 1;
+            this.requestsOnRequestDay++;
+            break;
+          }
+          this.queueChanged.awaitNanos(this.getNanosUntilNextToken());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new StockDataSourceException("Waiting for the API was interrupted!", e);
+      } finally {
+        this.queue.remove(ticket);
+        this.queueChanged.signalAll();
+      }
+
+      long waitNanos = System.nanoTime() - startTime;
+      this.requestCount++;
+      this.totalWaitNanos += waitNanos;
+      this.maxWaitNanos = Math.max(this.maxWaitNanos, waitNanos);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void onThrottled() {
+    this.lock.lock();
+    try {
+      // the API is over its limit, so every waiting request has to wait for new tokens
+      this.throttledCount++;
+      this.tokens = 0;
+      this.lastRefillNanos = System.nanoTime();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Sends the request once the request limits allow it, retrying it if it is throttled.
+   *
+   * @param priority the priority of the request.
+   * @param request  the request to be sent.
+   * @param <T>      the type of the result of the request.
+   * @return the result of the request.
+   * @throws StockDataSourceException when an error occurs in the API or the request is still
+   *                                  throttled after all retries.
+   */
+  <T> T execute(eRequestPriority priority, Request<T> request) throws StockDataSourceException {
+    long backoffMillis = this.initialBackoffMillis;
+
+    for (int attempt = 0; ; attempt++) {
+      this.acquire(priority);
+
+      try {
+        return request.send();
+      } catch (RequestThrottledException e) {
+        this.onThrottled();
+        if (attempt >= this.maxRetries) {
+          throw new StockDataSourceException(
+              "The request limit of the API has been reached! Please try again later.", e);
+        }
+      }
+
+      try {
+        Thread.sleep(backoffMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new StockDataSourceException("Waiting for the API was interrupted!", e);
+      }
+      backoffMillis *= 2;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Metrics getters">
+
+  /**
+   * Gets the number of requests currently waiting to be sent.
+   *
+   * @return the current depth of the queue.
+   */
+  public int getQueueDepth() {
+    this.lock.lock();
+    try {
+      return this.queue.size();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the largest number of requests that were waiting to be sent at the same time.
+   *
+   * @return the maximum depth of the queue.
+   */
+  public int getMaxQueueDepth() {
+    this.lock.lock();
+    try {
+      return this.maxQueueDepth;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of requests sent, including retries.
+   *
+   * @return the number of requests sent.
+   */
+  public long getRequestCount() {
+    this.lock.lock();
+    try {
+      return this.requestCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of requests that were rejected by the API as throttled.
+   *
+   * @return the number of throttled requests.
+   */
+  public long getThrottledCount() {
+    this.lock.lock();
+    try {
+      return this.throttledCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the average time requests waited in the queue before being sent.
+   *
+   * @return the average wait time in milliseconds.
+   */
+  public double getAverageWaitMillis() {
+    this.lock.lock();
+    try {
+      return this.requestCount == 0 ? 0 : this.totalWaitNanos / 1e6 / this.requestCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the longest time a request waited in the queue before being sent.
+   *
+   * @return the maximum wait time in milliseconds.
+   */
+  public double getMaxWaitMillis() {
+    this.lock.lock();
+    try {
+      return this.maxWaitNanos / 1e6;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  //</editor-fold>
+}
@@ -0,0 +1,21 @@
+package model.alphavantage;
+
+import model.portfolio.StockDataSourceException;
+
+/**
+ * An exception thrown when the Alpha Vantage API rejected a request because the request limit was
+ * exceeded. Such requests can be retried after waiting.
+ */
+class RequestThrottledException extends StockDataSourceException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * An exception with a detailed message.
+   *
+   * @param message a message indicating the cause for the exception.
+   */
+  RequestThrottledException(String message) {
+    super(message);
+  }
+}
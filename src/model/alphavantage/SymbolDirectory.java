@@ -0,0 +1,552 @@
+package model.alphavantage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A compact, read-only directory of the stocks listed by the Alpha Vantage API. All entries are
+ * packed into a single buffer: fixed size records sorted by symbol, a name index sorted by name,
+ * and the UTF-8 bytes of the symbols and names. Exchanges, asset types and statuses are interned
+ * and IPO and delisting dates are kept as days since the epoch. The same layout is written to
+ * disk, so a persisted directory is memory-mapped instead of being parsed at startup.
+ */
+class SymbolDirectory {
+
+  //<editor-fold desc="Constants">
+
+  /**
+   * The delisting day of stocks which are not delisted.
+   */
+  static final int NO_DELISTING_DAY = Integer.MAX_VALUE;
+
+  private static final int FILE_MAGIC = 0x41564C44;
+  private static final int FILE_VERSION = 1;
+
+  // magic, version, fetched on, entry count, interned count, strings offset
+  private static final int HEADER_SIZE = 24;
+
+  // offset and length of an interned string
+  private static final int INTERNED_SIZE = 6;
+
+  // symbol offset and length, name offset and length, exchange, asset type, status, IPO day and
+  // delisting day
+  private static final int RECORD_SIZE = 26;
+  private static final int SYMBOL_OFFSET = 0;
+  private static final int SYMBOL_LENGTH = 4;
+  private static final int NAME_OFFSET = 6;
+  private static final int NAME_LENGTH = 10;
+  private static final int EXCHANGE = 12;
+  private static final int ASSET_TYPE = 14;
+  private static final int STATUS = 16;
+  private static final int IPO_DAY = 18;
+  private static final int DELISTING_DAY = 22;
+
+  private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Builder">
+
+  /**
+   * A builder collecting the listings from which a directory is created.
+   */
+  static class Builder {
+
+    /**
+     * A listing added to the builder.
+     */
+    private static class Listing {
+
+      private final String symbol;
+      private final String name;
+      private final String exchange;
+      private final String assetType;
+      private final String status;
+      private final int ipoDay;
+      private final int delistingDay;
+
+      private Listing(String symbol, String name, String exchange, String assetType,
+          String status, int ipoDay, int delistingDay) {
+        this.symbol = symbol;
+        this.name = name;
+        this.exchange = exchange;
+        this.assetType = assetType;
+        this.status = status;
+        this.ipoDay = ipoDay;
+        this.delistingDay = delistingDay;
+      }
+    }
+
+    private final Map<String, Listing> listings;
+
+    /**
+     * Creates an empty builder.
+     */
+    Builder() {
+      this.listings = new HashMap<>();
+    }
+
+    /**
+     * Adds a listing to the directory. A listing added for a symbol that was added before replaces
+     * the earlier listing.
+     *
+     * @param symbol       the symbol of the stock.
+     * @param name         the name of the stock.
+     * @param exchange     the exchange the stock is traded in.
+     * @param assetType    the type of asset.
+     * @param status       the status of the stock.
+     * @param ipoDay       the IPO date as the number of days since the epoch.
+     * @param delistingDay the delisting date as the number of days since the epoch, or
+     *                     {@code NO_DELISTING_DAY} if the stock is not delisted.
+     * @return this builder.
+     * @throws IllegalArgumentException when the symbol or name is missing or too long.
+     */
+    Builder add(String symbol, String name, String exchange, String assetType, String status,
+        int ipoDay, int delistingDay) throws IllegalArgumentException {
+      if (symbol == null || symbol.isEmpty() || name == null) {
+        throw new IllegalArgumentException("A listing needs a symbol and a name!");
+      }
+
+      this.listings.put(symbol,
+          new Listing(symbol, name, exchange, assetType, status, ipoDay, delistingDay));
+      return this;
+    }
+
+    /**
+     * Creates the directory from the added listings.
+     *
+     * @param fetchedOn the day since the epoch on which the listings were fetched.
+     * @return the directory.
+     * @throws IllegalArgumentException when a string is too long to be packed.
+     */
+    SymbolDirectory build(int fetchedOn) throws IllegalArgumentException {
+      List<Listing> entries = new ArrayList<>(this.listings.values());
+      List<byte[]> symbols = new ArrayList<>(entries.size());
+      for (Listing entry : entries) {
+        symbols.add(entry.symbol.getBytes(StandardCharsets.UTF_8));
+      }
+
+      // records are sorted by the bytes of the symbol, which is the order searched in
+      Integer[] order = new Integer[entries.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(symbols.get(a), symbols.get(b)));
+
+      Map<String, Integer> internedIndices = new LinkedHashMap<>();
+      ByteArrayBuilder strings = new ByteArrayBuilder();
+      ByteBuffer records = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+
+      for (int index : order) {
+        Listing entry = entries.get(index);
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+
+        records.putInt(strings.append(symbols.get(index)));
+        records.putShort(checkLength(symbols.get(index).length));
+        records.putInt(strings.append(name));
+        records.putShort(checkLength(name.length));
+        records.putShort(intern(internedIndices, entry.exchange));
+        records.putShort(intern(internedIndices, entry.assetType));
+        records.putShort(intern(internedIndices, entry.status));
+        records.putInt(entry.ipoDay);
+        records.putInt(entry.delistingDay);
+      }
+
+      // the name index holds the positions of the records in the order of their names
+      Integer[] nameOrder = new Integer[order.length];
+      for (int i = 0; i < nameOrder.length; i++) {
+        nameOrder[i] = i;
+      }
+      String[] names = new String[order.length];
+      for (int i = 0; i < order.length; i++) {
+        names[i] = entries.get(order[i]).name.toLowerCase(Locale.ROOT);
+      }
+      Arrays.sort(nameOrder, Comparator.comparing((Integer i) -> names[i]));
+
+      int internedCount = internedIndices.size();
+      ByteBuffer interned = ByteBuffer.allocate(internedCount * INTERNED_SIZE);
+      for (String value : internedIndices.keySet()) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        interned.putInt(strings.append(bytes));
+        interned.putShort(checkLength(bytes.length));
+      }
+
+      int stringsOffset = HEADER_SIZE + interned.capacity() + records.capacity()
+          + nameOrder.length * Integer.BYTES;
+      ByteBuffer buffer = ByteBuffer.allocate(stringsOffset + strings.size());
+
+      buffer.putInt(FILE_MAGIC);
+      buffer.putInt(FILE_VERSION);
+      buffer.putInt(fetchedOn);
+      buffer.putInt(order.length);
+      buffer.putInt(internedCount);
+      buffer.putInt(stringsOffset);
+      buffer.put(interned.array());
+      buffer.put(records.array());
+      for (int position : nameOrder) {
+        buffer.putInt(position);
+      }
+      buffer.put(strings.array(), 0, strings.size());
+      buffer.flip();
+
+      return new SymbolDirectory(buffer.asReadOnlyBuffer());
+    }
+
+    private static short intern(Map<String, Integer> internedIndices, String value) {
+      int index = internedIndices.computeIfAbsent(value == null ? "" : value,
+          v -> internedIndices.size());
+      return checkLength(index);
+    }
+
+    private static short checkLength(int value) {
+      if (value > MAX_STRING_LENGTH) {
+        throw new IllegalArgumentException("A listing is too large to be stored!");
+      }
+      return (short) value;
+    }
+  }
+
+  /**
+   * A growable byte array for the packed strings.
+   */
+  private static class ByteArrayBuilder {
+
+    private byte[] bytes = new byte[1 << 16];
+    private int size;
+
+    private int append(byte[] value) {
+      if (this.size + value.length > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2,
+            this.size + value.length));
+      }
+
+      int offset = this.size;
+      System.arraycopy(value, 0, this.bytes, offset, value.length);
+      this.size += value.length;
+      return offset;
+    }
+
+    private byte[] array() {
+      return this.bytes;
+    }
+
+    private int size() {
+      return this.size;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final ByteBuffer buffer;
+  private final int fetchedOn;
+  private final int count;
+  private final String[] internedStrings;
+  private final int recordsOffset;
+  private final int nameOrderOffset;
+  private final int stringsOffset;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a directory over the given buffer.
+   *
+   * @param buffer the buffer containing the directory, starting at position 0.
+   * @throws IllegalArgumentException when the buffer does not contain a valid directory.
+   */
+  private SymbolDirectory(ByteBuffer buffer) throws IllegalArgumentException {
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC
+        || buffer.getInt(4) != FILE_VERSION) {
+      throw new IllegalArgumentException("Provided data is not a symbol directory!");
+    }
+
+    this.buffer = buffer;
+    this.fetchedOn = buffer.getInt(8);
+    this.count = buffer.getInt(12);
+    int internedCount = buffer.getInt(16);
+    this.stringsOffset = buffer.getInt(20);
+
+    this.recordsOffset = HEADER_SIZE + internedCount * INTERNED_SIZE;
+    this.nameOrderOffset = this.recordsOffset + this.count * RECORD_SIZE;
+
+    if (this.count < 0 || internedCount < 0
+        || this.stringsOffset != this.nameOrderOffset + this.count * Integer.BYTES
+        || this.stringsOffset > buffer.limit()) {
+      throw new IllegalArgumentException("Provided data is not a symbol directory!");
+    }
+
+    this.internedStrings = new String[internedCount];
+    for (int i = 0; i < internedCount; i++) {
+      int position = HEADER_SIZE + i * INTERNED_SIZE;
+      this.internedStrings[i] = this.readString(buffer.getInt(position),
+          Short.toUnsignedInt(buffer.getShort(position + 4)));
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Persistence">
+
+  /**
+   * Memory-maps the directory persisted in the given file.
+   *
+   * @param path the path of the file.
+   * @return the directory, or {@code null} if the file does not exist or is unreadable.
+   */
+  static SymbolDirectory read(Path path) {
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+
+    // the mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new SymbolDirectory(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      // a corrupt file is treated as a missing directory
+      return null;
+    }
+  }
+
+  /**
+   * Writes the directory to the given file. The file is replaced atomically so that a crash never
+   * leaves a partially written directory behind.
+   *
+   * @param path the path of the file.
+   * @throws IOException when the file could not be written.
+   */
+  void write(Path path) throws IOException {
+    Path directory = path.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path tempPath = Files.createTempFile(directory, "listing", ".tmp");
+
+    try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+      ByteBuffer source = this.buffer.duplicate();
+      source.position(0);
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tempPath);
+      throw e;
+    }
+
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private String readString(int offset, int length) {
+    byte[] bytes = new byte[length];
+    // a duplicate keeps the shared buffer's position untouched for concurrent readers
+    ByteBuffer source = this.buffer.duplicate();
+    source.position(this.stringsOffset + offset);
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int getRecordPosition(int index) {
+    return this.recordsOffset + index * RECORD_SIZE;
+  }
+
+  private String readRecordString(int index, int offsetField, int lengthField) {
+    int position = this.getRecordPosition(index);
+    return this.readString(this.buffer.getInt(position + offsetField),
+        Short.toUnsignedInt(this.buffer.getShort(position + lengthField)));
+  }
+
+  private String readInternedString(int index, int field) {
+    return this.internedStrings[
+        Short.toUnsignedInt(this.buffer.getShort(this.getRecordPosition(index) + field))];
+  }
+
+  /**
+   * Compares the symbol of the record with the given bytes, only up to the length of the bytes if
+   * it is a prefix comparison.
+   */
+  private int compareSymbol(int index, byte[] symbol, boolean isPrefix) {
+    int position = this.getRecordPosition(index);
+    int offset = this.stringsOffset + this.buffer.getInt(position + SYMBOL_OFFSET);
+    int length = Short.toUnsignedInt(this.buffer.getShort(position + SYMBOL_LENGTH));
+    int compareLength = Math.min(length, symbol.length);
+
+    for (int i = 0; i < compareLength; i++) {
+      int difference = Byte.toUnsignedInt(this.buffer.get(offset + i))
+          - Byte.toUnsignedInt(symbol[i]);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return isPrefix && length >= symbol.length ? 0 : length - symbol.length;
+  }
+
+  private int getNameOrderIndex(int position) {
+    return this.buffer.getInt(this.nameOrderOffset + position * Integer.BYTES);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Getters">
+
+  /**
+   * Gets the day since the epoch on which the listings were fetched.
+   *
+   * @return the day the listings were fetched.
+   */
+  int getFetchedOn() {
+    return this.fetchedOn;
+  }
+
+  /**
+   * Gets the number of listings in the directory.
+   *
+   * @return the number of listings.
+   */
+  int size() {
+    return this.count;
+  }
+
+  String getSymbol(int index) {
+    return this.readRecordString(index, SYMBOL_OFFSET, SYMBOL_LENGTH);
+  }
+
+  String getName(int index) {
+    return this.readRecordString(index, NAME_OFFSET, NAME_LENGTH);
+  }
+
+  String getExchange(int index) {
+    return this.readInternedString(index, EXCHANGE);
+  }
+
+  String getAssetType(int index) {
+    return this.readInternedString(index, ASSET_TYPE);
+  }
+
+  String getStatus(int index) {
+    return this.readInternedString(index, STATUS);
+  }
+
+  int getIpoDay(int index) {
+    return this.buffer.getInt(this.getRecordPosition(index) + IPO_DAY);
+  }
+
+  int getDelistingDay(int index) {
+    return this.buffer.getInt(this.getRecordPosition(index) + DELISTING_DAY);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Finds the listing of the given symbol.
+   *
+   * @param symbol the symbol of the stock.
+   * @return the index of the listing, or -1 if the symbol is not listed.
+   */
+  int indexOf(String symbol) {
+    byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = this.count - 1;
+
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int comparison = this.compareSymbol(mid, bytes, false);
+
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the listings whose symbol starts with the given prefix, in the order of their symbols.
+   *
+   * @param prefix the prefix of the symbol.
+   * @param limit  the maximum number of listings to be found.
+   * @return the indices of the listings.
+   */
+  List<Integer> findBySymbolPrefix(String prefix, int limit) {
+    byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+
+    // the first symbol not before the prefix
+    int low = 0;
+    int high = this.count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.compareSymbol(mid, bytes, true) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    List<Integer> result = new ArrayList<>();
+    for (int i = low; i < this.count && result.size() < limit
+        && this.compareSymbol(i, bytes, true) == 0; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  /**
+   * Finds the listings whose name starts with the given prefix, ignoring case, in the order of
+   * their names.
+   *
+   * @param prefix the prefix of the name.
+   * @param limit  the maximum number of listings to be found.
+   * @return the indices of the listings.
+   */
+  List<Integer> findByNamePrefix(String prefix, int limit) {
+    String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+
+    // the first name not before the prefix
+    int low = 0;
+    int high = this.count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.getName(this.getNameOrderIndex(mid)).toLowerCase(Locale.ROOT)
+          .compareTo(lowerPrefix) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    List<Integer> result = new ArrayList<>();
+    for (int i = low; i < this.count && result.size() < limit; i++) {
+      int index = this.getNameOrderIndex(i);
+      if (!this.getName(index).toLowerCase(Locale.ROOT).startsWith(lowerPrefix)) {
+        break;
+      }
+      result.add(index);
+    }
+    return result;
+  }
+
+  //</editor-fold>
+}
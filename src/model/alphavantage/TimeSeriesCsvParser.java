@@ -0,0 +1,294 @@
+package model.alphavantage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A streaming parser for the CSV response of the Alpha Vantage time series daily endpoint. Rows
+ * are decoded byte by byte from a buffered {@code InputStream} straight into a
+ * {@code PriceSeries}, without creating intermediate strings for the lines or their fields.
+ *
+ * <p>The expected format is a header row followed by rows of
+ * {@code timestamp,open,high,low,close,volume} with the timestamp in {@code yyyy-MM-dd} format.
+ * The CSV responses of the other endpoints are read through the same buffer one line at a time.
+ */
+class TimeSeriesCsvParser {
+
+  //<editor-fold desc="Constants">
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int INITIAL_ROW_CAPACITY = 1024;
+  private static final int EOF = -1;
+  private static final byte[] HEADER_PREFIX = "timestamp".getBytes();
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final InputStream in;
+  private final byte[] buffer;
+  private byte[] line;
+  private int position;
+  private int limit;
+
+  private long bytesRead;
+  private int rowsRead;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a parser reading from the given stream. The stream is not closed by the parser.
+   *
+   * @param in the stream containing the CSV response.
+   */
+  TimeSeriesCsvParser(InputStream in) {
+    this.in = in;
+    this.buffer = new byte[BUFFER_SIZE];
+    this.line = new byte[256];
+    this.position = 0;
+    this.limit = 0;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Getters">
+
+  long getBytesRead() {
+    return this.bytesRead;
+  }
+
+  int getRowsRead() {
+    return this.rowsRead;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Stream helpers">
+
+  private int peek() throws IOException {
+    if (this.position == this.limit) {
+      this.limit = this.in.read(this.buffer, 0, this.buffer.length);
+      this.position = 0;
+
+      if (this.limit <= 0) {
+        this.limit = 0;
+        return EOF;
+      }
+      this.bytesRead += this.limit;
+    }
+    return this.buffer[this.position];
+  }
+
+  private int next() throws IOException {
+    int b = this.peek();
+    if (b != EOF) {
+      this.position++;
+    }
+    return b;
+  }
+
+  private void expect(char expected) throws IOException, IllegalArgumentException {
+    if (this.next() != expected) {
+      throw new IllegalArgumentException(
+          "Provided String is not in expected format! Expected '" + expected + "' in row "
+              + (this.rowsRead + 1) + ".");
+    }
+  }
+
+  private void skipLine() throws IOException {
+    int b = this.next();
+    while (b != EOF && b != '\n') {
+      b = this.next();
+    }
+  }
+
+  private void skipField() throws IOException {
+    int b = this.peek();
+    while (b != EOF && b != ',' && b != '\n' && b != '\r') {
+      this.position++;
+      b = this.peek();
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Field parsers">
+
+  private int readDigits(int count) throws IOException, IllegalArgumentException {
+    int result = 0;
+    for (int i = 0; i < count; i++) {
+      int b = this.next();
+      if (b < '0' || b > '9') {
+        throw new IllegalArgumentException("One or more provided values is not a number!");
+      }
+      result = result * 10 + (b - '0');
+    }
+    return result;
+  }
+
+  private int readEpochDay() throws IOException, IllegalArgumentException {
+    int year = this.readDigits(4);
+    this.expect('-');
+    int month = this.readDigits(2);
+    this.expect('-');
+    int day = this.readDigits(2);
+
+    try {
+      return (int) LocalDate.of(year, month, day).toEpochDay();
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("the provided string could not be parsed!");
+    }
+  }
+
+  /**
+   * Reads a non-negative decimal number as a long scaled by {@code PriceSeries.PRICE_SCALE}
+   * decimal places, rounding half up any further decimal places.
+   */
+  private long readScaledDecimal() throws IOException, IllegalArgumentException {
+    long result = 0;
+    int decimals = -1;
+    boolean hasDigits = false;
+    boolean roundUp = false;
+
+    int b = this.peek();
+    while (b != EOF && b != ',' && b != '\n' && b != '\r') {
+      if (b == '.' && decimals < 0) {
+        decimals = 0;
+      } else if (b >= '0' && b <= '9') {
+        hasDigits = true;
+        if (decimals < PriceSeries.PRICE_SCALE) {
+          result = result * 10 + (b - '0');
+          if (decimals >= 0) {
+            decimals++;
+          }
+        } else if (decimals == PriceSeries.PRICE_SCALE) {
+          roundUp = b >= '5';
+          decimals++;
+        }
+      } else {
+        throw new IllegalArgumentException("One or more provided values is not a number!");
+      }
+
+      this.position++;
+      b = this.peek();
+    }
+
+    if (!hasDigits) {
+      throw new IllegalArgumentException("One or more provided values is not a number!");
+    }
+
+    for (int i = Math.max(decimals, 0); i < PriceSeries.PRICE_SCALE; i++) {
+      result *= 10;
+    }
+    return roundUp ? result + 1 : result;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Reads the next line of the stream as UTF-8 text, without the line terminator.
+   *
+   * @return the line, or {@code null} when the end of the stream has been reached.
+   * @throws IOException when the stream could not be read.
+   */
+  String readLine() throws IOException {
+    int b = this.next();
+    if (b == EOF) {
+      return null;
+    }
+
+    int length = 0;
+    while (b != EOF && b != '\n') {
+      if (length == this.line.length) {
+        this.line = Arrays.copyOf(this.line, length * 2);
+      }
+      this.line[length++] = (byte) b;
+      b = this.next();
+    }
+
+    if (length > 0 && this.line[length - 1] == '\r') {
+      length--;
+    }
+    this.rowsRead++;
+    return new String(this.line, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Parses the whole stream into a price series of closing prices.
+   *
+   * @param fetchedOn the day since the epoch on which the response was fetched.
+   * @return the closing prices in the response ordered by date.
+   * @throws IOException              when the stream could not be read.
+   * @throws IllegalArgumentException when the response is not in the expected format.
+   */
+  PriceSeries parse(int fetchedOn) throws IOException, IllegalArgumentException {
+    // the API responds with a message instead of the header when the request failed
+    for (byte expected : HEADER_PREFIX) {
+      if (this.next() != expected) {
+        throw new IllegalArgumentException("Provided String is not in expected format!");
+      }
+    }
+    this.skipLine();
+
+    int[] epochDays = new int[INITIAL_ROW_CAPACITY];
+    long[] closes = new long[INITIAL_ROW_CAPACITY];
+    int count = 0;
+
+    int b = this.peek();
+    while (b != EOF) {
+      if (b == '\n' || b == '\r') {
+        this.position++;
+        b = this.peek();
+        continue;
+      }
+
+      if (count == epochDays.length) {
+        epochDays = Arrays.copyOf(epochDays, count * 2);
+        closes = Arrays.copyOf(closes, count * 2);
+      }
+
+      epochDays[count] = this.readEpochDay();
+      this.expect(',');
+      // open, high and low values
+      for (int i = 0; i < 3; i++) {
+        this.skipField();
+        this.expect(',');
+      }
+      closes[count] = this.readScaledDecimal();
+      this.expect(',');
+      // volume
+      this.skipLine();
+
+      count++;
+      this.rowsRead++;
+      b = this.peek();
+    }
+
+    epochDays = Arrays.copyOf(epochDays, count);
+    closes = Arrays.copyOf(closes, count);
+
+    // the API returns the latest day first
+    if (count > 1 && epochDays[0] > epochDays[count - 1]) {
+      for (int i = 0, j = count - 1; i < j; i++, j--) {
+        int day = epochDays[i];
+        epochDays[i] = epochDays[j];
+        epochDays[j] = day;
+
+        long close = closes[i];
+        closes[i] = closes[j];
+        closes[j] = close;
+      }
+    }
+
+    return new PriceSeries(fetchedOn, epochDays, closes);
+  }
+
+  //</editor-fold>
+}
@@ -0,0 +1,13 @@
+package model.alphavantage;
+
+/**
+ * An enumerator containing the priorities with which requests to the Alpha Vantage API are sent.
+ * Requests with a higher priority are sent before waiting requests with a lower priority.
+ */
+public enum eRequestPriority {
+  // requests a user is waiting on, such as valuing a portfolio
+  INTERACTIVE,
+
+  // requests made ahead of time, such as prefetching prices
+  BACKGROUND
+}
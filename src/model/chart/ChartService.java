@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
+import model.portfolio.TradingCalendar;
 
 /**
  * This class represents a chart service which computes a chart's intervals based on the given time
@@ -172,6 +173,19 @@ public class ChartService implements IChartService {
     return days;
   }
 
+  private List<Date> createListOfTradingDays(Date start, Date end, TradingCalendar calendar) {
+
+    List<Date> days = new ArrayList<>();
+    int[] tradingDays = calendar.getTradingDays(Utils.convertDateToEpochDay(start),
+        Utils.convertDateToEpochDay(end));
+
+    for (int tradingDay : tradingDays) {
+      days.add(Utils.convertEpochDayToDate(tradingDay));
+    }
+
+    return days;
+  }
+
   private List<Date> createListOfMonths(Date start, Date end) {
 
     List<Date> months = new ArrayList<>();
@@ -200,7 +214,15 @@ public class ChartService implements IChartService {
 
   //<editor-fold desc="Days calculations">
 
-  private Pair<eChartInterval, List<Date>> handleDays(Date start, Date end) {
+  private Pair<eChartInterval, List<Date>> handleDays(Date start, Date end,
+      TradingCalendar calendar) {
+
+    if (calendar != null) {
+      List<Date> days = createListOfTradingDays(start, end, calendar);
+      if (!days.isEmpty()) {
+        return handleTradingDays(days);
+      }
+    }
 
     int totalDays = (int) Utils.getDateDifferenceInDays(start, end) + 1;
 
@@ -214,6 +236,24 @@ public class ChartService implements IChartService {
     }
   }
 
+  private Pair<eChartInterval, List<Date>> handleTradingDays(List<Date> days) {
+
+    if (days.size() <= 30) {
+      return new Pair<>(eChartInterval.DAILY, days);
+    }
+
+    // every few trading days, ending on the last trading day
+    int divider = (days.size() + 29) / 30;
+
+    List<Date> dates = new ArrayList<>();
+    for (int i = days.size() - 1; i >= 0; i -= divider) {
+      dates.add(days.get(i));
+    }
+    Collections.reverse(dates);
+
+    return new Pair<>(eChartInterval.MULTI_DAILY, dates);
+  }
+
   private Pair<eChartInterval, List<Date>> handlePrimeDays(Date start, Date end) {
 
     int nearest = (int) Utils.getDateDifferenceInDays(start, end);
@@ -250,12 +290,13 @@ public class ChartService implements IChartService {
 
   //<editor-fold desc="Month calculations">
 
-  private Pair<eChartInterval, List<Date>> handleMonths(Date start, Date end) {
+  private Pair<eChartInterval, List<Date>> handleMonths(Date start, Date end,
+      TradingCalendar calendar) {
 
     int totalMonths = Utils.getDateMonthDifference(start, end);
 
     if (totalMonths < this.intervalMin) {
-      return handleDays(start, end);
+      return handleDays(start, end, calendar);
     } else if (totalMonths <= this.intervalMax) {
       return new Pair<>(eChartInterval.MONTHLY, createListOfMonths(start, end));
     } else {
@@ -473,12 +514,18 @@ public class ChartService implements IChartService {
   @Override
   public Pair<eChartInterval, List<Date>> getChartInterval(Date start, Date end)
       throws IllegalArgumentException {
+    return this.getChartInterval(start, end, null);
+  }
+
+  @Override
+  public Pair<eChartInterval, List<Date>> getChartInterval(Date start, Date end,
+      TradingCalendar calendar) throws IllegalArgumentException {
     this.validateStartAndEndDates(start, end);
 
     int yearDifference = end.getYear() - start.getYear();
 
     if (yearDifference < this.intervalMin) {
-      return handleMonths(start, end);
+      return handleMonths(start, end, calendar);
     } else if (yearDifference <= this.intervalMax) {
       return handleYearlyIntervals(start, end);
     } else {
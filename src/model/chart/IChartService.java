@@ -3,6 +3,7 @@ package model.chart;
 import common.pair.Pair;
 import java.util.Date;
 import java.util.List;
+import model.portfolio.TradingCalendar;
 
 /**
  * This interface represents a chart service.
@@ -27,4 +28,16 @@ public interface IChartService {
    * @return a pair of an enum specifying the type of chart interval, and a list of dates.
    */
   Pair<eChartInterval, List<Date>> getChartInterval(Date start, Date end);
+
+  /**
+   * Gets the chart interval based on the given start date and end date. Daily intervals only
+   * contain the trading days of the given calendar.
+   *
+   * @param start    the state date of a time frame.
+   * @param end      the end date of a time frame.
+   * @param calendar the trading calendar, or null if every day is to be taken.
+   * @return a pair of an enum specifying the type of chart interval, and a list of dates.
+   */
+  Pair<eChartInterval, List<Date>> getChartInterval(Date start, Date end,
+      TradingCalendar calendar);
 }
@@ -1,6 +1,7 @@
 package model.portfolio;
 
 import common.Utils;
+import common.pair.Pair;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,20 +9,28 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
+import model.store.IStore;
 import model.store.Store;
 
 /**
- * A store of Abstract portfolios.
+ * A store of Abstract portfolios. The portfolios are kept in an {@code IStore}, which decides
+ * whether the store can be shared by multiple threads.
  */
-abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
-    Store<T> implements IAbstractPortfolioStore<T> {
+abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> implements
+    IAbstractPortfolioStore<T> {
   //<editor-fold desc="State variables">
 
   IStockDataSource dataSource;
 
+  private final IStore<T> store;
+
   //</editor-fold>
 
   //<editor-fold desc="Constructors">
@@ -41,8 +50,18 @@ abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
    * @param dataSource the data source being used to validate stocks and fetch stock data.
    */
   public AbstractPortfolioStore(IStockDataSource dataSource) {
-    super();
+    this(dataSource, new Store<>());
+  }
+
+  /**
+   * Instantiates a store of abstract portfolios which keeps the portfolios in the given store.
+   *
+   * @param dataSource the data source being used to validate stocks and fetch stock data.
+   * @param store      the empty store in which the portfolios are kept.
+   */
+  public AbstractPortfolioStore(IStockDataSource dataSource, IStore<T> store) {
     this.dataSource = dataSource;
+    this.store = store;
   }
 
   //</editor-fold>
@@ -74,6 +93,35 @@ abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
    */
   abstract int getCsvRowCount();
 
+  /**
+   * Gets the kind of portfolios in the binary snapshots of this store, so that a snapshot is only
+   * imported into a store of the same kind of portfolios.
+   *
+   * @return the kind of portfolios.
+   */
+  abstract byte getBinaryKind();
+
+  /**
+   * Writes the portfolio to a binary snapshot.
+   *
+   * @param writer    the writer of the snapshot.
+   * @param portfolio the portfolio to be written.
+   */
+  abstract void writeBinaryPortfolio(BinarySnapshotWriter writer, T portfolio);
+
+  /**
+   * Reads a portfolio from a binary snapshot.
+   *
+   * @param reader          the reader of the snapshot.
+   * @param validatedStocks the stocks which were already validated against the data source, as
+   *                        lists of the symbol, name and exchange.
+   * @return the portfolio which was read.
+   * @throws IllegalArgumentException when the portfolio is not valid.
+   * @throws InstantiationException   when creation of portfolio was not possible.
+   */
+  abstract T readBinaryPortfolio(BinarySnapshotReader reader, Set<List<String>> validatedStocks)
+      throws IllegalArgumentException, InstantiationException;
+
   void csvRowSanityCheck(List<String> rowSplit) {
     if (rowSplit.size() != this.getCsvRowCount()) {
       throw new IllegalArgumentException(
@@ -143,6 +191,18 @@ abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
     }
   }
 
+  /**
+   * Validates the stock data against the data source, unless the same stock data was validated
+   * before.
+   */
+  void validateBinaryStockData(Set<List<String>> validatedStocks, String symbol,
+      String stockName, String exchange) throws IllegalArgumentException {
+    if (!validatedStocks.contains(List.of(symbol, stockName, exchange))) {
+      this.validateCsvRowStockData(symbol, stockName, exchange);
+      validatedStocks.add(List.of(symbol, stockName, exchange));
+    }
+  }
+
   void addCsvRowToPortfoliosMap(Map<String, List<List<String>>> parsedPortfolios,
       String portfolioName, List<String> rowSplit) {
     List<List<String>> rowsSplitList;
@@ -172,14 +232,52 @@ abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
 
   //<editor-fold desc="Core methods">
 
+  @Override
+  public int save(T item) throws IllegalArgumentException {
+    return this.store.save(item);
+  }
+
+  @Override
+  public List<Integer> saveAll(List<T> items) throws IllegalArgumentException {
+    return this.store.saveAll(items);
+  }
+
+  @Override
+  public T retrieve(int id) throws IllegalArgumentException {
+    return this.store.retrieve(id);
+  }
+
+  @Override
+  public List<Pair<Integer, T>> getAll() {
+    return this.store.getAll();
+  }
+
+  @Override
+  public List<Pair<Integer, T>> getPage(int offset, int limit) throws IllegalArgumentException {
+    return this.store.getPage(offset, limit);
+  }
+
+  @Override
+  public Stream<Pair<Integer, T>> stream() {
+    return this.store.stream();
+  }
+
+  @Override
+  public void forEach(ObjIntConsumer<T> action) {
+    this.store.forEach(action);
+  }
+
+  @Override
+  public int getItemCount() {
+    return this.store.getItemCount();
+  }
+
   @Override
   public void importItemsFromCsv(InputStream inputStream)
       throws IOException, InstantiationException {
     List<String> stringList = this.readInputStream(inputStream);
     List<T> itemList = this.getPortfoliosFromCsvRows(stringList);
-    for (T item : itemList) {
-      this.save(item);
-    }
+    this.saveAll(itemList);
   }
 
   @Override
@@ -188,7 +286,7 @@ abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
     outputStream.write(this.getCsvRowHeaders().getBytes());
 
     // add each stock in each portfolio as a row in the csv
-    for (IAbstractPortfolio item : this.items.values()) {
+    for (T item : (Iterable<T>) this.store.stream().map(Pair::getO2)::iterator) {
       List<String> csvRows = item.toCsvRows();
       for (String csvRow : csvRows) {
         outputStream.write(csvRow.getBytes());
@@ -196,5 +294,34 @@ abstract class AbstractPortfolioStore<T extends IAbstractPortfolio> extends
     }
   }
 
+  @Override
+  public void importItemsFromBinary(InputStream inputStream)
+      throws IOException, IllegalArgumentException, InstantiationException {
+    BinarySnapshotReader reader = new BinarySnapshotReader(inputStream, this.getBinaryKind());
+    Set<List<String>> validatedStocks = new HashSet<>();
+
+    int count = reader.readCount();
+    List<T> itemList = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      itemList.add(this.readBinaryPortfolio(reader, validatedStocks));
+    }
+    reader.finish();
+
+    this.saveAll(itemList);
+  }
+
+  @Override
+  public void exportItemsToBinary(OutputStream outputStream) throws IOException {
+    BinarySnapshotWriter writer = new BinarySnapshotWriter(this.getBinaryKind());
+
+    List<Pair<Integer, T>> items = this.store.getAll();
+    writer.writeCount(items.size());
+    for (Pair<Integer, T> item : items) {
+      this.writeBinaryPortfolio(writer, item.getO2());
+    }
+
+    writer.writeTo(outputStream);
+  }
+
   //</editor-fold>
 }
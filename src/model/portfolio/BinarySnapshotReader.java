@@ -0,0 +1,189 @@
+package model.portfolio;
+
+import common.Utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Reads portfolios in the binary snapshot format written by {@code BinarySnapshotWriter}.
+ */
+class BinarySnapshotReader {
+
+  //<editor-fold desc="State variables">
+
+  private final byte[] data;
+  private int position;
+
+  private final String[] strings;
+
+  private int previousEpochDay;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Reads the snapshot in the given stream, and checks that it holds the given kind of portfolios
+   * in a version of the format which can be read.
+   *
+   * @param inputStream source of the snapshot.
+   * @param kind        the kind of portfolios the snapshot is expected to hold.
+   * @throws IOException              when an error occurs in the input/output operations with the
+   *                                  {@code InputStream}.
+   * @throws IllegalArgumentException when the snapshot is not valid.
+   */
+  BinarySnapshotReader(InputStream inputStream, byte kind)
+      throws IOException, IllegalArgumentException {
+    this.data = inputStream.readAllBytes();
+
+    int headerLength = BinarySnapshotWriter.MAGIC.length + 2;
+    if (this.data.length < headerLength || !Arrays.equals(this.data, 0,
+        BinarySnapshotWriter.MAGIC.length, BinarySnapshotWriter.MAGIC, 0,
+        BinarySnapshotWriter.MAGIC.length)) {
+      throw new IllegalArgumentException("Invalid input: The file is not a portfolio snapshot!");
+    }
+
+    int version = this.data[BinarySnapshotWriter.MAGIC.length];
+    if (version != BinarySnapshotWriter.VERSION) {
+      throw new IllegalArgumentException(
+          "Invalid input: Version " + version + " of the portfolio snapshot is not supported!");
+    }
+    if (this.data[BinarySnapshotWriter.MAGIC.length + 1] != kind) {
+      throw new IllegalArgumentException(
+          "Invalid input: The snapshot holds a different kind of portfolios!");
+    }
+    this.position = headerLength;
+
+    this.strings = new String[this.readCount()];
+    for (int i = 0; i < this.strings.length; i++) {
+      int length = this.readCount();
+      this.requireBytes(length);
+      this.strings[i] = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+      this.position += length;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private void requireBytes(int count) throws IllegalArgumentException {
+    if (count < 0 || this.data.length - this.position < count) {
+      throw new IllegalArgumentException("Invalid input: The snapshot ends unexpectedly!");
+    }
+  }
+
+  private long readUnsigned() throws IllegalArgumentException {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      this.requireBytes(1);
+      byte b = this.data[this.position++];
+      result |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return result;
+      }
+    }
+    throw new IllegalArgumentException("Invalid input: The snapshot has an invalid number!");
+  }
+
+  private long readSigned() throws IllegalArgumentException {
+    long value = this.readUnsigned();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Reads the number of items which follow.
+   *
+   * @return the number of items.
+   * @throws IllegalArgumentException when the snapshot is not valid.
+   */
+  int readCount() throws IllegalArgumentException {
+    long count = this.readUnsigned();
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid input: The snapshot has an invalid count!");
+    }
+    return (int) count;
+  }
+
+  /**
+   * Reads a string from the string table.
+   *
+   * @return the string.
+   * @throws IllegalArgumentException when the snapshot is not valid.
+   */
+  String readString() throws IllegalArgumentException {
+    long index = this.readUnsigned();
+    if (index >= this.strings.length) {
+      throw new IllegalArgumentException("Invalid input: The snapshot has an invalid string!");
+    }
+    return this.strings[(int) index];
+  }
+
+  /**
+   * Reads a date written relative to the previous date.
+   *
+   * @return the date.
+   * @throws IllegalArgumentException when the snapshot is not valid.
+   */
+  Date readDate() throws IllegalArgumentException {
+    long value = this.readSigned();
+    this.previousEpochDay += (int) (value >> 2);
+    int timeOfDay = (int) (value & 3);
+
+    if (timeOfDay == BinarySnapshotWriter.DATE_AT_SYSTEM_MIDNIGHT) {
+      return Utils.convertEpochDayToDate(this.previousEpochDay);
+    }
+    if (timeOfDay == BinarySnapshotWriter.DATE_AT_EXCHANGE_MIDNIGHT) {
+      return Utils.convertLocalDateToDate(LocalDate.ofEpochDay(this.previousEpochDay));
+    }
+    if (timeOfDay == BinarySnapshotWriter.DATE_AT_OTHER_TIME) {
+      return new Date(
+          Utils.convertEpochDayToDate(this.previousEpochDay).getTime() + this.readSigned());
+    }
+    throw new IllegalArgumentException("Invalid input: The snapshot has an invalid date!");
+  }
+
+  /**
+   * Reads an amount with its scale.
+   *
+   * @return the amount.
+   * @throws IllegalArgumentException when the snapshot is not valid.
+   */
+  BigDecimal readDecimal() throws IllegalArgumentException {
+    long header = this.readSigned();
+    int scale = (int) (header >> 1);
+
+    if ((header & 1) == 0) {
+      return BigDecimal.valueOf(this.readSigned(), scale);
+    }
+
+    int length = this.readCount();
+    this.requireBytes(length);
+    BigInteger unscaledValue = new BigInteger(this.data, this.position, length);
+    this.position += length;
+    return new BigDecimal(unscaledValue, scale);
+  }
+
+  /**
+   * Checks that everything in the snapshot was read.
+   *
+   * @throws IllegalArgumentException when the snapshot has more data than was read.
+   */
+  void finish() throws IllegalArgumentException {
+    if (this.position != this.data.length) {
+      throw new IllegalArgumentException("Invalid input: The snapshot has unexpected data!");
+    }
+  }
+
+  //</editor-fold>
+}
@@ -0,0 +1,202 @@
+package model.portfolio;
+
+import common.Utils;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes portfolios in the binary snapshot format. A snapshot starts with a magic number, the
+ * version of the format and the kind of portfolios it holds, followed by a table of all strings,
+ * and then the portfolios. Strings are written once to the table and referred to by their index,
+ * dates are written as the difference in days to the previous date together with the time of day,
+ * and amounts are written as an unscaled number and a scale, all as variable length integers.
+ */
+class BinarySnapshotWriter {
+
+  //<editor-fold desc="Constants">
+
+  static final byte[] MAGIC = {'P', 'F', 'S', 'B'};
+
+  static final int VERSION = 1;
+
+  // the times of day of dates, written in the lowest two bits of the difference in days
+  static final int DATE_AT_SYSTEM_MIDNIGHT = 0;
+  static final int DATE_AT_EXCHANGE_MIDNIGHT = 1;
+  static final int DATE_AT_OTHER_TIME = 2;
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final byte kind;
+
+  private final Map<String, Integer> stringIndices;
+  private final List<String> strings;
+
+  // the portfolios, written after the string table once all strings are known
+  private byte[] body;
+  private int size;
+
+  private int previousEpochDay;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a writer of a snapshot of the given kind of portfolios.
+   *
+   * @param kind the kind of portfolios in the snapshot.
+   */
+  BinarySnapshotWriter(byte kind) {
+    this.kind = kind;
+    this.stringIndices = new HashMap<>();
+    this.strings = new ArrayList<>();
+    this.body = new byte[1024];
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private void writeByte(int value) {
+    if (this.size == this.body.length) {
+      this.body = Arrays.copyOf(this.body, this.body.length * 2);
+    }
+    this.body[this.size++] = (byte) value;
+  }
+
+  private void writeBytes(byte[] bytes) {
+    for (byte b : bytes) {
+      this.writeByte(b);
+    }
+  }
+
+  private void writeUnsigned(long value) {
+    while ((value & ~0x7FL) != 0) {
+      this.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    this.writeByte((int) value);
+  }
+
+  private void writeSigned(long value) {
+    // zig-zag encoding keeps small negative numbers short
+    this.writeUnsigned((value << 1) ^ (value >> 63));
+  }
+
+  private static void writeUnsigned(OutputStream outputStream, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      outputStream.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    outputStream.write((int) value);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Writes the number of items which follow, e.g. the number of stocks of a portfolio.
+   *
+   * @param count the number of items.
+   */
+  void writeCount(int count) {
+    this.writeUnsigned(count);
+  }
+
+  /**
+   * Writes a string as its index in the string table.
+   *
+   * @param value the string.
+   */
+  void writeString(String value) {
+    Integer index = this.stringIndices.get(value);
+    if (index == null) {
+      index = this.strings.size();
+      this.stringIndices.put(value, index);
+      this.strings.add(value);
+    }
+    this.writeUnsigned(index);
+  }
+
+  /**
+   * Writes a date as the number of days since the previous date written. Dates are mostly at
+   * midnight in the system time zone, or in New York for the occurrences of dollar cost
+   * investments, so only the time zone is written for them and the time otherwise.
+   *
+   * @param date the date.
+   */
+  void writeDate(Date date) {
+    int epochDay = Utils.convertDateToCalendarEpochDay(date);
+    long systemMidnight = Utils.convertEpochDayToDate(epochDay).getTime();
+    long difference = (long) (epochDay - this.previousEpochDay) << 2;
+    this.previousEpochDay = epochDay;
+
+    if (date.getTime() == systemMidnight) {
+      this.writeSigned(difference | DATE_AT_SYSTEM_MIDNIGHT);
+    } else if (date.getTime()
+        == Utils.convertLocalDateToDate(LocalDate.ofEpochDay(epochDay)).getTime()) {
+      this.writeSigned(difference | DATE_AT_EXCHANGE_MIDNIGHT);
+    } else {
+      this.writeSigned(difference | DATE_AT_OTHER_TIME);
+      this.writeSigned(date.getTime() - systemMidnight);
+    }
+  }
+
+  /**
+   * Writes an amount exactly, including its scale.
+   *
+   * @param value the amount.
+   */
+  void writeDecimal(BigDecimal value) {
+    BigInteger unscaledValue = value.unscaledValue();
+    // the lowest bit tells whether the unscaled value fits in a long
+    boolean isLong = unscaledValue.bitLength() <= 63;
+    this.writeSigned(((long) value.scale() << 1) | (isLong ? 0 : 1));
+
+    if (isLong) {
+      this.writeSigned(unscaledValue.longValue());
+    } else {
+      byte[] bytes = unscaledValue.toByteArray();
+      this.writeUnsigned(bytes.length);
+      this.writeBytes(bytes);
+    }
+  }
+
+  /**
+   * Writes the snapshot with everything written to this writer so far.
+   *
+   * @param outputStream destination of the snapshot.
+   * @throws IOException when an error occurs in the input/output operations with the
+   *                     {@code OutputStream}.
+   */
+  void writeTo(OutputStream outputStream) throws IOException {
+    outputStream.write(MAGIC);
+    outputStream.write(VERSION);
+    outputStream.write(this.kind);
+
+    writeUnsigned(outputStream, this.strings.size());
+    for (String value : this.strings) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeUnsigned(outputStream, bytes.length);
+      outputStream.write(bytes);
+    }
+
+    outputStream.write(this.body, 0, this.size);
+    outputStream.flush();
+  }
+
+  //</editor-fold>
+}
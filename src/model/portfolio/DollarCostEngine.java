@@ -0,0 +1,139 @@
+package model.portfolio;
+
+import common.Utils;
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import jdk.jshell.spi.ExecutionControl.NotImplementedException;
+
+/**
+ * Materialises the past occurrences of a dollar cost investment. All occurrence dates are
+ * enumerated up front, so their prices are fetched from the data source in one batch and the
+ * resulting transactions can be added to the stock in a single validated insert.
+ */
+class DollarCostEngine {
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Enumerates the occurrences of the dollar cost investment which are before the given date.
+   *
+   * @param dollarCostInvestment the dollar cost investment.
+   * @param today                the date from which occurrences are no longer in the past.
+   * @return the past occurrence dates in order, and the date of the first occurrence which was not
+   *     materialised.
+   * @throws IllegalArgumentException when the recurring interval type is not supported.
+   */
+  static Pair<List<Date>, Date> getPastOccurrences(IDollarCostInvestment dollarCostInvestment,
+      Date today) throws IllegalArgumentException {
+    List<Date> result = new ArrayList<>();
+    Date currentDate = dollarCostInvestment.getDate();
+
+    IRecurringEvent recurringEvent = dollarCostInvestment.getRecurringEvent();
+    Date endDate = recurringEvent == null ? null : recurringEvent.getEndDate();
+
+    try {
+      while (currentDate.before(today)
+          && (recurringEvent == null || endDate == null || !currentDate.after(endDate))) {
+        result.add(currentDate);
+
+        if (recurringEvent == null) {
+          break;
+        }
+
+        currentDate = RecurringEvent.getNextDate(currentDate,
+            recurringEvent.getRecurringIntervalType(),
+            recurringEvent.getRecurringIntervalDelta());
+      }
+    } catch (NotImplementedException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+
+    return new Pair<>(result, currentDate);
+  }
+
+  /**
+   * Creates the transactions of the dollar cost investment on the given dates. Each occurrence is
+   * bought at the close of the first trading day on or after it, so occurrences on days the
+   * exchange was closed share the price lookup of that trading day. The prices of all trading days
+   * are fetched in one batch.
+   *
+   * @param source               the data source which is to be used to fetch the prices.
+   * @param symbol               the symbol of the stock.
+   * @param dollarCostInvestment the dollar cost investment.
+   * @param dates                the occurrence dates.
+   * @return the date, volume, purchase price and commission fees of each transaction.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  static List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> getTransactions(
+      IStockDataSource source, String symbol, IDollarCostInvestment dollarCostInvestment,
+      List<Date> dates) throws StockDataSourceException {
+    List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> result = new ArrayList<>();
+    if (dates.isEmpty()) {
+      return result;
+    }
+
+    TradingCalendar calendar = source.getTradingCalendar();
+    int today = Utils.getTodayEpochDay();
+    List<Date> tradingDates = new ArrayList<>();
+    List<Integer> priceIndices = new ArrayList<>();
+
+    for (Date date : dates) {
+      // occurrences after the first are at midnight in New York, not in the system time zone
+      int day = Utils.convertDateToCalendarEpochDay(date);
+      int tradingDay = calendar.nextTradingDay(day);
+      // a trading day after today has no price yet, the occurrence itself is asked for instead
+      Date tradingDate = Utils.convertEpochDayToDate(tradingDay > today ? day : tradingDay);
+
+      if (tradingDates.isEmpty()
+          || !tradingDates.get(tradingDates.size() - 1).equals(tradingDate)) {
+        tradingDates.add(tradingDate);
+      }
+      priceIndices.add(tradingDates.size() - 1);
+    }
+
+    List<BigDecimal> prices = source.getStockPrices(symbol, tradingDates, true);
+
+    for (int i = 0; i < dates.size(); i++) {
+      BigDecimal purchasePrice = prices.get(priceIndices.get(i));
+      BigDecimal volume = dollarCostInvestment.getAmount()
+          .divide(purchasePrice, 2, RoundingMode.UP);
+      result.add(new Pair<>(dates.get(i),
+          new Triplet<>(volume, purchasePrice, dollarCostInvestment.getCommissionFees())));
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds the past occurrences of the dollar cost investment to the stock as transactions.
+   *
+   * @param source               the data source which is to be used to fetch the prices.
+   * @param stock                the stock to which the transactions are added.
+   * @param dollarCostInvestment the dollar cost investment.
+   * @return the transactions which were added, and the date of the first occurrence which was not
+   *     materialised.
+   * @throws IllegalArgumentException when the dollar cost investment is not valid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  static Pair<List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>>, Date> materialise(
+      IStockDataSource source, IFlexiblePortfolioStock stock,
+      IDollarCostInvestment dollarCostInvestment)
+      throws IllegalArgumentException, StockDataSourceException {
+    var occurrences = getPastOccurrences(dollarCostInvestment, Utils.getTodayDate());
+
+    var transactions = getTransactions(source, stock.getSymbol(), dollarCostInvestment,
+        occurrences.getO1());
+    if (!transactions.isEmpty()) {
+      stock.addTransactions(transactions);
+    }
+
+    return new Pair<>(transactions, occurrences.getO2());
+  }
+
+  //</editor-fold>
+}
@@ -0,0 +1,71 @@
+package model.portfolio;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Exact arithmetic on fixed-point numbers stored as an unscaled {@code long} with a scale, the
+ * representation used by the transaction columns. Every operation either gives the exact result or
+ * throws {@code ArithmeticException}, so a caller can fall back to {@code BigDecimal}.
+ */
+final class FixedPoint {
+
+  //<editor-fold desc="State variables">
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  private FixedPoint() {
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Gets the unscaled value of the given number.
+   *
+   * @param value the number.
+   * @return the unscaled value, which is never {@code Long.MIN_VALUE}.
+   * @throws ArithmeticException when the unscaled value or the scale does not fit.
+   */
+  static long unscaled(BigDecimal value) throws ArithmeticException {
+    BigInteger unscaledValue = value.unscaledValue();
+    if (unscaledValue.bitLength() > 62 || value.scale() < Byte.MIN_VALUE
+        || value.scale() > Byte.MAX_VALUE) {
+      throw new ArithmeticException("The value " + value.toPlainString() + " is too precise!");
+    }
+    return unscaledValue.longValue();
+  }
+
+  /**
+   * Changes the scale of an unscaled value to a scale at least as large.
+   *
+   * @param unscaled the unscaled value.
+   * @param scale    the scale of the value.
+   * @param newScale the new scale, not smaller than the scale.
+   * @return the unscaled value at the new scale.
+   * @throws ArithmeticException when the value does not fit at the new scale.
+   */
+  static long rescale(long unscaled, int scale, int newScale) throws ArithmeticException {
+    if (unscaled == 0 || scale == newScale) {
+      return unscaled;
+    }
+    if (newScale - scale >= POWERS_OF_TEN.length) {
+      throw new ArithmeticException("long overflow");
+    }
+    return Math.multiplyExact(unscaled, POWERS_OF_TEN[newScale - scale]);
+  }
+
+  //</editor-fold>
+}
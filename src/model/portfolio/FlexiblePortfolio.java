@@ -7,12 +7,18 @@ import common.triplet.Triplet;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
@@ -28,10 +34,28 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
   //<editor-fold desc="State variables">
 
   private final List<IFlexiblePortfolioStock> stocks;
-  private final Set<String> stockSymbolsSet;
+  // the first stock in the list with each symbol, so stocks are found without scanning the list
+  private final Map<String, IFlexiblePortfolioStock> stocksBySymbol;
+  // read-only copy of the stocks handed out by getStocks, rebuilt after a stock is added
+  private List<IObservableFlexiblePortfolioStock> stocksView;
 
   private Map<String, IRebalance> rebalanceMap;
 
+  // receives the changes made to the portfolio, null when they are not recorded
+  private IPortfolioRecorder recorder;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Inner classes">
+
+  /**
+   * The valuation of a single stock of the portfolio.
+   */
+  private interface StockValuation<T> {
+
+    T value(IObservableFlexiblePortfolioStock stock) throws StockDataSourceException;
+  }
+
   //</editor-fold>
 
   //<editor-fold desc="Constructors">
@@ -53,7 +77,7 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
     super(name);
 
     // setup all stocks available in portfolio
-    this.stockSymbolsSet = new HashSet<>();
+    this.stocksBySymbol = new HashMap<>();
     this.rebalanceMap = new HashMap<>();
 
     this.stocks = new ArrayList<>();
@@ -69,12 +93,32 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
         validateIPODateAndDelistingDate(stockDataSource, s.getFirstTransaction().getO1(),
                 s.getSymbol());
 
-        this.stockSymbolsSet.add(s.getSymbol());
-        this.stocks.add(s);
+        this.addStock(s);
       }
     }
   }
 
+  /**
+   * Restores a {@code FlexiblePortfolio} from recorded stocks and rebalances, which were validated
+   * when they were first added to a portfolio. The stock data source is not used.
+   *
+   * @param name         The name of the portfolio.
+   * @param stocks       The stocks contained in the portfolio.
+   * @param rebalanceMap The last rebalance of each stock by the stock symbol.
+   */
+  FlexiblePortfolio(String name, List<IFlexiblePortfolioStock> stocks,
+                    Map<String, IRebalance> rebalanceMap) {
+    super(name);
+
+    this.stocksBySymbol = new HashMap<>();
+    this.rebalanceMap = new HashMap<>(rebalanceMap);
+
+    this.stocks = new ArrayList<>();
+    for (IFlexiblePortfolioStock s : stocks) {
+      this.addStock(s);
+    }
+  }
+
   //</editor-fold>
 
   //<editor-fold desc="Helper methods">
@@ -113,6 +157,90 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
     }
   }
 
+  /**
+   * Values the stocks of the portfolio, concurrently on the given executor if there is one and it
+   * takes the valuations. The results are in the order of the stocks, and the error of the first
+   * stock that failed is thrown, the same as when the stocks are valued one after another.
+   *
+   * @param executor  the executor on which the stocks are valued, or null.
+   * @param valuation the valuation of a single stock.
+   * @return the valuation of each stock.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  private <T> List<T> valueStocks(ExecutorService executor, StockValuation<T> valuation)
+          throws StockDataSourceException {
+    List<IObservableFlexiblePortfolioStock> stocks = this.getStocks();
+    List<T> result = new ArrayList<>(stocks.size());
+
+    if (executor != null && stocks.size() > 1) {
+      List<Callable<T>> tasks = new ArrayList<>(stocks.size());
+      for (IObservableFlexiblePortfolioStock stock : stocks) {
+        tasks.add(() -> valuation.value(stock));
+      }
+
+      try {
+        for (Future<T> future : executor.invokeAll(tasks)) {
+          result.add(future.get());
+        }
+        return result;
+      } catch (RejectedExecutionException e) {
+        // the executor was shut down before taking the valuations, which then run here
+        result.clear();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new StockDataSourceException("The valuation of the portfolio was interrupted!", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof StockDataSourceException) {
+          throw (StockDataSourceException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new StockDataSourceException(cause.getMessage(), cause);
+      }
+    }
+
+    for (IObservableFlexiblePortfolioStock stock : stocks) {
+      result.add(valuation.value(stock));
+    }
+    return result;
+  }
+
+  private void addStock(IFlexiblePortfolioStock stock) {
+    this.stocks.add(stock);
+    this.stocksBySymbol.putIfAbsent(stock.getSymbol(), stock);
+    this.stocksView = null;
+  }
+
+  /**
+   * Sets the receiver of the changes made to this portfolio from now on.
+   *
+   * @param recorder the receiver of the changes, or null to stop recording them.
+   */
+  void setRecorder(IPortfolioRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  private void recordTransaction(IStock stock, Date date, BigDecimal volume,
+                                 BigDecimal purchasePrice, BigDecimal commissionFees) {
+    if (this.recorder != null) {
+      this.recorder.recordTransaction(stock, date, volume, purchasePrice, commissionFees);
+    }
+  }
+
+  private void begin() {
+    if (this.recorder != null) {
+      this.recorder.begin();
+    }
+  }
+
+  private void commit() {
+    if (this.recorder != null) {
+      this.recorder.commit();
+    }
+  }
+
   private String generateChartTitle(Date startDate, Date endDate) {
     return "Performance of Portfolio " + this.getName() + " from "
             + Utils.convertDateToDefaultStringFormat(startDate) + " to "
@@ -125,10 +253,10 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
 
   @Override
   public List<IObservableFlexiblePortfolioStock> getStocks() {
-    return this.stocks
-            .stream()
-            .map(s -> (IObservableFlexiblePortfolioStock) s)
-            .collect(Collectors.toList());
+    if (this.stocksView == null) {
+      this.stocksView = Collections.unmodifiableList(new ArrayList<>(this.stocks));
+    }
+    return this.stocksView;
   }
 
   @Override
@@ -139,14 +267,14 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
     for (IObservableFlexiblePortfolioStock stock : this.getStocks()) {
       BigDecimal currentVolume = new BigDecimal(0);
 
-      for (var transaction : stock.getTransactions()) {
-        if (transaction.getO1().after(date)) {
+      for (int i = 0; i < stock.getTransactionCount(); i++) {
+        if (stock.getTransactionTime(i) > date.getTime()) {
           // the transaction date is after provided date
           // we stop looking through transactions as list is ordered by date
           break;
         }
 
-        currentVolume = currentVolume.add(transaction.getO2().getO1());
+        currentVolume = currentVolume.add(stock.getTransactionVolume(i));
       }
       if (currentVolume.compareTo(new BigDecimal(0)) > 0) {
         result.add(new Pair<>(stock.getName(), currentVolume));
@@ -160,6 +288,9 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
           throws IllegalArgumentException, StockDataSourceException, IllegalStateException {
     validateFlexibleStocksInput(stocks);
 
+    // fetch the prices of all stocks in the transaction at once
+    source.prefetch(stocks.stream().map(Triplet::getO1).collect(Collectors.toList()));
+
     for (Triplet<String, Date, BigDecimal> s : stocks) {
       // check whether provided stock's symbol is a
       // valid stock and provided data is valid
@@ -173,32 +304,29 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
       Utils.validateFutureDate(s.getO2());
       validateIPODateAndDelistingDate(source, s.getO2(), s.getO1());
 
-      if (stockSymbolsSet.contains(newStockSymbol)) {
+      IFlexiblePortfolioStock currentStock = this.stocksBySymbol.get(newStockSymbol);
+      if (currentStock != null) {
         // update existing FlexiblePortfolioStock by
         // adding transaction to the stock object
-        for (IFlexiblePortfolioStock currentStock : this.stocks) {
-          if (currentStock.getSymbol().equals(newStockSymbol)) {
-            var purchasePrice =
-                    source.getStockPrice(currentStock.getSymbol(), newStockDate, false);
-            currentStock.addTransaction(newStockDate, newStockVolume, purchasePrice,
-                    commissionFees);
-
-            // no need to go through rest of the list of
-            // stocks as we found what we were looking for
-            break;
-          }
-        }
+        var purchasePrice =
+                source.getStockPrice(currentStock.getSymbol(), newStockDate, false);
+        currentStock.addTransaction(newStockDate, newStockVolume, purchasePrice,
+                commissionFees);
+        this.recordTransaction(currentStock, newStockDate, newStockVolume, purchasePrice,
+                commissionFees);
       } else {
         if (isBuy) {
           // add the stock to the portfolio as the stock is new in the portfolio
           IStock sourceStock = source.getStock(newStockSymbol);
           var purchasePrice =
                   source.getStockPrice(sourceStock.getSymbol(), newStockDate, false);
-          this.stocks.add(
+          IFlexiblePortfolioStock newStock =
                   new FlexiblePortfolioStock(sourceStock.getSymbol(), sourceStock.getName(),
                           sourceStock.getExchange(), newStockVolume, newStockDate, purchasePrice,
-                          commissionFees));
-          this.stockSymbolsSet.add(newStockSymbol);
+                          commissionFees);
+          this.addStock(newStock);
+          this.recordTransaction(newStock, newStockDate, newStockVolume, purchasePrice,
+                  commissionFees);
         } else {
           throw new IllegalArgumentException("The requested stock doesn't exist in the portfolio!");
         }
@@ -212,24 +340,42 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
   public IFlexiblePortfolio buyStocks(IStockDataSource source,
                                       List<Triplet<String, Date, BigDecimal>> stocks, BigDecimal commissionFees)
           throws IllegalArgumentException, StockDataSourceException, IllegalStateException {
-    return this.addTransaction(source, stocks, commissionFees, true);
+    // the trades made before an invalid one are kept, so they are committed as well
+    this.begin();
+    try {
+      this.addTransaction(source, stocks, commissionFees, true);
+    } finally {
+      this.commit();
+    }
+    return this;
   }
 
   @Override
   public IFlexiblePortfolio sellStocks(IStockDataSource source,
                                        List<Triplet<String, Date, BigDecimal>> stocks, BigDecimal commissionFees)
           throws IllegalArgumentException, StockDataSourceException, IllegalStateException {
-    return this.addTransaction(source, stocks, commissionFees, false);
+    this.begin();
+    try {
+      this.addTransaction(source, stocks, commissionFees, false);
+    } finally {
+      this.commit();
+    }
+    return this;
   }
 
   @Override
   public BigDecimal getCostBasis(IStockDataSource source, Date date)
           throws StockDataSourceException, IllegalArgumentException {
-    BigDecimal result = new BigDecimal(0);
+    return this.getCostBasis(source, date, null);
+  }
 
-    for (IObservableFlexiblePortfolioStock stock : this.getStocks()) {
-      BigDecimal stockValue = stock.getCostBasis(source, date);
+  @Override
+  public BigDecimal getCostBasis(IStockDataSource source, Date date, ExecutorService executor)
+          throws StockDataSourceException, IllegalArgumentException {
+    BigDecimal result = new BigDecimal(0);
 
+    for (BigDecimal stockValue : this.valueStocks(executor,
+            stock -> stock.getCostBasis(source, date))) {
       result = result.add(stockValue);
     }
 
@@ -239,13 +385,29 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
   @Override
   public Pair<BigDecimal, List<IPortfolioStockValue>> getValue(IStockDataSource source,
                                                                Date date) throws IllegalArgumentException, StockDataSourceException {
+    return this.getValue(source, date, null);
+  }
+
+  @Override
+  public Pair<BigDecimal, List<IPortfolioStockValue>> getValue(IStockDataSource source,
+                                                               Date date, ExecutorService executor)
+          throws IllegalArgumentException, StockDataSourceException {
     Utils.validateFutureDate(date);
 
+    // fetch the prices of all stocks at once instead of one stock at a time
+    source.prefetch(this.stocksBySymbol.keySet());
+
     BigDecimal result = new BigDecimal(0);
     List<IPortfolioStockValue> stockValues = new ArrayList<>();
 
-    for (IObservableFlexiblePortfolioStock stock : this.getStocks()) {
-      Pair<BigDecimal, BigDecimal> stockValue = stock.getValueOnDate(source, date);
+    List<IObservableFlexiblePortfolioStock> stocks = this.getStocks();
+    List<Pair<BigDecimal, BigDecimal>> values = this.valueStocks(executor,
+            stock -> stock.getValueOnDate(source, date));
+
+    // merged in the order of the stocks, however the valuations finished
+    for (int i = 0; i < stocks.size(); i++) {
+      IObservableFlexiblePortfolioStock stock = stocks.get(i);
+      Pair<BigDecimal, BigDecimal> stockValue = values.get(i);
 
       stockValues.add(new PortfolioStockValue(stock.getSymbol(), stock.getName(),
               stock.getExchange(), stockValue.getO1(), stockValue.getO2()));
@@ -255,30 +417,56 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
     return new Pair<>(result, stockValues);
   }
 
+  @Override
+  public Pair<BigDecimal, List<IPortfolioStockValue>> getValue(PriceSnapshot snapshot)
+          throws IllegalArgumentException, StockDataSourceException {
+    return this.getValue(snapshot.over(null), snapshot.getDate(), null);
+  }
+
+  @Override
+  public BigDecimal getCostBasis(PriceSnapshot snapshot)
+          throws IllegalArgumentException, StockDataSourceException {
+    return this.getCostBasis(snapshot.over(null), snapshot.getDate(), null);
+  }
+
+  @Override
+  public List<BigDecimal> getValues(IStockDataSource source, List<Date> dates)
+          throws IllegalArgumentException, StockDataSourceException {
+    return PortfolioValueSweep.getValues(source, this.stocks, dates);
+  }
+
   @Override
   public IChart getPerformanceChart(IStockDataSource source, IChartService chartService,
                                     Date startDate, Date endDate) throws IllegalArgumentException, StockDataSourceException {
     Utils.validateFutureDate(startDate);
     Utils.validateStartAndEndDate(startDate, endDate);
 
-    var intervals = chartService.getChartInterval(startDate, endDate);
-    List<Pair<Date, Integer>> chartData = new ArrayList<>();
+    // daily points are only taken on days the stocks were traded
+    var intervals = chartService.getChartInterval(startDate, endDate,
+            source.getTradingCalendar());
+    List<Date> chartDates = new ArrayList<>();
+    List<Date> valueDates = new ArrayList<>();
 
     for (Date date : intervals.getO2()) {
-      int value = 0;
+      chartDates.add(date);
       // only populating the value in chart if the date is in the past
       if (date.before(Utils.getTodayDate())) {
-        value = this.getValue(source, date).getO1().intValue();
-        chartData.add(new Pair<>(date, value));
+        valueDates.add(date);
       } else {
         Date today = Utils.getTodayDate();
-        value = this.getValue(source, new Date(today.getYear(), today.getMonth(), today.getDay()))
-                .getO1().intValue();
-        chartData.add(new Pair<>(date, value));
+        valueDates.add(new Date(today.getYear(), today.getMonth(), today.getDay()));
         break;
       }
     }
 
+    // all points are valued in a single sweep over the transactions
+    List<BigDecimal> values = this.getValues(source, valueDates);
+    List<Pair<Date, Integer>> chartData = new ArrayList<>();
+
+    for (int i = 0; i < chartDates.size(); i++) {
+      chartData.add(new Pair<>(chartDates.get(i), values.get(i).intValue()));
+    }
+
     return chartService.generateChart(intervals.getO1(),
             this.generateChartTitle(startDate, endDate), chartData);
   }
@@ -333,35 +521,44 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
 
     //</editor-fold>
 
+    source.prefetch(stocksList);
+
     // split stocks with Percentage into Stock-Amount pairs and create DollarCostInvestments,
     // and add the dollar cost investments to FlexiblePortfolioStocks
-    for (Pair<String, BigDecimal> swp : stocksWithPercentage) {
-      String newStockSymbol = swp.getO1();
-      var stockAmount = amount.multiply(swp.getO2()).multiply(new BigDecimal("0.01"));
-
-      IDollarCostInvestment dci = new DollarCostInvestment(date, stockAmount, commissionFees,
-              recurringEvent);
-
-      if (this.stockSymbolsSet.contains(newStockSymbol)) {
-        for (IFlexiblePortfolioStock currentStock : this.stocks) {
-          if (currentStock.getSymbol().equals(newStockSymbol)) {
-            currentStock.addStockDollarCostInvestment(source, dci);
+    this.begin();
+    try {
+      for (Pair<String, BigDecimal> swp : stocksWithPercentage) {
+        String newStockSymbol = swp.getO1();
+        var stockAmount = amount.multiply(swp.getO2()).multiply(new BigDecimal("0.01"));
+
+        IDollarCostInvestment dci = new DollarCostInvestment(date, stockAmount, commissionFees,
+                recurringEvent);
+
+        IFlexiblePortfolioStock currentStock = this.stocksBySymbol.get(newStockSymbol);
+        List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> addedTransactions;
+        if (currentStock != null) {
+          addedTransactions = currentStock.addStockDollarCostInvestment(source, dci);
+        } else {
+          // add the stock to the portfolio as the stock is new in the portfolio
+          IStock sourceStock = source.getStock(newStockSymbol);
+          currentStock = new FlexiblePortfolioStock(source, sourceStock.getSymbol(),
+                  sourceStock.getName(), sourceStock.getExchange(), dci);
+          this.addStock(currentStock);
+          addedTransactions = currentStock.getTransactions();
+        }
 
-            // no need to go through rest of the list of
-            // stocks as we found what we were looking for
-            break;
+        if (this.recorder != null) {
+          for (var transaction : addedTransactions) {
+            this.recorder.recordTransaction(currentStock, transaction.getO1(),
+                    transaction.getO2().getO1(), transaction.getO2().getO2(),
+                    transaction.getO2().getO3());
           }
+          this.recorder.recordDollarCostInvestment(currentStock, dci, Utils.getTodayDate());
         }
-      } else {
-        // add the stock to the portfolio as the stock is new in the portfolio
-        IStock sourceStock = source.getStock(newStockSymbol);
-        this.stocks.add(
-                new FlexiblePortfolioStock(source, sourceStock.getSymbol(), sourceStock.getName(),
-                        sourceStock.getExchange(), dci));
-        this.stockSymbolsSet.add(newStockSymbol);
       }
+    } finally {
+      this.commit();
     }
-
     return this;
   }
 
@@ -370,8 +567,20 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
                                          BigDecimal totalValue,
                                          List<Pair<String, BigDecimal>> stocksWithPercentage)
           throws IllegalArgumentException, StockDataSourceException {
+    // the current values of the stocks and the prices of the trades are all taken on the date
+    PriceSnapshot snapshot = PriceSnapshot.of(source, date, this.stocksBySymbol.keySet());
+    return this.addRebalance(source, snapshot, totalValue, stocksWithPercentage);
+  }
+
+  @Override
+  public IFlexiblePortfolio addRebalance(IStockDataSource source, PriceSnapshot snapshot,
+                                         BigDecimal totalValue,
+                                         List<Pair<String, BigDecimal>> stocksWithPercentage)
+          throws IllegalArgumentException, StockDataSourceException {
+    Date date = snapshot.getDate();
+    IStockDataSource snapshotSource = snapshot.over(source);
 
-    List<IPortfolioStockValue> stocksValues = getValue(source, date).getO2();
+    List<IPortfolioStockValue> stocksValues = getValue(snapshot).getO2();
     // makes sure total percentages add up to 100
     var stocksPercentageTotal = new BigDecimal(0);
     Set<String> stocksList = new HashSet<>();
@@ -389,55 +598,62 @@ public class FlexiblePortfolio extends AbstractPortfolio implements IFlexiblePor
       throw new IllegalArgumentException("The percentages of stocks should total up to 100!");
     }
 
-    for (Pair<String, BigDecimal> swp : stocksWithPercentage) {
+    // the trades and the rebalances of all stocks are committed together as one change
+    this.begin();
+    try {
+      for (Pair<String, BigDecimal> swp : stocksWithPercentage) {
 
-      BigDecimal currentValue = new BigDecimal(0);
+        BigDecimal currentValue = new BigDecimal(0);
 
-      String newStockSymbol = swp.getO1();
-      BigDecimal percentOfTotal = swp.getO2();
-      for (IPortfolioStock s : stocksValues) {
-        if (s.getSymbol().equals(newStockSymbol)) {
-          currentValue = ((IPortfolioStockValue)s).getValue();
+        String newStockSymbol = swp.getO1();
+        BigDecimal percentOfTotal = swp.getO2();
+        for (IPortfolioStock s : stocksValues) {
+          if (s.getSymbol().equals(newStockSymbol)) {
+            currentValue = ((IPortfolioStockValue)s).getValue();
+          }
+        }
+        BigDecimal currentPrice =
+                snapshotSource.getStockPrice(swp.getO1(), date, false);
+        BigDecimal amountNeeded = totalValue.multiply(
+                percentOfTotal.multiply(new BigDecimal(0.01)));
+        BigDecimal amountToBuy = amountNeeded.subtract(currentValue);
+        BigDecimal sharesToBuy = new BigDecimal(0);
+        BigDecimal sharesToSell = new BigDecimal(0);
+        if (amountToBuy.signum() > 0) {
+          sharesToBuy = amountToBuy.divide(currentPrice, 8, RoundingMode.HALF_DOWN);
+        } else if (amountToBuy.signum() < 0) {
+          sharesToSell = amountToBuy.abs().divide(currentPrice, 8, RoundingMode.HALF_DOWN);
         }
-      }
-      BigDecimal currentPrice =
-              source.getStockPrice(swp.getO1(), date, false);
-      BigDecimal amountNeeded = totalValue.multiply(
-              percentOfTotal.multiply(new BigDecimal(0.01)));
-      BigDecimal amountToBuy = amountNeeded.subtract(currentValue);
-      BigDecimal sharesToBuy = new BigDecimal(0);
-      BigDecimal sharesToSell = new BigDecimal(0);
-      if (amountToBuy.signum() > 0) {
-        sharesToBuy = amountToBuy.divide(currentPrice, 8, RoundingMode.HALF_DOWN);
-      } else if (amountToBuy.signum() < 0) {
-        sharesToSell = amountToBuy.abs().divide(currentPrice, 8, RoundingMode.HALF_DOWN);
-      }
 
-      // find stock symbol in set
-      for (IFlexiblePortfolioStock currentStock : this.stocks) {
-        if (currentStock.getSymbol().equals(newStockSymbol)) {
+        // find stock symbol in set
+        IFlexiblePortfolioStock currentStock = this.stocksBySymbol.get(newStockSymbol);
+        if (currentStock != null) {
           if (!sharesToSell.equals(new BigDecimal(0))) {
             Triplet<String, Date, BigDecimal> t = new Triplet(newStockSymbol, date, sharesToSell);
             List<Triplet<String, Date, BigDecimal>> list = new ArrayList();
             list.add(t);
-            sellStocks(source, list, new BigDecimal(0));
+            this.addTransaction(snapshotSource, list, new BigDecimal(0), false);
             list.clear();
           } else if (!sharesToBuy.equals(new BigDecimal(0))) {
             Triplet<String, Date, BigDecimal> t = new Triplet(newStockSymbol, date, sharesToBuy);
             List<Triplet<String, Date, BigDecimal>> list = new ArrayList();
             list.add(t);
-            buyStocks(source, list, new BigDecimal(0));
+            this.addTransaction(snapshotSource, list, new BigDecimal(0), true);
             list.clear();
           }
           IRebalance r = new Rebalance(date, amountNeeded, percentOfTotal);
           rebalanceMap.put(newStockSymbol, r);
+          if (this.recorder != null) {
+            this.recorder.recordRebalance(newStockSymbol, r);
+          }
           //currentStock.addStockRebalance(source, r);
         }
       }
+    } finally {
+      this.commit();
     }
-
-      return this;
-    }
+    return this;
+  }
 
     @Override
     public List<Pair<String, IDollarCostInvestment>> getDollarCostInvestments () {
@@ -4,12 +4,14 @@ import common.Utils;
 import common.pair.Pair;
 import common.triplet.Triplet;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
 
 /**
@@ -18,18 +20,49 @@ import jdk.jshell.spi.ExecutionControl.NotImplementedException;
  */
 public class FlexiblePortfolioStock extends PortfolioStock implements IFlexiblePortfolioStock {
 
+  //<editor-fold desc="Inner classes">
+
+  /**
+   * The projected cost basis of the future dollar cost investments by date, valid on one day. The
+   * cache is replaced instead of cleared, so valuations running at the same time never write a
+   * stale value into a cache which is in use.
+   */
+  private static class ProjectedCostBasisCache {
+
+    private final int day;
+    private final Map<Date, BigDecimal> costBasisByDate;
+
+    private ProjectedCostBasisCache(int day) {
+      this.day = day;
+      this.costBasisByDate = new ConcurrentHashMap<>();
+    }
+  }
+
+  //</editor-fold>
+
   //<editor-fold desc="State variables">
 
   /**
    * Date of transaction: Volume of transaction, Purchase Price, CommissionFees of transaction.
    */
   // volume is positive when buying, negative when selling
-  private final Map<Date, List<Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactionHistory;
+  private final TransactionLedger transactionHistory;
 
   private final Map<Date, IDollarCostInvestment> dollarCostInvestmentMap;
 
   private final Map<Date, IRebalance> rebalanceMap;
 
+  // volume held and cost basis on each transaction date, kept in step with transactionHistory,
+  // null once a position is too precise for it
+  private PositionIndex positionIndex;
+
+  // running volume of the transactions, used to validate new transactions without a full replay,
+  // null once a volume is too precise for it
+  private RunningVolumeTree runningVolumeTree;
+
+  // projected cost basis of the future dollar cost investments, null when invalidated
+  private volatile ProjectedCostBasisCache projectedCostBasisCache;
+
   //</editor-fold>
 
   //<editor-fold desc="Constructors">
@@ -42,9 +75,11 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
       IDollarCostInvestment dollarCostInvestment) throws StockDataSourceException {
     super(symbol, name, exchange, new BigDecimal(0));
     // using Tree map, so we can traverse through items in map in order of dates
-    this.transactionHistory = new TreeMap<>();
+    this.transactionHistory = new TransactionLedger();
     this.dollarCostInvestmentMap = new TreeMap<>();
     this.rebalanceMap = new TreeMap<>();
+    this.positionIndex = new PositionIndex();
+    this.runningVolumeTree = new RunningVolumeTree();
 
     this.addStockDollarCostInvestment(source, dollarCostInvestment);
   }
@@ -53,9 +88,11 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
                          ) throws StockDataSourceException {
     super(symbol, name, exchange, new BigDecimal(0));
     // using Tree map, so we can traverse through items in map in order of dates
-    this.transactionHistory = new TreeMap<>();
+    this.transactionHistory = new TransactionLedger();
     this.dollarCostInvestmentMap = new TreeMap<>();
     this.rebalanceMap = new TreeMap<>();
+    this.positionIndex = new PositionIndex();
+    this.runningVolumeTree = new RunningVolumeTree();
 
     this.addStockRebalance(source, rebalance);
   }
@@ -76,13 +113,18 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
     Utils.validateFutureDate(purchaseDate);
 
     // using Tree map, so we can traverse through items in map in order of dates
-    this.transactionHistory = new TreeMap<>();
+    this.transactionHistory = new TransactionLedger();
     this.dollarCostInvestmentMap = new TreeMap<>();
     this.rebalanceMap = new TreeMap<>();
+    this.positionIndex = new PositionIndex();
+    this.runningVolumeTree = new RunningVolumeTree();
+
+    TransactionLedger.validate(volume, purchasePrice, commissionFees);
+    if (!this.tryAddVolumes(List.of(new Pair<>(purchaseDate, volume)))) {
+      throw this.negativeVolumeException();
+    }
 
-    List<Triplet<BigDecimal, BigDecimal, BigDecimal>> stocksInTransaction = new ArrayList<>();
-    stocksInTransaction.add(new Triplet<>(volume, purchasePrice, commissionFees));
-    transactionHistory.put(purchaseDate, stocksInTransaction);
+    this.recordTransaction(purchaseDate, volume, purchasePrice, commissionFees);
   }
 
   /**
@@ -98,29 +140,19 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
       List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactions)
       throws IllegalArgumentException {
     super(symbol, name, exchange, totalVolume);
-    this.transactionHistory = new TreeMap<>();
+    this.transactionHistory = new TransactionLedger();
     this.dollarCostInvestmentMap = new TreeMap<>();
     this.rebalanceMap = new TreeMap<>();
+    this.positionIndex = new PositionIndex();
+    this.runningVolumeTree = new RunningVolumeTree();
 
     // using Tree map, so we can traverse through items in map in order of dates
     BigDecimal totalVolumeTest = new BigDecimal(0);
 
     for (var transaction : transactions) {
       totalVolumeTest = totalVolumeTest.add(transaction.getO2().getO1());
-
-      List<Triplet<BigDecimal, BigDecimal, BigDecimal>> currentDateTransactions;
-
-      if (transactionHistory.containsKey(transaction.getO1())) {
-        // transactions have already been done on this date
-        currentDateTransactions = this.transactionHistory.get(transaction.getO1());
-      } else {
-        // transaction haven't been done on this date before
-        currentDateTransactions = new ArrayList<>();
-      }
-      currentDateTransactions.add(
-          new Triplet<>(transaction.getO2().getO1(), transaction.getO2().getO2(),
-              transaction.getO2().getO3()));
-      transactionHistory.put(transaction.getO1(), currentDateTransactions);
+      TransactionLedger.validate(transaction.getO2().getO1(), transaction.getO2().getO2(),
+          transaction.getO2().getO3());
     }
 
     // validate whether totalVolume is correct
@@ -129,7 +161,14 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
           "The total volume does not match the transactions sum of volumes!");
     }
 
-    this.transactionsConsistencyCheck();
+    if (!this.tryAddVolumes(this.getVolumes(transactions))) {
+      throw this.negativeVolumeException();
+    }
+
+    for (var transaction : transactions) {
+      this.recordTransaction(transaction.getO1(), transaction.getO2().getO1(),
+          transaction.getO2().getO2(), transaction.getO2().getO3());
+    }
   }
 
   //</editor-fold>
@@ -137,22 +176,196 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
   //<editor-fold desc="Helper methods">
 
   /**
-   * Checks the consistency of the transactions for this stock.
+   * Gets the amount a transaction adds to the cost basis. Only purchases add their price to the
+   * cost basis, while commission fees are added for every transaction.
+   */
+  private static BigDecimal getCost(BigDecimal volume, BigDecimal purchasePrice,
+      BigDecimal commissionFees) {
+    return volume.compareTo(new BigDecimal(0)) > 0
+        ? purchasePrice.multiply(volume).add(commissionFees)
+        : new BigDecimal(0).add(commissionFees);
+  }
+
+  /**
+   * Adds the transaction to the position index. Once a position is too precise for the index, the
+   * positions are summed from the transaction history instead.
+   */
+  private void indexTransaction(Date date, BigDecimal volume, BigDecimal purchasePrice,
+      BigDecimal commissionFees) {
+    if (this.positionIndex == null) {
+      return;
+    }
+
+    try {
+      this.positionIndex.add(date, volume, getCost(volume, purchasePrice, commissionFees));
+    } catch (ArithmeticException e) {
+      this.positionIndex = null;
+    }
+  }
+
+  /**
+   * Adds the transaction to the transaction history and the position index, after the existing
+   * transactions on the same date.
+   */
+  private void recordTransaction(Date date, BigDecimal volume, BigDecimal purchasePrice,
+      BigDecimal commissionFees) {
+    this.transactionHistory.add(date, volume, purchasePrice, commissionFees);
+    this.indexTransaction(date, volume, purchasePrice, commissionFees);
+  }
+
+  /**
+   * Adds the volumes of new transactions to the running volume tree if the volume held stays
+   * non-negative at every point in time. Once a volume is too precise for the tree, the history is
+   * replayed instead.
+   */
+  private boolean tryAddVolumes(List<Pair<Date, BigDecimal>> volumes) {
+    if (this.runningVolumeTree != null) {
+      try {
+        return volumes.size() == 1
+            ? this.runningVolumeTree.tryAdd(volumes.get(0).getO1(), volumes.get(0).getO2())
+            : this.runningVolumeTree.tryAddAll(volumes);
+      } catch (ArithmeticException e) {
+        this.runningVolumeTree = null;
+      }
+    }
+
+    List<Pair<Date, BigDecimal>> batch = new ArrayList<>(volumes);
+    batch.sort(Comparator.comparing(Pair::getO1));
+
+    BigDecimal runningVolume = new BigDecimal(0);
+    int batchIndex = 0;
+    for (int i = 0; i <= this.transactionHistory.size(); i++) {
+      long time = i < this.transactionHistory.size()
+          ? this.transactionHistory.getTime(i) : Long.MAX_VALUE;
+
+      // the new transactions follow the existing ones on the same date
+      while (batchIndex < batch.size() && batch.get(batchIndex).getO1().getTime() < time) {
+        runningVolume = runningVolume.add(batch.get(batchIndex++).getO2());
+        if (runningVolume.signum() < 0) {
+          return false;
+        }
+      }
+
+      if (i < this.transactionHistory.size()) {
+        runningVolume = runningVolume.add(this.transactionHistory.getVolume(i));
+        if (runningVolume.signum() < 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the volume held at the end of the given date.
+   */
+  private BigDecimal getVolumeOn(Date date) {
+    PositionIndex index = this.positionIndex;
+    if (index != null) {
+      return index.getVolumeOn(date);
+    }
+
+    BigDecimal result = new BigDecimal(0);
+    for (int i = 0; i < this.transactionHistory.size()
+        && this.transactionHistory.getTime(i) <= date.getTime(); i++) {
+      result = result.add(this.transactionHistory.getVolume(i));
+    }
+    return result;
+  }
+
+  /**
+   * Gets the cost basis of the transactions made on or before the given date.
+   */
+  private BigDecimal getCostOn(Date date) {
+    PositionIndex index = this.positionIndex;
+    if (index != null) {
+      return index.getCostOn(date);
+    }
+
+    BigDecimal result = new BigDecimal(0);
+    for (int i = 0; i < this.transactionHistory.size()
+        && this.transactionHistory.getTime(i) <= date.getTime(); i++) {
+      result = result.add(getCost(this.transactionHistory.getVolume(i),
+          this.transactionHistory.getPrice(i), this.transactionHistory.getCommissionFees(i)));
+    }
+    return result;
+  }
+
+  private List<Pair<Date, BigDecimal>> getVolumes(
+      List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactions) {
+    List<Pair<Date, BigDecimal>> volumes = new ArrayList<>(transactions.size());
+    for (var transaction : transactions) {
+      volumes.add(new Pair<>(transaction.getO1(), transaction.getO2().getO1()));
+    }
+    return volumes;
+  }
+
+  /**
+   * Gets the cost basis of the future dollar cost investments made before the given date. The
+   * number of occurrences of recurring investments is counted arithmetically, and the result is
+   * cached until the dollar cost investments or the current day change.
    *
-   * @throws IllegalStateException when the consistency is not correct.
+   * @throws IllegalArgumentException when a recurring interval is not supported.
    */
-  private void transactionsConsistencyCheck() throws IllegalStateException {
-    BigDecimal availableVolume = new BigDecimal(0);
-    for (var transaction : this.transactionHistory.entrySet()) {
-      for (var dateTransaction : transaction.getValue()) {
-        availableVolume = availableVolume.add(dateTransaction.getO1());
-        if (availableVolume.floatValue() < 0) {
-          throw new IllegalStateException("The transaction on Symbol: " + this.getSymbol()
-              + " cannot be performed as stock volume cannot be negative at "
-              + "any given point in time!");
+  private BigDecimal getProjectedCostBasis(Date date) throws IllegalArgumentException {
+    int today = Utils.getTodayEpochDay();
+    ProjectedCostBasisCache cache = this.projectedCostBasisCache;
+    if (cache == null || cache.day != today) {
+      cache = new ProjectedCostBasisCache(today);
+      this.projectedCostBasisCache = cache;
+    }
+
+    BigDecimal cached = cache.costBasisByDate.get(date);
+    if (cached != null) {
+      return cached;
+    }
+
+    BigDecimal result = new BigDecimal(0);
+    for (IDollarCostInvestment dci : this.dollarCostInvestmentMap.values()) {
+      BigDecimal occurrenceCost = dci.getAmount().add(dci.getCommissionFees());
+
+      if (dci.getRecurringEvent() == null) {
+        if (dci.getDate().before(date)) {
+          result = result.add(occurrenceCost);
+        }
+      } else {
+        IRecurringEvent recurringEvent = dci.getRecurringEvent();
+        Date endDate = recurringEvent.getEndDate();
+        Date beforeDate = endDate != null && endDate.before(date) ? endDate : date;
+
+        try {
+          long occurrences = RecurringEvent.countOccurrences(Utils.getTodayDate(),
+              recurringEvent.getRecurringIntervalType(),
+              recurringEvent.getRecurringIntervalDelta(), beforeDate);
+          if (occurrences > 0) {
+            result = result.add(occurrenceCost.multiply(new BigDecimal(occurrences)));
+          }
+        } catch (NotImplementedException e) {
+          throw new IllegalArgumentException(e.getMessage());
         }
       }
     }
+
+    cache.costBasisByDate.put((Date) date.clone(), result);
+    return result;
+  }
+
+  private void scheduleDollarCostInvestment(IDollarCostInvestment dollarCostInvestment,
+      Date currentDate, Date todayDate) {
+    // only future dollar cost investments are stored in the map
+    if (currentDate.equals(todayDate) || currentDate.after(todayDate)) {
+      this.projectedCostBasisCache = null;
+      var newDollarCostInvestment = new DollarCostInvestment(currentDate,
+          dollarCostInvestment.getAmount(), dollarCostInvestment.getCommissionFees(),
+          dollarCostInvestment.getRecurringEvent());
+      this.dollarCostInvestmentMap.put(currentDate, newDollarCostInvestment);
+    }
+  }
+
+  private IllegalStateException negativeVolumeException() {
+    return new IllegalStateException("The transaction on Symbol: " + this.getSymbol()
+        + " cannot be performed as stock volume cannot be negative at "
+        + "any given point in time!");
   }
 
   //</editor-fold>
@@ -161,25 +374,40 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
 
   @Override
   public Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>> getFirstTransaction() {
-    var firstEntry =
-        this.transactionHistory.entrySet().stream().findFirst().get();
-    var firstDateEntry = firstEntry.getValue().stream().findFirst().get();
-    return new Pair<>(firstEntry.getKey(),
-        new Triplet<>(firstDateEntry.getO1(), firstDateEntry.getO2(), firstDateEntry.getO3()));
+    if (this.transactionHistory.size() == 0) {
+      throw new NoSuchElementException("No value present");
+    }
+    return this.transactionHistory.get(0);
   }
 
   @Override
   public List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> getTransactions() {
-    List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> result = new ArrayList<>();
+    return this.transactionHistory.toList();
+  }
 
-    for (var transaction : this.transactionHistory.entrySet()) {
-      for (var dateTransaction : transaction.getValue()) {
-        result.add(new Pair<>(transaction.getKey(),
-            new Triplet<>(dateTransaction.getO1(), dateTransaction.getO2(),
-                dateTransaction.getO3())));
-      }
-    }
-    return result;
+  @Override
+  public int getTransactionCount() {
+    return this.transactionHistory.size();
+  }
+
+  @Override
+  public long getTransactionTime(int index) {
+    return this.transactionHistory.getTime(index);
+  }
+
+  @Override
+  public BigDecimal getTransactionVolume(int index) {
+    return this.transactionHistory.getVolume(index);
+  }
+
+  @Override
+  public BigDecimal getTransactionPrice(int index) {
+    return this.transactionHistory.getPrice(index);
+  }
+
+  @Override
+  public BigDecimal getTransactionCommissionFees(int index) {
+    return this.transactionHistory.getCommissionFees(index);
   }
 
   @Override
@@ -191,74 +419,50 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
       throw new IllegalArgumentException("Volume for transaction cannot be 0!");
     }
 
-    // before incorporating given transaction
-    this.transactionsConsistencyCheck();
-
-    // check whether the current transaction can be incorporated
-    BigDecimal currentVolume = new BigDecimal(0);
-    boolean isGivenTransactionTaken = false;
-
-    for (var transaction : this.transactionHistory.entrySet()) {
-      if (!isGivenTransactionTaken && transaction.getKey().after(date)) {
-        // transaction is after the given date.
-        // take the given transaction
+    TransactionLedger.validate(volume, purchasePrice, commissionFees);
 
-        isGivenTransactionTaken = true;
-        currentVolume = currentVolume.add(volume);
-
-        if (currentVolume.floatValue() < 0) {
-          throw new IllegalStateException("The transaction on Symbol: " + this.getSymbol()
-              + " cannot be performed as stock volume cannot be negative "
-              + "at any given point in time!");
-        }
-      }
+    // the volume held before the date, and the lowest volume held after it, decide whether the
+    // transaction can be taken without replaying the history
+    if (!this.tryAddVolumes(List.of(new Pair<>(date, volume)))) {
+      throw this.negativeVolumeException();
+    }
 
-      for (var dateTransaction : transaction.getValue()) {
-        currentVolume = currentVolume.add(dateTransaction.getO1());
+    this.recordTransaction(date, volume, purchasePrice, commissionFees);
+    this.volume = this.volume.add(volume);
+  }
 
-        if (currentVolume.floatValue() < 0) {
-          throw new IllegalStateException("The transaction on Symbol: " + this.getSymbol()
-              + " cannot be performed as stock volume cannot be negative "
-              + "at any given point in time!");
-        }
+  @Override
+  public void addTransactions(
+      List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactions)
+      throws IllegalArgumentException, IllegalStateException {
+    for (var transaction : transactions) {
+      Utils.validateFutureDate(transaction.getO1());
+      if (transaction.getO2().getO1().equals(new BigDecimal(0))) {
+        throw new IllegalArgumentException("Volume for transaction cannot be 0!");
       }
+      TransactionLedger.validate(transaction.getO2().getO1(), transaction.getO2().getO2(),
+          transaction.getO2().getO3());
     }
 
-    // Incorporate given transaction as consistency is good after taking the transaction
-    List<Triplet<BigDecimal, BigDecimal, BigDecimal>> dateTransactions;
-    if (this.transactionHistory.containsKey(date)) {
-      // update existing entry if date already exists
-      dateTransactions = this.transactionHistory.get(date);
-    } else {
-      // create new entry in transaction list
-      dateTransactions = new ArrayList<>();
+    // the whole batch is validated in a single pass before any of it is recorded
+    if (!this.tryAddVolumes(this.getVolumes(transactions))) {
+      throw this.negativeVolumeException();
     }
-    dateTransactions.add(new Triplet<>(volume, purchasePrice, commissionFees));
-    this.transactionHistory.put(date, dateTransactions);
-
-    // after incorporating given transaction
-    this.transactionsConsistencyCheck();
 
-    this.volume = this.volume.add(volume);
+    for (var transaction : transactions) {
+      this.recordTransaction(transaction.getO1(), transaction.getO2().getO1(),
+          transaction.getO2().getO2(), transaction.getO2().getO3());
+      this.volume = this.volume.add(transaction.getO2().getO1());
+    }
   }
 
   @Override
   public Pair<BigDecimal, BigDecimal> getValueOnDate(IStockDataSource source, Date date)
       throws IllegalArgumentException, StockDataSourceException {
     Utils.validateFutureDate(date);
-    BigDecimal volumeOnDate = new BigDecimal(0);
-
-    for (var transaction : this.transactionHistory.entrySet()) {
-      if (transaction.getKey().after(date)) {
-        break;
-      }
-
-      for (var dateTransaction : transaction.getValue()) {
-        // value = price * volume
-        volumeOnDate = volumeOnDate.add(dateTransaction.getO1());
-      }
-    }
+    BigDecimal volumeOnDate = this.getVolumeOn(date);
 
+    // value = price * volume
     return new Pair<>(volumeOnDate,
         source.getStockPrice(this.getSymbol(), date, false).multiply(volumeOnDate));
   }
@@ -266,117 +470,45 @@ public class FlexiblePortfolioStock extends PortfolioStock implements IFlexibleP
   @Override
   public BigDecimal getCostBasis(IStockDataSource source, Date date)
       throws IllegalArgumentException, StockDataSourceException {
-    BigDecimal costBasisTotal = new BigDecimal(0);
-
     // adding cost basis from transactions before given date
-    for (var transaction : this.transactionHistory.entrySet()) {
-      if (transaction.getKey().after(date)) {
-        break;
-      }
-
-      BigDecimal totalPurchasePrice = new BigDecimal(0);
-      BigDecimal commissionFees = new BigDecimal(0);
-
-      for (var dateTransaction : transaction.getValue()) {
-        // take volume only if it was a buy transaction
-        if (dateTransaction.getO1().compareTo(new BigDecimal(0)) > 0) {
-          // purchase value = purchase price * volume
-          totalPurchasePrice = totalPurchasePrice
-              .add(dateTransaction.getO2().multiply(dateTransaction.getO1()));
-        }
-        commissionFees = commissionFees
-            .add(dateTransaction.getO3());
-      }
-
-      costBasisTotal = costBasisTotal
-          .add(totalPurchasePrice)
-          .add(commissionFees);
-    }
+    BigDecimal costBasisTotal = this.getCostOn(date);
 
     // adding values from dollar cost investments scheduled for future if date is in future
     if (Utils.isFutureDate(date)) {
-      for (var dollarCostInvestmentEntry : this.dollarCostInvestmentMap.entrySet()) {
-        IDollarCostInvestment dci = dollarCostInvestmentEntry.getValue();
-
-        if (dci.getRecurringEvent() == null) {
-          if (dci.getDate().before(date)) {
-            costBasisTotal = costBasisTotal
-                .add(dci.getAmount())
-                .add(dci.getCommissionFees());
-          }
-        } else {
-          Date currentDate = Utils.getTodayDate();
-
-          try {
-
-            while (currentDate.before(date)
-                && (dci.getRecurringEvent().getEndDate() == null
-                || currentDate.before(dci.getRecurringEvent().getEndDate()))) {
-              costBasisTotal = costBasisTotal
-                  .add(dci.getAmount())
-                  .add(dci.getCommissionFees());
-              currentDate = RecurringEvent.getNextDate(currentDate,
-                  dci.getRecurringEvent().getRecurringIntervalType(),
-                  dci.getRecurringEvent().getRecurringIntervalDelta());
-            }
-          } catch (NotImplementedException e) {
-            throw new IllegalArgumentException(e.getMessage());
-          }
-        }
-      }
+      costBasisTotal = costBasisTotal.add(this.getProjectedCostBasis(date));
     }
 
     return costBasisTotal;
   }
 
   @Override
-  public void addStockDollarCostInvestment(IStockDataSource source,
+  public List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>>
+      addStockDollarCostInvestment(IStockDataSource source,
       IDollarCostInvestment dollarCostInvestment)
       throws IllegalArgumentException, StockDataSourceException {
 
-    // add dollar cost investments in the past as transactions
-    Date currentDate = dollarCostInvestment.getDate();
-
-    Date dciEndDate = null;
-    boolean isRecurring = dollarCostInvestment.getRecurringEvent() != null;
-    if (isRecurring) {
-      dciEndDate = dollarCostInvestment.getRecurringEvent().getEndDate();
-    }
-
-    try {
-      while (currentDate.before(Utils.getTodayDate())
-          && (!isRecurring || dciEndDate == null || currentDate.equals(dciEndDate)
-          || currentDate.before(dciEndDate))) {
-        var purchasePrice =
-            source.getStockPrice(this.getSymbol(), currentDate, true);
-        var currentVolume = dollarCostInvestment.getAmount()
-            .divide(purchasePrice, 2, RoundingMode.UP);
-        this.addTransaction(currentDate, currentVolume, purchasePrice,
-            dollarCostInvestment.getCommissionFees());
-
-        if (!isRecurring) {
-          break;
-        }
-
-        currentDate = RecurringEvent.getNextDate(currentDate,
-            dollarCostInvestment.getRecurringEvent().getRecurringIntervalType(),
-            dollarCostInvestment.getRecurringEvent().getRecurringIntervalDelta());
-
+    // add dollar cost investments in the past as transactions, fetching their prices in one batch
+    var materialised = DollarCostEngine.materialise(source, this, dollarCostInvestment);
 
-      }
-    } catch (NotImplementedException e) {
-      throw new IllegalArgumentException(e.getMessage());
-    }
-
-    // only future dollar cost investments are stored in the map
-    Date todayDate = Utils.getTodayDate();
+    this.scheduleDollarCostInvestment(dollarCostInvestment, materialised.getO2(),
+        Utils.getTodayDate());
+    return materialised.getO1();
+  }
 
-    if (currentDate.equals(todayDate) || currentDate.after(todayDate)) {
-      var newDollarCostInvestment = new DollarCostInvestment(currentDate,
-          dollarCostInvestment.getAmount(), dollarCostInvestment.getCommissionFees(),
-          dollarCostInvestment.getRecurringEvent());
-      this.dollarCostInvestmentMap.put(currentDate, newDollarCostInvestment);
-    }
+  /**
+   * Schedules the occurrences of a dollar cost investment from the given day without adding any
+   * transactions, the same as {@code addStockDollarCostInvestment} did on that day. The past
+   * occurrences are expected to have been restored as transactions already.
+   *
+   * @param dollarCostInvestment the dollar cost investment.
+   * @param todayDate            the day on which the dollar cost investment was added.
+   * @throws IllegalArgumentException when the recurring interval type is not supported.
+   */
+  void restoreDollarCostInvestment(IDollarCostInvestment dollarCostInvestment, Date todayDate)
+      throws IllegalArgumentException {
+    Date currentDate = DollarCostEngine.getPastOccurrences(dollarCostInvestment, todayDate)
+        .getO2();
+    this.scheduleDollarCostInvestment(dollarCostInvestment, currentDate, todayDate);
   }
 
   @Override
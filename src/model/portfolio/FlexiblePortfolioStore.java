@@ -3,19 +3,31 @@ package model.portfolio;
 import common.Utils;
 import common.pair.Pair;
 import common.triplet.Triplet;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
+import model.store.IStore;
 
 /**
- * A store of flexible portfolios.
+ * A store of flexible portfolios. The portfolios can be kept in a journal, to which every change
+ * made to them is appended, so that they are restored when the store is opened again.
  */
 public class FlexiblePortfolioStore extends AbstractPortfolioStore<IFlexiblePortfolio> {
 
+  //<editor-fold desc="State variables">
+
+  // the journal of the portfolios, null when they are not journaled
+  private volatile PortfolioJournal journal;
+
+  //</editor-fold>
+
   //<editor-fold desc="Constructors">
 
   FlexiblePortfolioStore() throws NotImplementedException {
@@ -31,10 +43,136 @@ public class FlexiblePortfolioStore extends AbstractPortfolioStore<IFlexiblePort
     super(dataSource);
   }
 
+  /**
+   * Instantiates a store of flexible portfolios which keeps the flexible portfolios in the given store.
+   *
+   * @param dataSource the data source being used to validate stocks and fetch stock data.
+   * @param store      the empty store in which the flexible portfolios are kept.
+   */
+  public FlexiblePortfolioStore(IStockDataSource dataSource, IStore<IFlexiblePortfolio> store) {
+    super(dataSource, store);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private void validateJournaledItem(IFlexiblePortfolio item) throws IllegalArgumentException {
+    if (!(item instanceof FlexiblePortfolio)) {
+      throw new IllegalArgumentException("Only flexible portfolios can be journaled!");
+    }
+  }
+
+  /**
+   * Records the saved portfolio in the journal, and records the changes made to it from now on.
+   */
+  private void journal(PortfolioJournal journal, int id, IFlexiblePortfolio item) {
+    journal.recordPortfolio(id, item);
+    ((FlexiblePortfolio) item).setRecorder(journal.getRecorder(id));
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Journal methods">
+
+  /**
+   * Restores the portfolios from the journal in the given directory, and journals every change
+   * made to the portfolios of this store from now on. The journal is created if the directory has
+   * none. The prices the changes were made at are restored from the journal, so the stock data
+   * source is not used.
+   *
+   * @param directory the directory of the journal.
+   * @throws IOException           when the journal cannot be read or written, or is not valid.
+   * @throws IllegalStateException when the store already has portfolios or a journal.
+   */
+  public void openJournal(Path directory) throws IOException, IllegalStateException {
+    if (this.journal != null || this.getItemCount() > 0) {
+      throw new IllegalStateException(
+          "A journal can only be opened for an empty store without a journal!");
+    }
+
+    PortfolioJournal journal = new PortfolioJournal(directory, this::getAll);
+    List<IFlexiblePortfolio> portfolios = journal.open();
+    List<Integer> ids = super.saveAll(portfolios);
+
+    for (int i = 0; i < ids.size(); i++) {
+      ((FlexiblePortfolio) portfolios.get(i)).setRecorder(journal.getRecorder(ids.get(i)));
+    }
+    this.journal = journal;
+    journal.compactIfDue();
+  }
+
+  /**
+   * Writes the portfolios to a snapshot in the journal directory and starts the journal over. The
+   * journal is also compacted on its own once it holds more records than the snapshot.
+   *
+   * @throws IOException           when the snapshot or the journal cannot be written.
+   * @throws IllegalStateException when the store has no journal.
+   */
+  public void compactJournal() throws IOException, IllegalStateException {
+    if (this.journal == null) {
+      throw new IllegalStateException("The store has no journal!");
+    }
+    this.journal.compact();
+  }
+
+  /**
+   * Closes the journal of the store. Changes made to the portfolios afterwards are not journaled.
+   *
+   * @throws IOException when the journal cannot be closed.
+   */
+  public void closeJournal() throws IOException {
+    PortfolioJournal journal = this.journal;
+    if (journal == null) {
+      return;
+    }
+
+    synchronized (journal) {
+      this.journal = null;
+      this.forEach((portfolio, id) -> ((FlexiblePortfolio) portfolio).setRecorder(null));
+      journal.close();
+    }
+  }
+
   //</editor-fold>
 
   //<editor-fold desc="Core methods">
 
+  @Override
+  public int save(IFlexiblePortfolio item) throws IllegalArgumentException {
+    PortfolioJournal journal = this.journal;
+    if (journal == null) {
+      return super.save(item);
+    }
+
+    this.validateJournaledItem(item);
+    // the portfolio is saved and recorded together, so a snapshot has either both or neither
+    synchronized (journal) {
+      int id = super.save(item);
+      this.journal(journal, id, item);
+      return id;
+    }
+  }
+
+  @Override
+  public List<Integer> saveAll(List<IFlexiblePortfolio> items) throws IllegalArgumentException {
+    PortfolioJournal journal = this.journal;
+    if (journal == null) {
+      return super.saveAll(items);
+    }
+
+    for (IFlexiblePortfolio item : items) {
+      this.validateJournaledItem(item);
+    }
+    synchronized (journal) {
+      List<Integer> ids = super.saveAll(items);
+      for (int i = 0; i < ids.size(); i++) {
+        this.journal(journal, ids.get(i), items.get(i));
+      }
+      return ids;
+    }
+  }
+
   @Override
   public String getCsvRowHeaders() {
     return "PortfolioName,"
@@ -152,5 +290,97 @@ public class FlexiblePortfolioStore extends AbstractPortfolioStore<IFlexiblePort
     return portfoliosResult;
   }
 
+  @Override
+  byte getBinaryKind() {
+    return 'F';
+  }
+
+  @Override
+  void writeBinaryPortfolio(BinarySnapshotWriter writer, IFlexiblePortfolio portfolio) {
+    writer.writeString(portfolio.getName());
+
+    // the same as in the CSV export, only the transactions of the stocks are kept
+    List<IObservableFlexiblePortfolioStock> stocks = new ArrayList<>();
+    for (IObservableFlexiblePortfolioStock stock : portfolio.getStocks()) {
+      if (stock.getTransactionCount() > 0) {
+        stocks.add(stock);
+      }
+    }
+
+    writer.writeCount(stocks.size());
+    for (IObservableFlexiblePortfolioStock stock : stocks) {
+      writer.writeString(stock.getSymbol());
+      writer.writeString(stock.getName());
+      writer.writeString(stock.getExchange());
+
+      writer.writeCount(stock.getTransactionCount());
+      for (int i = 0; i < stock.getTransactionCount(); i++) {
+        writer.writeDate(new Date(stock.getTransactionTime(i)));
+        writer.writeDecimal(stock.getTransactionVolume(i));
+        writer.writeDecimal(stock.getTransactionPrice(i));
+        writer.writeDecimal(stock.getTransactionCommissionFees(i));
+      }
+    }
+  }
+
+  @Override
+  IFlexiblePortfolio readBinaryPortfolio(BinarySnapshotReader reader,
+      Set<List<String>> validatedStocks) throws IllegalArgumentException {
+    String name = reader.readString();
+    this.validateCsvRowName(name);
+    int today = Utils.getTodayEpochDay();
+
+    int stockCount = reader.readCount();
+    List<IFlexiblePortfolioStock> stocks = new ArrayList<>(stockCount);
+    for (int i = 0; i < stockCount; i++) {
+      String symbol = reader.readString();
+      String stockName = reader.readString();
+      String exchange = reader.readString();
+      this.validateBinaryStockData(validatedStocks, symbol, stockName, exchange);
+
+      int transactionCount = reader.readCount();
+      if (transactionCount == 0) {
+        throw new IllegalArgumentException(
+            "Invalid input: Portfolio stock needs to have at least one transaction!");
+      }
+
+      List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactions =
+          new ArrayList<>(transactionCount);
+      BigDecimal totalVolume = new BigDecimal(0);
+      for (int j = 0; j < transactionCount; j++) {
+        Date date = reader.readDate();
+        BigDecimal volume = reader.readDecimal();
+        BigDecimal purchasePrice = reader.readDecimal();
+        BigDecimal commissionFees = reader.readDecimal();
+
+        // compared by the day, as formatting and parsing each date would take most of the import
+        if (Utils.convertDateToCalendarEpochDay(date) > today) {
+          throw new IllegalArgumentException("Provided date: " + date
+              + " cannot be in the future!");
+        }
+        if (volume.signum() == 0) {
+          throw new IllegalArgumentException("Volume for transaction cannot be 0!");
+        }
+        Utils.validatePositiveValue(purchasePrice, "Purchase Price");
+        Utils.validateNonNegativeValue(commissionFees, "Commission Fees");
+        TransactionLedger.validate(volume, purchasePrice, commissionFees);
+
+        totalVolume = totalVolume.add(volume);
+        transactions.add(new Pair<>(date,
+            new Triplet<>(volume, purchasePrice, commissionFees)));
+      }
+
+      // the stock validates that its volume never becomes negative
+      FlexiblePortfolioStock stock = new FlexiblePortfolioStock(symbol, stockName, exchange,
+          totalVolume, transactions);
+      FlexiblePortfolio.validateIPODateAndDelistingDate(this.dataSource,
+          stock.getFirstTransaction().getO1(), symbol);
+      stocks.add(stock);
+    }
+
+    // unlike the CSV import, transactions which sell stocks are accepted
+    return new FlexiblePortfolio(name, stocks, Map.of());
+  }
+
   //</editor-fold>
 }
@@ -28,4 +28,26 @@ public interface IAbstractPortfolioStore<T extends IAbstractPortfolio> extends I
    *                     {@code OutputStream}.
    */
   void exportItemsToCsv(OutputStream outputStream) throws IOException;
+
+  /**
+   * Imports portfolios from a binary snapshot in the provided {@code InputStream} into the store.
+   *
+   * @param inputStream source for import of portfolios.
+   * @throws IOException              when an error occurs in the input/output operations with the
+   *                                  {@code InputStream}.
+   * @throws IllegalArgumentException when the snapshot or the portfolios in it are not valid.
+   * @throws InstantiationException   when the creation of the portfolio fails.
+   */
+  void importItemsFromBinary(InputStream inputStream)
+      throws IOException, IllegalArgumentException, InstantiationException;
+
+  /**
+   * Exports all available portfolios to the provided {@code OutputStream} as a binary snapshot,
+   * which is smaller than the CSV export and faster to import.
+   *
+   * @param outputStream destination for export of portfolios.
+   * @throws IOException when an error occurs in the input/output operations with the
+   *                     {@code OutputStream}.
+   */
+  void exportItemsToBinary(OutputStream outputStream) throws IOException;
 }
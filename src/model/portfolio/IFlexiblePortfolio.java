@@ -5,6 +5,7 @@ import common.triplet.Triplet;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import model.chart.IChart;
 import model.chart.IChartService;
 
@@ -78,6 +79,73 @@ public interface IFlexiblePortfolio extends IAbstractPortfolio {
   BigDecimal getCostBasis(IStockDataSource source, Date date)
       throws IllegalArgumentException, StockDataSourceException;
 
+  /**
+   * Gets the cost basis of the portfolio, computing the cost basis of the stocks on the given
+   * executor. The result is the same as that of {@code getCostBasis} without an executor.
+   *
+   * @param source   the data source which is to be used to fetch the values of the stocks.
+   * @param date     the date on which cost basis is to be calculated.
+   * @param executor the executor on which the stocks are processed concurrently, or null to
+   *                 process them one after another.
+   * @return the value of cost basis for the specified date.
+   * @throws IllegalArgumentException when provided date is not valid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  BigDecimal getCostBasis(IStockDataSource source, Date date, ExecutorService executor)
+      throws IllegalArgumentException, StockDataSourceException;
+
+  /**
+   * Gets the values of the portfolio and the value of the stocks on specified date, valuing the
+   * stocks on the given executor. The stocks are listed in the same order as by {@code getValue}
+   * without an executor, so a stock waiting on the data source does not hold up the others.
+   *
+   * @param source   the data source which is to be used to fetch the values of the stocks.
+   * @param date     the date for which the value of the stock is to be fetched.
+   * @param executor the executor on which the stocks are valued concurrently, or null to value
+   *                 them one after another.
+   * @return the total value of the portfolio on the specified date, and the value of each stock.
+   * @throws IllegalArgumentException when the provided input is invalid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  Pair<BigDecimal, List<IPortfolioStockValue>> getValue(IStockDataSource source, Date date,
+      ExecutorService executor) throws IllegalArgumentException, StockDataSourceException;
+
+  /**
+   * Gets the values of the portfolio and the value of the stocks from the prices of a snapshot.
+   *
+   * @param snapshot the prices of the stocks of the portfolio on the date of the valuation.
+   * @return the total value of the portfolio on the date of the snapshot, and the value of each
+   *     stock.
+   * @throws IllegalArgumentException when a stock of the portfolio is not in the snapshot.
+   * @throws StockDataSourceException when a price of the snapshot could not be resolved.
+   */
+  Pair<BigDecimal, List<IPortfolioStockValue>> getValue(PriceSnapshot snapshot)
+      throws IllegalArgumentException, StockDataSourceException;
+
+  /**
+   * Gets the cost basis of the portfolio on the date of a snapshot.
+   *
+   * @param snapshot the prices of the stocks of the portfolio on the date of the cost basis.
+   * @return the value of cost basis for the date of the snapshot.
+   * @throws IllegalArgumentException when the date of the snapshot is not valid.
+   * @throws StockDataSourceException when a price of the snapshot could not be resolved.
+   */
+  BigDecimal getCostBasis(PriceSnapshot snapshot)
+      throws IllegalArgumentException, StockDataSourceException;
+
+  /**
+   * Gets the total values of the portfolio on each of the specified dates. This is equivalent to
+   * calling {@code getValue} for each date, but values all dates in a single pass.
+   *
+   * @param source the data source which is to be used to fetch the values of the stocks.
+   * @param dates  the dates for which the value of the portfolio is to be fetched.
+   * @return the total value of the portfolio on each date, in the order of the provided dates.
+   * @throws IllegalArgumentException when a provided date is not valid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  List<BigDecimal> getValues(IStockDataSource source, List<Date> dates)
+      throws IllegalArgumentException, StockDataSourceException;
+
   /**
    * Gets the performance chart of the portfolio in the specified time window.
    *
@@ -140,6 +208,23 @@ public interface IFlexiblePortfolio extends IAbstractPortfolio {
                List<Pair<String, BigDecimal>> stocksWithPercentage)
           throws IllegalArgumentException, StockDataSourceException;
 
+  /**
+   * Rebalances this flexible portfolio on the date of a snapshot. The current values of the stocks
+   * and the prices of the purchases and sales are taken from the snapshot.
+   *
+   * @param source               the data source which is to be used for stocks not in the
+   *                             snapshot.
+   * @param snapshot             the prices of the stocks on the date of the rebalance.
+   * @param totalValue           the total value of the portfolio to be distributed.
+   * @param stocksWithPercentage a list of pairs containing a stock, and it's percentage weight.
+   * @return the portfolio with the new state.
+   * @throws IllegalArgumentException when stocks provided are invalid or not in the snapshot.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  IFlexiblePortfolio addRebalance(IStockDataSource source, PriceSnapshot snapshot,
+      BigDecimal totalValue, List<Pair<String, BigDecimal>> stocksWithPercentage)
+      throws IllegalArgumentException, StockDataSourceException;
+
   /**
    * Gets all the dollar cost investments scheduled for stocks of this flexible portfolio.
    *
@@ -1,5 +1,7 @@
 package model.portfolio;
 
+import common.pair.Pair;
+import common.triplet.Triplet;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
@@ -24,16 +26,32 @@ public interface IFlexiblePortfolioStock extends IObservableFlexiblePortfolioSto
       BigDecimal commissionFees)
       throws IllegalArgumentException;
 
+  /**
+   * Adds a batch of transactions for the stock in the portfolio. The batch is validated as a whole,
+   * so either all transactions are added or none of them are.
+   *
+   * @param transactions the date, volume, purchase price and commission fees of each transaction.
+   *                     Positive volume represents a 'buy' transaction and negative volume
+   *                     represents a 'sell' transaction.
+   * @throws IllegalArgumentException when a date or volume provided is not valid.
+   * @throws IllegalStateException    when the volume held would become negative at any point in
+   *                                  time.
+   */
+  void addTransactions(List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactions)
+      throws IllegalArgumentException, IllegalStateException;
+
   /**
    * Add a dollar cost investment for this flexible portfolio stock.
    *
    * @param source               the data source which is to be used to fetch the values of the
    *                             stocks.
    * @param dollarCostInvestment the dollar cost investment to be added.
+   * @return the past occurrences of the dollar cost investment which were added as transactions.
    * @throws IllegalArgumentException when the date provided is not valid.
    * @throws StockDataSourceException when an error occurs in the stock data source.
    */
-  void addStockDollarCostInvestment(IStockDataSource source,
+  List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> addStockDollarCostInvestment(
+      IStockDataSource source,
       IDollarCostInvestment dollarCostInvestment)
       throws IllegalArgumentException, StockDataSourceException;
 
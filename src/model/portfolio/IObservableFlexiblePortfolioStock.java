@@ -21,13 +21,53 @@ public interface IObservableFlexiblePortfolioStock extends IPortfolioStock {
   Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>> getFirstTransaction();
 
   /**
-   * Gets the transactions made on this stock in the portfolio.
+   * Gets the transactions made on this stock in the portfolio. The list is built on every call, so
+   * code walking the transactions often uses the indexed getters instead.
    *
    * @return a list of pairs containing the date and a pair of volume and commission fees of the
    *     transactions.
    */
   List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> getTransactions();
 
+  /**
+   * Gets the number of transactions made on this stock in the portfolio.
+   *
+   * @return the number of transactions.
+   */
+  int getTransactionCount();
+
+  /**
+   * Gets the time of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the date of the transaction in milliseconds since the epoch.
+   */
+  long getTransactionTime(int index);
+
+  /**
+   * Gets the volume of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the volume of the transaction, negative when selling.
+   */
+  BigDecimal getTransactionVolume(int index);
+
+  /**
+   * Gets the purchase price of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the price of the stock in the transaction.
+   */
+  BigDecimal getTransactionPrice(int index);
+
+  /**
+   * Gets the commission fees of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the commission fees of the transaction.
+   */
+  BigDecimal getTransactionCommissionFees(int index);
+
   /**
    * Gets the actual value on the given date for the portfolio stock.
    *
@@ -0,0 +1,56 @@
+package model.portfolio;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * This interface represents the receiver of the changes made to a single flexible portfolio. The
+ * changes are recorded after they were made, with the prices they were made at, so that they can
+ * be made again without the stock data source.
+ */
+interface IPortfolioRecorder {
+
+  /**
+   * Records a transaction which was added to a stock of the portfolio.
+   *
+   * @param stock          the stock to which the transaction was added.
+   * @param date           the date of the transaction.
+   * @param volume         the volume of the transaction, negative when selling.
+   * @param purchasePrice  the price of the stock in the transaction.
+   * @param commissionFees the commission fees of the transaction.
+   */
+  void recordTransaction(IStock stock, Date date, BigDecimal volume, BigDecimal purchasePrice,
+      BigDecimal commissionFees);
+
+  /**
+   * Records a dollar cost investment which was added to a stock of the portfolio. Its occurrences
+   * before the given day are recorded as transactions.
+   *
+   * @param stock                the stock to which the dollar cost investment was added.
+   * @param dollarCostInvestment the dollar cost investment.
+   * @param todayDate            the day on which the dollar cost investment was added.
+   */
+  void recordDollarCostInvestment(IStock stock, IDollarCostInvestment dollarCostInvestment,
+      Date todayDate);
+
+  /**
+   * Records the rebalance of a stock of the portfolio. The trades of the rebalance are recorded
+   * as transactions.
+   *
+   * @param symbol    the symbol of the stock.
+   * @param rebalance the rebalance.
+   */
+  void recordRebalance(String symbol, IRebalance rebalance);
+
+  /**
+   * Marks the start of a change to the portfolio. The records of the change are only restored if
+   * the change is committed.
+   */
+  void begin();
+
+  /**
+   * Marks the end of a change to the portfolio. Every change made so far has been recorded, and is
+   * kept even if the application or the system stops right after.
+   */
+  void commit();
+}
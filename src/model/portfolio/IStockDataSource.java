@@ -1,7 +1,10 @@
 package model.portfolio;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 /**
  * This interface represents a stock data source. Any implementation of an external source must
@@ -48,4 +51,47 @@ public interface IStockDataSource {
    */
   BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
       throws StockDataSourceException;
+
+  /**
+   * Gets the prices of the stock on each of the specified dates. Data sources backed by a remote
+   * service should fetch the history of the stock at most once for all the dates.
+   *
+   * @param symbol          The symbol of the stock using which the stock is traded.
+   * @param dates           the dates on which the price of stock has to be retrieved.
+   * @param takeFuturePrice a flag to indicate to the data source to take future price instead of
+   *                        past price if requested date's price is not available.
+   * @return the values of the stock on the specified dates, in the order of the dates.
+   * @throws StockDataSourceException when an error occurred in the stock data source.
+   */
+  default List<BigDecimal> getStockPrices(String symbol, List<Date> dates,
+      boolean takeFuturePrice) throws StockDataSourceException {
+    List<BigDecimal> result = new ArrayList<>();
+    for (Date date : dates) {
+      result.add(this.getStockPrice(symbol, date, takeFuturePrice));
+    }
+    return result;
+  }
+
+  /**
+   * Makes the price data of the given stocks available ahead of price requests which a user is
+   * waiting on, such as valuing a portfolio or trading. Data sources backed by a remote service
+   * should fetch all the missing stocks concurrently, ahead of work done in the background. Does
+   * nothing by default.
+   *
+   * @param symbols The symbols of the stocks using which the stocks are traded.
+   * @throws StockDataSourceException when an error occurred in the stock data source.
+   */
+  default void prefetch(Collection<String> symbols) throws StockDataSourceException {
+    // data sources without a remote service have nothing to prefetch
+  }
+
+  /**
+   * Gets the days on which the stocks of this data source are traded. Data sources with a price
+   * history should refine the default calendar with the trading days of the history.
+   *
+   * @return the trading calendar.
+   */
+  default TradingCalendar getTradingCalendar() {
+    return TradingCalendar.getDefault();
+  }
 }
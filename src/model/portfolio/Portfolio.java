@@ -7,6 +7,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
 
 /**
@@ -75,6 +76,10 @@ public class Portfolio extends AbstractPortfolio implements IPortfolio {
     BigDecimal resultPortfolioValue = new BigDecimal("0");
     boolean resultPortfolioValueUntouched = true;
 
+    // fetch the prices of all stocks at once instead of one stock at a time
+    source.prefetch(this.stocks.stream().map(IPortfolioStock::getSymbol)
+        .collect(Collectors.toList()));
+
     List<IPortfolioStockValue> result = new ArrayList<>();
     for (IPortfolioStock stock : this.getStocks()) {
       IPortfolioStockValue stockValue = new PortfolioStockValue(source, date, stock);
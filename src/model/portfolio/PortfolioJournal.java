@@ -0,0 +1,675 @@
+package model.portfolio;
+
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * An append-only journal of the flexible portfolios in a store. Every portfolio creation,
+ * transaction, dollar cost investment and rebalance is appended to the journal file as one record.
+ * The records of one change to a portfolio, such as a purchase of several stocks or a rebalance,
+ * are enclosed in begin and commit records, and the journal is synced to the disk at every commit,
+ * so no committed change is lost when the application or the system stops. Records of a change
+ * without a commit record are not replayed. Once the journal holds more records than the
+ * portfolios themselves, the portfolios are written to a compacted snapshot file and the journal
+ * is started over, so replaying both files on startup stays proportional to the size of the
+ * portfolios.
+ *
+ * <p>Records are lines of tab separated fields, and hold the prices the changes were made at, so
+ * replaying them does not use the stock data source. The snapshot names the generation of the
+ * journal it includes, so a journal which was not yet started over when the application stopped
+ * is not replayed twice. Changes to the portfolios are expected to be made from one thread at a
+ * time.
+ */
+class PortfolioJournal {
+
+  //<editor-fold desc="Constants">
+
+  static final String JOURNAL_FILE_NAME = "flexible-portfolios.journal";
+  static final String SNAPSHOT_FILE_NAME = "flexible-portfolios.snapshot";
+
+  /**
+   * The number of journal records below which the journal is never compacted.
+   */
+  static final int MIN_COMPACTION_RECORD_COUNT = 10000;
+
+  private static final String GENERATION = "G";
+  private static final String PORTFOLIO = "P";
+  private static final String TRANSACTION = "T";
+  private static final String DOLLAR_COST_INVESTMENT = "D";
+  private static final String REBALANCE = "R";
+  private static final String BEGIN = "B";
+  private static final String COMMIT = "C";
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final Path journalFile;
+  private final Path snapshotFile;
+
+  // the portfolios of the store by their ids, written to the snapshot on compaction
+  private final Supplier<List<Pair<Integer, IFlexiblePortfolio>>> portfolios;
+
+  private FileChannel channel;
+  private Writer writer;
+  private long generation;
+  private int journalRecordCount;
+  private int snapshotRecordCount;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Inner classes">
+
+  /**
+   * The recorded state of a portfolio which is being replayed.
+   */
+  private static class ReplayedPortfolio {
+
+    private final String name;
+    private final Map<String, ReplayedStock> stocks = new LinkedHashMap<>();
+    private final Map<String, IRebalance> rebalanceMap = new LinkedHashMap<>();
+
+    private ReplayedPortfolio(String name) {
+      this.name = name;
+    }
+
+    private ReplayedStock getStock(String symbol, String name, String exchange) {
+      return this.stocks.computeIfAbsent(symbol, s -> new ReplayedStock(s, name, exchange));
+    }
+
+    private IFlexiblePortfolio toPortfolio() {
+      List<IFlexiblePortfolioStock> result = new ArrayList<>();
+      for (ReplayedStock stock : this.stocks.values()) {
+        result.add(stock.toStock());
+      }
+      return new FlexiblePortfolio(this.name, result, this.rebalanceMap);
+    }
+  }
+
+  /**
+   * The recorded state of a stock which is being replayed.
+   */
+  private static class ReplayedStock {
+
+    private final String symbol;
+    private final String name;
+    private final String exchange;
+    private final List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> transactions =
+        new ArrayList<>();
+    private final List<Pair<IDollarCostInvestment, Date>> dollarCostInvestments =
+        new ArrayList<>();
+
+    private ReplayedStock(String symbol, String name, String exchange) {
+      this.symbol = symbol;
+      this.name = name;
+      this.exchange = exchange;
+    }
+
+    private FlexiblePortfolioStock toStock() {
+      BigDecimal totalVolume = new BigDecimal(0);
+      for (var transaction : this.transactions) {
+        totalVolume = totalVolume.add(transaction.getO2().getO1());
+      }
+
+      FlexiblePortfolioStock stock = new FlexiblePortfolioStock(this.symbol, this.name,
+          this.exchange, totalVolume, this.transactions);
+      for (var dollarCostInvestment : this.dollarCostInvestments) {
+        stock.restoreDollarCostInvestment(dollarCostInvestment.getO1(),
+            dollarCostInvestment.getO2());
+      }
+      return stock;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates a journal in the given directory. Nothing is read or written until it is opened.
+   *
+   * @param directory  the directory of the journal and snapshot files.
+   * @param portfolios gets the portfolios of the store by their ids.
+   */
+  PortfolioJournal(Path directory, Supplier<List<Pair<Integer, IFlexiblePortfolio>>> portfolios) {
+    this.journalFile = directory.resolve(JOURNAL_FILE_NAME);
+    this.snapshotFile = directory.resolve(SNAPSHOT_FILE_NAME);
+    this.portfolios = portfolios;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private static String escape(String field) {
+    return field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n")
+        .replace("\r", "\\r");
+  }
+
+  private static String unescape(String field) {
+    if (field.indexOf('\\') < 0) {
+      return field;
+    }
+
+    StringBuilder result = new StringBuilder(field.length());
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if (c == '\\' && i + 1 < field.length()) {
+        char escaped = field.charAt(++i);
+        result.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r'
+            : escaped);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  private static String toField(Date date) {
+    return date == null ? "" : Long.toString(date.getTime());
+  }
+
+  private static Date toDate(String field) {
+    return field.isEmpty() ? null : new Date(Long.parseLong(field));
+  }
+
+  private static void writeRecord(Writer writer, Object... fields) throws IOException {
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) {
+        writer.write('\t');
+      }
+      writer.write(escape(String.valueOf(fields[i])));
+    }
+    writer.write('\n');
+  }
+
+  private static void writeTransaction(Writer writer, int id, IStock stock, long time,
+      BigDecimal volume, BigDecimal purchasePrice, BigDecimal commissionFees) throws IOException {
+    writeRecord(writer, TRANSACTION, id, stock.getSymbol(), stock.getName(), stock.getExchange(),
+        time, volume, purchasePrice, commissionFees);
+  }
+
+  private static void writeDollarCostInvestment(Writer writer, int id, IStock stock,
+      IDollarCostInvestment dollarCostInvestment, Date todayDate) throws IOException {
+    IRecurringEvent recurringEvent = dollarCostInvestment.getRecurringEvent();
+    writeRecord(writer, DOLLAR_COST_INVESTMENT, id, stock.getSymbol(), stock.getName(),
+        stock.getExchange(), toField(dollarCostInvestment.getDate()),
+        dollarCostInvestment.getAmount(), dollarCostInvestment.getCommissionFees(),
+        recurringEvent == null ? "" : recurringEvent.getRecurringIntervalType().name(),
+        recurringEvent == null ? "" : recurringEvent.getRecurringIntervalDelta(),
+        recurringEvent == null ? "" : toField(recurringEvent.getEndDate()),
+        toField(todayDate));
+  }
+
+  private static void writeRebalance(Writer writer, int id, String symbol, IRebalance rebalance)
+      throws IOException {
+    writeRecord(writer, REBALANCE, id, symbol, toField(rebalance.getDate()),
+        rebalance.getAmount(), rebalance.getWeight());
+  }
+
+  /**
+   * Writes all records of the portfolio as it is now.
+   *
+   * @return the number of records written.
+   */
+  private static int writePortfolio(Writer writer, int id, IFlexiblePortfolio portfolio)
+      throws IOException {
+    int count = 1;
+    writeRecord(writer, PORTFOLIO, id, portfolio.getName());
+
+    for (IObservableFlexiblePortfolioStock stock : portfolio.getStocks()) {
+      for (int i = 0; i < stock.getTransactionCount(); i++) {
+        writeTransaction(writer, id, stock, stock.getTransactionTime(i),
+            stock.getTransactionVolume(i), stock.getTransactionPrice(i),
+            stock.getTransactionCommissionFees(i));
+        count++;
+      }
+      // a scheduled dollar cost investment has no occurrences before its own date
+      for (IDollarCostInvestment dollarCostInvestment : stock.getDollarCostInvestments()) {
+        writeDollarCostInvestment(writer, id, stock, dollarCostInvestment,
+            dollarCostInvestment.getDate());
+        count++;
+      }
+    }
+
+    for (var rebalance : portfolio.getRebalanceData()) {
+      if (rebalance.getO2() != null) {
+        writeRebalance(writer, id, rebalance.getO1(), rebalance.getO2());
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  private static ReplayedPortfolio getReplayedPortfolio(
+      Map<Integer, ReplayedPortfolio> replayed, String id) throws IOException {
+    ReplayedPortfolio portfolio = replayed.get(Integer.parseInt(id));
+    if (portfolio == null) {
+      throw new IOException("The journal has a record of portfolio " + id
+          + " before the portfolio was created!");
+    }
+    return portfolio;
+  }
+
+  private static void replayRecord(Map<Integer, ReplayedPortfolio> replayed, String[] fields)
+      throws IOException, IllegalArgumentException {
+    switch (fields[0]) {
+      case PORTFOLIO:
+        replayed.put(Integer.parseInt(fields[1]), new ReplayedPortfolio(fields[2]));
+        break;
+      case TRANSACTION:
+        getReplayedPortfolio(replayed, fields[1]).getStock(fields[2], fields[3], fields[4])
+            .transactions.add(new Pair<>(toDate(fields[5]), new Triplet<>(
+                new BigDecimal(fields[6]), new BigDecimal(fields[7]), new BigDecimal(fields[8]))));
+        break;
+      case DOLLAR_COST_INVESTMENT:
+        IRecurringEvent recurringEvent = fields[8].isEmpty() ? null
+            : new RecurringEvent(toDate(fields[10]), eRecurringIntervalType.valueOf(fields[8]),
+                Integer.parseInt(fields[9]));
+        getReplayedPortfolio(replayed, fields[1]).getStock(fields[2], fields[3], fields[4])
+            .dollarCostInvestments.add(new Pair<>(new DollarCostInvestment(toDate(fields[5]),
+                new BigDecimal(fields[6]), new BigDecimal(fields[7]), recurringEvent),
+                toDate(fields[11])));
+        break;
+      case REBALANCE:
+        getReplayedPortfolio(replayed, fields[1]).rebalanceMap.put(fields[2],
+            new Rebalance(toDate(fields[3]), new BigDecimal(fields[4]), new BigDecimal(fields[5])));
+        break;
+      default:
+        throw new IOException("The journal has an unknown record: " + fields[0] + "!");
+    }
+  }
+
+  private static void replayRecord(Path file, Map<Integer, ReplayedPortfolio> replayed,
+      String[] fields) throws IOException {
+    try {
+      replayRecord(replayed, fields);
+    } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("The file " + file + " has an invalid record: "
+          + String.join("\t", fields), e);
+    }
+  }
+
+  /**
+   * Replays the records of the file after its generation record. The records of a change are
+   * replayed once its commit record is read, and dropped if the file has no commit record for
+   * them. Records outside of a change are replayed as they are read.
+   *
+   * @return the generation of the file, and the number of records replayed.
+   */
+  private static Pair<Long, Integer> replayFile(Path file,
+      Map<Integer, ReplayedPortfolio> replayed, long skippedGeneration) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line = reader.readLine();
+      if (line == null) {
+        return new Pair<>(0L, 0);
+      }
+
+      String[] header = line.split("\t", -1);
+      if (!header[0].equals(GENERATION) || header.length != 2) {
+        throw new IOException("The file " + file + " does not start with its generation!");
+      }
+      long generation = Long.parseLong(header[1]);
+      if (generation <= skippedGeneration) {
+        // the records of this generation are already part of the snapshot
+        return new Pair<>(generation, 0);
+      }
+
+      // the records of the uncommitted change of each portfolio
+      Map<Integer, List<String[]>> changes = new HashMap<>();
+      int count = 0;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+          fields[i] = unescape(fields[i]);
+        }
+
+        int id;
+        try {
+          id = Integer.parseInt(fields[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+          throw new IOException("The file " + file + " has an invalid record: " + line, e);
+        }
+
+        if (fields[0].equals(BEGIN)) {
+          // a change which was begun again was never committed
+          changes.put(id, new ArrayList<>());
+        } else if (fields[0].equals(COMMIT)) {
+          List<String[]> change = changes.remove(id);
+          if (change != null) {
+            for (String[] record : change) {
+              replayRecord(file, replayed, record);
+            }
+            count += change.size();
+          }
+        } else if (changes.containsKey(id)) {
+          changes.get(id).add(fields);
+        } else {
+          replayRecord(file, replayed, fields);
+          count++;
+        }
+      }
+      return new Pair<>(generation, count);
+    }
+  }
+
+  /**
+   * Drops the last record of the journal if it was not written completely, so that the records
+   * appended from now on start on a new line.
+   */
+  private static void truncateIncompleteRecord(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer lastByte = ByteBuffer.allocate(1);
+      long end = channel.size();
+      while (end > 0) {
+        lastByte.clear();
+        channel.read(lastByte, end - 1);
+        if (lastByte.get(0) == '\n') {
+          break;
+        }
+        end--;
+      }
+      channel.truncate(end);
+    }
+  }
+
+  /**
+   * Starts a new journal file with the given generation in place of the current one.
+   */
+  private void startJournal(long generation) throws IOException {
+    if (this.writer != null) {
+      this.writer.close();
+    }
+
+    Path temporaryFile = this.journalFile.resolveSibling(JOURNAL_FILE_NAME + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Writer journal = newWriter(channel)) {
+      writeRecord(journal, GENERATION, generation);
+      journal.flush();
+      channel.force(false);
+    }
+    Files.move(temporaryFile, this.journalFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    this.openWriter(generation);
+    this.journalRecordCount = 0;
+  }
+
+  private static Writer newWriter(FileChannel channel) {
+    return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+  }
+
+  private void openWriter(long generation) throws IOException {
+    this.channel = FileChannel.open(this.journalFile, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    this.writer = newWriter(this.channel);
+    this.generation = generation;
+  }
+
+  private IllegalStateException journalException(IOException e) {
+    return new IllegalStateException("The change could not be written to the journal!", e);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Replays the snapshot and the journal, and opens the journal for the records of new changes.
+   *
+   * @return the replayed portfolios in the order of their ids.
+   * @throws IOException when the files cannot be read or written, or hold an invalid record.
+   */
+  synchronized List<IFlexiblePortfolio> open() throws IOException {
+    Files.createDirectories(this.journalFile.getParent());
+    Map<Integer, ReplayedPortfolio> replayed = new TreeMap<>();
+
+    long snapshotGeneration = 0;
+    this.snapshotRecordCount = 0;
+    if (Files.exists(this.snapshotFile)) {
+      var snapshot = replayFile(this.snapshotFile, replayed, -1);
+      snapshotGeneration = snapshot.getO1();
+      this.snapshotRecordCount = snapshot.getO2();
+    }
+
+    Pair<Long, Integer> journal = new Pair<>(0L, 0);
+    if (Files.exists(this.journalFile)) {
+      truncateIncompleteRecord(this.journalFile);
+      journal = replayFile(this.journalFile, replayed, snapshotGeneration);
+    }
+
+    List<IFlexiblePortfolio> result = new ArrayList<>(replayed.size());
+    for (var portfolio : replayed.entrySet()) {
+      if (portfolio.getKey() != result.size()) {
+        throw new IOException("The journal has no record of portfolio " + result.size() + "!");
+      }
+      try {
+        result.add(portfolio.getValue().toPortfolio());
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        throw new IOException("The journal of portfolio " + portfolio.getKey()
+            + " is not valid: " + e.getMessage(), e);
+      }
+    }
+
+    if (journal.getO1() > snapshotGeneration) {
+      this.openWriter(journal.getO1());
+      this.journalRecordCount = journal.getO2();
+    } else {
+      this.startJournal(snapshotGeneration + 1);
+    }
+
+    return result;
+  }
+
+  /**
+   * Records a portfolio which was saved to the store, with all of its current state, as one
+   * committed change.
+   *
+   * @param id        the id of the portfolio in the store.
+   * @param portfolio the portfolio.
+   * @throws IllegalStateException when the record could not be written.
+   */
+  synchronized void recordPortfolio(int id, IFlexiblePortfolio portfolio)
+      throws IllegalStateException {
+    try {
+      writeRecord(this.writer, BEGIN, id);
+      this.journalRecordCount += writePortfolio(this.writer, id, portfolio);
+      this.writeCommit(id);
+    } catch (IOException e) {
+      throw this.journalException(e);
+    }
+  }
+
+  /**
+   * Writes the commit record of the change to the portfolio, and syncs the journal to the disk.
+   */
+  private void writeCommit(int id) throws IOException {
+    writeRecord(this.writer, COMMIT, id);
+    this.writer.flush();
+    this.channel.force(false);
+  }
+
+  /**
+   * Gets the receiver of the changes made to the portfolio with the given id. Each change is
+   * appended to the journal as it is recorded, and is synced to the disk when it is committed. The
+   * begin record of a change is only written with its first record, so a change which records
+   * nothing leaves no trace in the journal.
+   *
+   * @param id the id of the portfolio in the store.
+   * @return the receiver of the changes made to the portfolio.
+   */
+  IPortfolioRecorder getRecorder(int id) {
+    PortfolioJournal journal = this;
+
+    return new IPortfolioRecorder() {
+      private boolean isBegun;
+      private boolean isRecorded;
+
+      private void beforeRecord() throws IOException {
+        if (this.isBegun && !this.isRecorded) {
+          writeRecord(journal.writer, BEGIN, id);
+        }
+        this.isRecorded = true;
+        journal.journalRecordCount++;
+      }
+
+      @Override
+      public void begin() {
+        synchronized (journal) {
+          this.isBegun = true;
+        }
+      }
+
+      @Override
+      public void recordTransaction(IStock stock, Date date, BigDecimal volume,
+          BigDecimal purchasePrice, BigDecimal commissionFees) {
+        synchronized (journal) {
+          try {
+            this.beforeRecord();
+            writeTransaction(journal.writer, id, stock, date.getTime(), volume, purchasePrice,
+                commissionFees);
+          } catch (IOException e) {
+            throw journal.journalException(e);
+          }
+        }
+      }
+
+      @Override
+      public void recordDollarCostInvestment(IStock stock,
+          IDollarCostInvestment dollarCostInvestment, Date todayDate) {
+        synchronized (journal) {
+          try {
+            this.beforeRecord();
+            writeDollarCostInvestment(journal.writer, id, stock, dollarCostInvestment, todayDate);
+          } catch (IOException e) {
+            throw journal.journalException(e);
+          }
+        }
+      }
+
+      @Override
+      public void recordRebalance(String symbol, IRebalance rebalance) {
+        synchronized (journal) {
+          try {
+            this.beforeRecord();
+            writeRebalance(journal.writer, id, symbol, rebalance);
+          } catch (IOException e) {
+            throw journal.journalException(e);
+          }
+        }
+      }
+
+      @Override
+      public void commit() {
+        synchronized (journal) {
+          try {
+            if (this.isRecorded) {
+              journal.writeCommit(id);
+            }
+          } catch (IOException e) {
+            throw journal.journalException(e);
+          } finally {
+            this.isBegun = false;
+            this.isRecorded = false;
+          }
+          journal.compactIfDue();
+        }
+      }
+    };
+  }
+
+  /**
+   * Compacts the journal if it holds more records than the last snapshot, and at least
+   * {@code MIN_COMPACTION_RECORD_COUNT} of them.
+   *
+   * @throws IllegalStateException when the snapshot could not be written.
+   */
+  synchronized void compactIfDue() throws IllegalStateException {
+    if (this.journalRecordCount < Math.max(MIN_COMPACTION_RECORD_COUNT, this.snapshotRecordCount)) {
+      return;
+    }
+
+    try {
+      this.compact();
+    } catch (IOException e) {
+      throw new IllegalStateException("The journal could not be compacted!", e);
+    }
+  }
+
+  /**
+   * Writes the portfolios of the store to a new snapshot, which includes the current journal, and
+   * starts the journal over.
+   *
+   * @throws IOException when the snapshot or the journal cannot be written.
+   */
+  synchronized void compact() throws IOException {
+    Path temporaryFile = this.snapshotFile.resolveSibling(SNAPSHOT_FILE_NAME + ".tmp");
+    int count = 0;
+
+    try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Writer snapshot = newWriter(channel)) {
+      writeRecord(snapshot, GENERATION, this.generation);
+      for (var portfolio : this.portfolios.get()) {
+        count += writePortfolio(snapshot, portfolio.getO1(), portfolio.getO2());
+      }
+      snapshot.flush();
+      channel.force(false);
+    }
+
+    // once the snapshot is in place the current journal generation is never replayed again
+    Files.move(temporaryFile, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    this.snapshotRecordCount = count;
+
+    this.startJournal(this.generation + 1);
+  }
+
+  /**
+   * Gets the number of records appended to the journal since it was last started over.
+   *
+   * @return the number of records in the journal.
+   */
+  synchronized int getJournalRecordCount() {
+    return this.journalRecordCount;
+  }
+
+  /**
+   * Closes the journal file. No more changes can be recorded.
+   *
+   * @throws IOException when the journal file cannot be closed.
+   */
+  synchronized void close() throws IOException {
+    if (this.writer != null) {
+      this.writer.close();
+      this.writer = null;
+      this.channel = null;
+    }
+  }
+
+  //</editor-fold>
+}
@@ -6,8 +6,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
 import model.portfolio.Portfolio.PortfolioImplBuilder;
+import model.store.IStore;
 
 /**
  * A store of portfolios.
@@ -29,6 +31,16 @@ public class PortfolioStore extends AbstractPortfolioStore<IPortfolio> {
     super(dataSource);
   }
 
+  /**
+   * Instantiates a store of portfolios which keeps the portfolios in the given store.
+   *
+   * @param dataSource the data source being used to validate stocks and fetch stock data.
+   * @param store      the empty store in which the portfolios are kept.
+   */
+  public PortfolioStore(IStockDataSource dataSource, IStore<IPortfolio> store) {
+    super(dataSource, store);
+  }
+
   //</editor-fold>
 
   //<editor-fold desc="Differential methods">
@@ -102,5 +114,44 @@ public class PortfolioStore extends AbstractPortfolioStore<IPortfolio> {
     return portfoliosResult;
   }
 
+  @Override
+  byte getBinaryKind() {
+    return 'P';
+  }
+
+  @Override
+  void writeBinaryPortfolio(BinarySnapshotWriter writer, IPortfolio portfolio) {
+    writer.writeString(portfolio.getName());
+
+    writer.writeCount(portfolio.getStocks().size());
+    for (IPortfolioStock stock : portfolio.getStocks()) {
+      writer.writeString(stock.getSymbol());
+      writer.writeString(stock.getName());
+      writer.writeString(stock.getExchange());
+      writer.writeDecimal(stock.getVolume());
+    }
+  }
+
+  @Override
+  IPortfolio readBinaryPortfolio(BinarySnapshotReader reader, Set<List<String>> validatedStocks)
+      throws IllegalArgumentException, InstantiationException {
+    String name = reader.readString();
+    this.validateCsvRowName(name);
+
+    int stockCount = reader.readCount();
+    List<Pair<String, BigDecimal>> stocks = new ArrayList<>(stockCount);
+    for (int i = 0; i < stockCount; i++) {
+      String symbol = reader.readString();
+      String stockName = reader.readString();
+      String exchange = reader.readString();
+      BigDecimal volume = reader.readDecimal();
+
+      this.validateBinaryStockData(validatedStocks, symbol, stockName, exchange);
+      stocks.add(new Pair<>(symbol, volume));
+    }
+
+    return Portfolio.getBuilder().setName(name).addStocks(this.dataSource, stocks).create();
+  }
+
   //</editor-fold>
 }
@@ -0,0 +1,83 @@
+package model.portfolio;
+
+import common.Utils;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Values flexible portfolio stocks on many dates in a single sweep. The dates are visited in order
+ * while the transactions of each stock are walked alongside them, so the volume held is advanced
+ * incrementally instead of being summed from the first transaction for every date, and the prices
+ * of each stock are fetched in one batch.
+ */
+class PortfolioValueSweep {
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Gets the total value of the stocks on each of the given dates. The value on a date is the same
+   * as the sum of {@code getValueOnDate} of the stocks on that date.
+   *
+   * @param source the data source which is to be used to fetch the values of the stocks.
+   * @param stocks the stocks to be valued.
+   * @param dates  the dates on which the stocks are valued, in any order.
+   * @return the total value of the stocks on each date, in the order of the given dates.
+   * @throws IllegalArgumentException when a date is not valid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  static List<BigDecimal> getValues(IStockDataSource source,
+      List<? extends IObservableFlexiblePortfolioStock> stocks, List<Date> dates)
+      throws IllegalArgumentException, StockDataSourceException {
+    for (Date date : dates) {
+      Utils.validateFutureDate(date);
+    }
+
+    // the dates are swept in order, remembering where each value goes in the result
+    Integer[] order = new Integer[dates.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing(dates::get));
+
+    List<Date> sortedDates = new ArrayList<>(order.length);
+    for (int index : order) {
+      sortedDates.add(dates.get(index));
+    }
+
+    BigDecimal[] totals = new BigDecimal[order.length];
+    Arrays.fill(totals, new BigDecimal(0));
+
+    source.prefetch(stocks.stream().map(IStock::getSymbol).collect(Collectors.toList()));
+
+    for (IObservableFlexiblePortfolioStock stock : stocks) {
+      List<BigDecimal> prices = source.getStockPrices(stock.getSymbol(), sortedDates, false);
+      int transactionCount = stock.getTransactionCount();
+
+      int transactionIndex = 0;
+      BigDecimal volume = new BigDecimal(0);
+
+      for (int i = 0; i < sortedDates.size(); i++) {
+        long time = sortedDates.get(i).getTime();
+
+        // advance past the transactions made on or before this date
+        while (transactionIndex < transactionCount
+            && stock.getTransactionTime(transactionIndex) <= time) {
+          volume = volume.add(stock.getTransactionVolume(transactionIndex));
+          transactionIndex++;
+        }
+
+        // value = price * volume
+        totals[order[i]] = totals[order[i]].add(prices.get(i).multiply(volume));
+      }
+    }
+
+    return Arrays.asList(totals);
+  }
+
+  //</editor-fold>
+}
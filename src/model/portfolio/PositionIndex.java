@@ -0,0 +1,194 @@
+package model.portfolio;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A cumulative index of the transactions of a stock. For every date with transactions the index
+ * holds the volume held and the cost basis at the end of that date, so that the position on any
+ * date is found with a binary search instead of summing all earlier transactions. The positions
+ * are fixed-point numbers like the columns of {@code TransactionLedger}, each with the scale a
+ * {@code BigDecimal} sum of the same transactions would have.
+ */
+class PositionIndex {
+
+  //<editor-fold desc="State variables">
+
+  private long[] times;
+  private long[] cumulativeVolumes;
+  private long[] cumulativeCosts;
+  private byte[] volumeScales;
+  private byte[] costScales;
+  private int size;
+
+  // the sums of the absolute values added, at the largest scale added, bound every position, so
+  // a transaction that could overflow is refused before the index is changed
+  private long volumeBound;
+  private int volumeBoundScale;
+  private long costBound;
+  private int costBoundScale;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates an empty position index.
+   */
+  PositionIndex() {
+    this.times = new long[8];
+    this.cumulativeVolumes = new long[8];
+    this.cumulativeCosts = new long[8];
+    this.volumeScales = new byte[8];
+    this.costScales = new byte[8];
+    this.size = 0;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  /**
+   * Finds the position of the given time in the index.
+   *
+   * @param time the time in milliseconds.
+   * @return the position of the time, or {@code -(insertion point) - 1} if not in the index.
+   */
+  private int search(long time) {
+    // transactions are usually added in order, so the last date is checked first
+    if (this.size > 0 && this.times[this.size - 1] == time) {
+      return this.size - 1;
+    }
+    if (this.size == 0 || this.times[this.size - 1] < time) {
+      return -this.size - 1;
+    }
+    return Arrays.binarySearch(this.times, 0, this.size, time);
+  }
+
+  private void insert(int position, long time) {
+    if (this.size == this.times.length) {
+      int capacity = this.times.length * 2;
+      this.times = Arrays.copyOf(this.times, capacity);
+      this.cumulativeVolumes = Arrays.copyOf(this.cumulativeVolumes, capacity);
+      this.cumulativeCosts = Arrays.copyOf(this.cumulativeCosts, capacity);
+      this.volumeScales = Arrays.copyOf(this.volumeScales, capacity);
+      this.costScales = Arrays.copyOf(this.costScales, capacity);
+    }
+
+    int moved = this.size - position;
+    System.arraycopy(this.times, position, this.times, position + 1, moved);
+    System.arraycopy(this.cumulativeVolumes, position, this.cumulativeVolumes, position + 1, moved);
+    System.arraycopy(this.cumulativeCosts, position, this.cumulativeCosts, position + 1, moved);
+    System.arraycopy(this.volumeScales, position, this.volumeScales, position + 1, moved);
+    System.arraycopy(this.costScales, position, this.costScales, position + 1, moved);
+
+    // a new date starts from the position of the date before it
+    boolean isFirst = position == 0;
+    this.times[position] = time;
+    this.cumulativeVolumes[position] = isFirst ? 0 : this.cumulativeVolumes[position - 1];
+    this.cumulativeCosts[position] = isFirst ? 0 : this.cumulativeCosts[position - 1];
+    this.volumeScales[position] = isFirst ? 0 : this.volumeScales[position - 1];
+    this.costScales[position] = isFirst ? 0 : this.costScales[position - 1];
+    this.size++;
+  }
+
+  /**
+   * Adds a value to the positions from the given one on. The scale of each position becomes the
+   * larger of its scale and the scale of the value, as in {@code BigDecimal.add}.
+   */
+  private void addFrom(int position, long[] values, byte[] scales, long value, int scale) {
+    for (int i = position; i < this.size; i++) {
+      int newScale = Math.max(scales[i], scale);
+      values[i] = FixedPoint.rescale(values[i], scales[i], newScale)
+          + FixedPoint.rescale(value, scale, newScale);
+      scales[i] = (byte) newScale;
+    }
+  }
+
+  /**
+   * Gets the bound of a column once a value is added.
+   */
+  private static long addToBound(long bound, int boundScale, long value, int scale)
+      throws ArithmeticException {
+    int newScale = Math.max(boundScale, scale);
+    return Math.addExact(FixedPoint.rescale(bound, boundScale, newScale),
+        Math.abs(FixedPoint.rescale(value, scale, newScale)));
+  }
+
+  /**
+   * Finds the last position on or before the given date.
+   *
+   * @param date the date.
+   * @return the position, or -1 if the date is before the first transaction.
+   */
+  private int floor(Date date) {
+    int position = this.search(date.getTime());
+    return position >= 0 ? position : -position - 2;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Adds a transaction to the index. Adding a transaction on or after the last date takes constant
+   * time, an earlier transaction updates the positions of all later dates.
+   *
+   * @param date   the date of the transaction.
+   * @param volume the volume of the transaction, negative when selling.
+   * @param cost   the amount the transaction adds to the cost basis.
+   * @throws ArithmeticException when the positions could not be held exactly, in which case the
+   *                             index is left unchanged.
+   */
+  void add(Date date, BigDecimal volume, BigDecimal cost) throws ArithmeticException {
+    long volumeValue = FixedPoint.unscaled(volume);
+    long costValue = FixedPoint.unscaled(cost);
+    long volumeBound = addToBound(this.volumeBound, this.volumeBoundScale, volumeValue,
+        volume.scale());
+    long costBound = addToBound(this.costBound, this.costBoundScale, costValue, cost.scale());
+
+    this.volumeBound = volumeBound;
+    this.volumeBoundScale = Math.max(this.volumeBoundScale, volume.scale());
+    this.costBound = costBound;
+    this.costBoundScale = Math.max(this.costBoundScale, cost.scale());
+
+    long time = date.getTime();
+    int position = this.search(time);
+
+    if (position < 0) {
+      position = -position - 1;
+      this.insert(position, time);
+    }
+
+    this.addFrom(position, this.cumulativeVolumes, this.volumeScales, volumeValue,
+        volume.scale());
+    this.addFrom(position, this.cumulativeCosts, this.costScales, costValue, cost.scale());
+  }
+
+  /**
+   * Gets the volume held at the end of the given date.
+   *
+   * @param date the date.
+   * @return the volume held.
+   */
+  BigDecimal getVolumeOn(Date date) {
+    int position = this.floor(date);
+    return position < 0 ? new BigDecimal(0)
+        : BigDecimal.valueOf(this.cumulativeVolumes[position], this.volumeScales[position]);
+  }
+
+  /**
+   * Gets the cost basis of the transactions made on or before the given date.
+   *
+   * @param date the date.
+   * @return the cost basis.
+   */
+  BigDecimal getCostOn(Date date) {
+    int position = this.floor(date);
+    return position < 0 ? new BigDecimal(0)
+        : BigDecimal.valueOf(this.cumulativeCosts[position], this.costScales[position]);
+  }
+
+  //</editor-fold>
+}
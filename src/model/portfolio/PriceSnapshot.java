@@ -0,0 +1,159 @@
+package model.portfolio;
+
+import common.Utils;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The closing prices of a set of stocks on a single date. The date is validated and every price is
+ * resolved from the stock data source once, when the snapshot is taken, so everything computed
+ * from one snapshot is based on the same prices. A snapshot cannot be modified.
+ */
+public final class PriceSnapshot {
+
+  //<editor-fold desc="State variables">
+
+  private final Date date;
+  private final Map<String, BigDecimal> prices;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  private PriceSnapshot(Date date, Map<String, BigDecimal> prices) {
+    this.date = date;
+    this.prices = Collections.unmodifiableMap(prices);
+  }
+
+  /**
+   * Takes a snapshot of the prices of the given stocks on the given date.
+   *
+   * @param source  the data source which is to be used to fetch the prices of the stocks.
+   * @param date    the date of the prices.
+   * @param symbols the symbols of the stocks. Repeated symbols are resolved once.
+   * @return the snapshot of the prices.
+   * @throws IllegalArgumentException when the date or a symbol is not valid.
+   * @throws StockDataSourceException when an error occurs in the stock data source.
+   */
+  public static PriceSnapshot of(IStockDataSource source, Date date, Collection<String> symbols)
+      throws IllegalArgumentException, StockDataSourceException {
+    Utils.validateFutureDate(date);
+
+    // fetch the prices of all stocks at once instead of one stock at a time
+    source.prefetch(symbols);
+
+    Map<String, BigDecimal> prices = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      if (!prices.containsKey(symbol)) {
+        prices.put(symbol, source.getStockPrice(symbol, date, false));
+      }
+    }
+
+    return new PriceSnapshot((Date) date.clone(), prices);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Gets the date of the prices in this snapshot.
+   *
+   * @return the date of the prices.
+   */
+  public Date getDate() {
+    return (Date) this.date.clone();
+  }
+
+  /**
+   * Gets the symbols of the stocks in this snapshot.
+   *
+   * @return the symbols of the stocks, in the order they were given.
+   */
+  public Set<String> getSymbols() {
+    return this.prices.keySet();
+  }
+
+  /**
+   * Gets the price of a stock in this snapshot.
+   *
+   * @param symbol the symbol of the stock.
+   * @return the closing price of the stock on the date of the snapshot.
+   * @throws IllegalArgumentException when the stock is not in this snapshot.
+   */
+  public BigDecimal getPrice(String symbol) throws IllegalArgumentException {
+    BigDecimal price = this.prices.get(symbol);
+    if (price == null) {
+      throw new IllegalArgumentException(
+          "The price of stock symbol: " + symbol + " is not in the snapshot!");
+    }
+    return price;
+  }
+
+  /**
+   * Gets a data source which answers the prices of this snapshot from the snapshot, and everything
+   * else from the given data source.
+   *
+   * @param source the data source for everything not in this snapshot, or null if only the prices
+   *               in this snapshot may be asked for.
+   * @return the data source.
+   */
+  IStockDataSource over(IStockDataSource source) {
+    PriceSnapshot snapshot = this;
+
+    return new IStockDataSource() {
+      private IStockDataSource fallback(String symbol) throws IllegalArgumentException {
+        if (source == null) {
+          throw new IllegalArgumentException(
+              "The price of stock symbol: " + symbol + " is not in the snapshot!");
+        }
+        return source;
+      }
+
+      @Override
+      public IStock getStock(String symbol) throws IllegalArgumentException {
+        return this.fallback(symbol).getStock(symbol);
+      }
+
+      @Override
+      public Date getIPODate(String symbol) throws IllegalArgumentException {
+        return this.fallback(symbol).getIPODate(symbol);
+      }
+
+      @Override
+      public Date getDelistingDate(String symbol) {
+        return this.fallback(symbol).getDelistingDate(symbol);
+      }
+
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        if (!takeFuturePrice && snapshot.date.equals(date)
+            && snapshot.prices.containsKey(symbol)) {
+          return snapshot.prices.get(symbol);
+        }
+        return this.fallback(symbol).getStockPrice(symbol, date, takeFuturePrice);
+      }
+
+      @Override
+      public TradingCalendar getTradingCalendar() {
+        return source == null ? TradingCalendar.getDefault() : source.getTradingCalendar();
+      }
+
+      @Override
+      public void prefetch(Collection<String> symbols) throws StockDataSourceException {
+        // the prices of the snapshot were resolved when it was taken
+        if (source != null) {
+          source.prefetch(symbols);
+        }
+      }
+    };
+  }
+
+  //</editor-fold>
+}
@@ -1,7 +1,11 @@
 package model.portfolio;
 
 import common.Utils;
+import java.math.BigInteger;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
 import java.util.Date;
 import jdk.jshell.spi.ExecutionControl.NotImplementedException;
 
@@ -80,6 +84,210 @@ public class RecurringEvent implements IRecurringEvent {
     return Utils.convertLocalDateToDate(resultLocalDate);
   }
 
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      long remainder = a % b;
+      a = b;
+      b = remainder;
+    }
+    return a;
+  }
+
+  /**
+   * Finds the smallest positive number of steps after which the steps add up to the target
+   * modulo the modulus.
+   *
+   * @return the number of steps, or -1 if no number of steps reaches the target.
+   */
+  private static long solveSteps(long step, long target, long modulus) {
+    long divisor = gcd(Math.floorMod(step, modulus), modulus);
+    target = Math.floorMod(target, modulus);
+    if (target % divisor != 0) {
+      return -1;
+    }
+
+    long reducedModulus = modulus / divisor;
+    if (reducedModulus == 1) {
+      return 1;
+    }
+    long inverse = BigInteger.valueOf(Math.floorMod(step / divisor, reducedModulus))
+        .modInverse(BigInteger.valueOf(reducedModulus)).longValue();
+    long steps = Math.floorMod(target / divisor * inverse, reducedModulus);
+    return steps == 0 ? reducedModulus : steps;
+  }
+
+  /**
+   * Checks whether any of the years in an arithmetic progression is not a leap year.
+   *
+   * @param firstYear the first year.
+   * @param yearStep  the number of years between two years of the progression.
+   * @param count     the number of years in the progression.
+   * @return whether a year of the progression is not a leap year.
+   */
+  private static boolean hasCommonYear(long firstYear, long yearStep, long count) {
+    if (count <= 0) {
+      return false;
+    }
+    if (!Year.isLeap(firstYear)) {
+      return true;
+    }
+    if (count == 1) {
+      return false;
+    }
+    if (yearStep % 4 != 0) {
+      // the second year is not divisible by 4
+      return true;
+    }
+
+    // every year is divisible by 4, so only the centuries not divisible by 400 are common years
+    for (long century = 100; century < 400; century += 100) {
+      long steps = solveSteps(yearStep, century - firstYear, 400);
+      if (steps > 0 && steps < count) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the length of the shortest of the months which are 1 to the given number of intervals
+   * after the start month.
+   *
+   * @param startMonth    the start month.
+   * @param intervalDelta the number of months of an interval.
+   * @param count         the number of intervals.
+   * @return the length of the shortest month, or 31 if there are no months.
+   */
+  private static int getShortestMonthLength(YearMonth startMonth, int intervalDelta, long count) {
+    long startIndex = startMonth.getYear() * 12L + startMonth.getMonthValue() - 1;
+    // the months of the year repeat after this many intervals
+    long cycle = 12 / gcd(intervalDelta, 12);
+
+    int shortest = 31;
+    for (long i = 1; i <= Math.min(count, cycle); i++) {
+      long index = startIndex + i * intervalDelta;
+      Month month = Month.of((int) Math.floorMod(index, 12L) + 1);
+
+      if (month == Month.FEBRUARY) {
+        // the same February comes around once per cycle, a fixed number of years later
+        long februaries = (count - i) / cycle + 1;
+        boolean isCommonYear = hasCommonYear(Math.floorDiv(index, 12L),
+            cycle * intervalDelta / 12, februaries);
+        shortest = Math.min(shortest, isCommonYear ? 28 : 29);
+      } else {
+        shortest = Math.min(shortest, month.length(false));
+      }
+    }
+    return shortest;
+  }
+
+  /**
+   * Gets the date of an occurrence of a recurring event, the same as calling {@code getNextDate}
+   * the given number of times starting from the first occurrence. Days which do not exist in a
+   * month are clamped by every step, so the day of the month is carried from the shortest month
+   * on the way instead of the first occurrence. The shortest month is found from the months of the
+   * year the occurrences fall in and the leap years among them, without visiting every occurrence.
+   *
+   * @param startDate     the date of the first occurrence.
+   * @param intervalType  the interval type of the recurring event.
+   * @param intervalDelta the interval delta of the recurring event.
+   * @param occurrence    the number of the occurrence, 0 being the first occurrence.
+   * @return the date of the occurrence.
+   * @throws NotImplementedException if an interval type is provided which is not supported.
+   *                                 Supported interval types include yearly, monthly, daily.
+   */
+  static Date getOccurrenceDate(Date startDate, eRecurringIntervalType intervalType,
+      Integer intervalDelta, long occurrence) throws NotImplementedException {
+    if (occurrence == 0) {
+      return startDate;
+    }
+
+    LocalDate startLocalDate = Utils.convertDateToLocalDate(startDate);
+    int dayOfMonth = startLocalDate.getDayOfMonth();
+    LocalDate resultLocalDate;
+
+    switch (intervalType) {
+      case YEARLY:
+        // only the 29th of February is clamped, by the first year that is not a leap year
+        if (startLocalDate.getMonthValue() == 2 && dayOfMonth == 29
+            && hasCommonYear(startLocalDate.getYear() + (long) intervalDelta, intervalDelta,
+            occurrence)) {
+          dayOfMonth = 28;
+        }
+        resultLocalDate = startLocalDate.withDayOfMonth(1)
+            .plusYears(occurrence * intervalDelta)
+            .withDayOfMonth(dayOfMonth);
+        break;
+      case MONTHLY:
+        YearMonth startMonth = YearMonth.from(startLocalDate);
+        if (dayOfMonth > 28) {
+          dayOfMonth = Math.min(dayOfMonth,
+              getShortestMonthLength(startMonth, intervalDelta, occurrence));
+        }
+        resultLocalDate = startMonth.plusMonths(occurrence * intervalDelta)
+            .atDay(dayOfMonth);
+        break;
+      case DAILY:
+        resultLocalDate = startLocalDate.plusDays(occurrence * intervalDelta);
+        break;
+      default:
+        throw new NotImplementedException("This interval Type is not implemented!");
+    }
+
+    return Utils.convertLocalDateToDate(resultLocalDate);
+  }
+
+  /**
+   * Counts the occurrences of a recurring event before the given date, without stepping through
+   * them one by one. The last occurrence in the year, month or day of the given date follows from
+   * the number of intervals between the dates, and only that occurrence can fall on or after the
+   * date.
+   *
+   * @param startDate     the date of the first occurrence.
+   * @param intervalType  the interval type of the recurring event.
+   * @param intervalDelta the interval delta of the recurring event.
+   * @param beforeDate    the date before which the occurrences are counted.
+   * @return the number of occurrences before the given date.
+   * @throws IllegalArgumentException if the interval delta is not positive.
+   * @throws NotImplementedException  if an interval type is provided which is not supported.
+   *                                  Supported interval types include yearly, monthly, daily.
+   */
+  static long countOccurrences(Date startDate, eRecurringIntervalType intervalType,
+      Integer intervalDelta, Date beforeDate)
+      throws IllegalArgumentException, NotImplementedException {
+    if (intervalDelta <= 0) {
+      throw new IllegalArgumentException("recurringIntervalDelta has to be positive!");
+    }
+
+    if (!startDate.before(beforeDate)) {
+      return 0;
+    }
+
+    LocalDate startLocalDate = Utils.convertDateToLocalDate(startDate);
+    LocalDate beforeLocalDate = Utils.convertDateToLocalDate(beforeDate);
+
+    // the last occurrence in the same year, month or day as the date, or before it
+    long last;
+    switch (intervalType) {
+      case YEARLY:
+        last = (beforeLocalDate.getYear() - startLocalDate.getYear()) / intervalDelta;
+        break;
+      case MONTHLY:
+        last = (beforeLocalDate.getYear() * 12L + beforeLocalDate.getMonthValue()
+            - startLocalDate.getYear() * 12L - startLocalDate.getMonthValue()) / intervalDelta;
+        break;
+      case DAILY:
+        last = (beforeLocalDate.toEpochDay() - startLocalDate.toEpochDay()) / intervalDelta;
+        break;
+      default:
+        throw new NotImplementedException("This interval Type is not implemented!");
+    }
+
+    // every earlier occurrence is in an earlier year, month or day, so it is before the date
+    return getOccurrenceDate(startDate, intervalType, intervalDelta, last).before(beforeDate)
+        ? last + 1 : last;
+  }
+
   //</editor-fold>
 
   //<editor-fold desc="Core methods">
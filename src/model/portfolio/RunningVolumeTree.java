@@ -0,0 +1,305 @@
+package model.portfolio;
+
+import common.pair.Pair;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Validates that the volume held of a stock never becomes negative. The transaction volumes are
+ * kept in a balanced search tree ordered by date, where every subtree knows the sum of its volumes
+ * and the minimum running volume within it. Whether a transaction can be added is then decided
+ * from the volume held before its date and the minimum running volume after it, in logarithmic
+ * time instead of replaying the whole history. The volumes are unscaled {@code long} values at a
+ * scale shared by the whole tree, which is raised when a more precise volume is added.
+ */
+class RunningVolumeTree {
+
+  //<editor-fold desc="Inner classes">
+
+  /**
+   * A date with transactions. Transactions on the same date are ordered by insertion.
+   */
+  private static class Node {
+
+    private final long time;
+    private final int priority;
+    private Node left;
+    private Node right;
+
+    // total volume of the date, and the lowest running volume within the date
+    private long volume;
+    private long minRunningVolume;
+
+    // the same for the whole subtree, in the order of the dates
+    private long subtreeVolume;
+    private long subtreeMinRunningVolume;
+
+    private Node(long time, long volume) {
+      this.time = time;
+      this.priority = ThreadLocalRandom.current().nextInt();
+      this.volume = volume;
+      this.minRunningVolume = volume;
+      this.update();
+    }
+
+    private void update() {
+      long leftVolume = this.left == null ? 0 : this.left.subtreeVolume;
+      long min = leftVolume + this.minRunningVolume;
+      if (this.left != null) {
+        min = Math.min(min, this.left.subtreeMinRunningVolume);
+      }
+
+      long volume = leftVolume + this.volume;
+      if (this.right != null) {
+        min = Math.min(min, volume + this.right.subtreeMinRunningVolume);
+        volume += this.right.subtreeVolume;
+      }
+
+      this.subtreeVolume = volume;
+      this.subtreeMinRunningVolume = min;
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private Node root;
+  private int scale;
+
+  // the sum of the absolute values of all volumes offered to the tree, at its scale, bounds every
+  // running volume, so a volume that could overflow is refused before the tree is changed
+  private long bound;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Tree helpers">
+
+  /**
+   * Splits the tree into the dates before the given time and the dates on or after it.
+   */
+  private static Node[] split(Node node, long time) {
+    if (node == null) {
+      return new Node[]{null, null};
+    }
+
+    if (node.time < time) {
+      Node[] parts = split(node.right, time);
+      node.right = parts[0];
+      node.update();
+      return new Node[]{node, parts[1]};
+    } else {
+      Node[] parts = split(node.left, time);
+      node.left = parts[1];
+      node.update();
+      return new Node[]{parts[0], node};
+    }
+  }
+
+  /**
+   * Merges two trees where all dates of the first are before the dates of the second.
+   */
+  private static Node merge(Node first, Node second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+
+    if (first.priority > second.priority) {
+      first.right = merge(first.right, second);
+      first.update();
+      return first;
+    } else {
+      second.left = merge(first, second.left);
+      second.update();
+      return second;
+    }
+  }
+
+  /**
+   * Adds the volume to the node of the date, creating it if the date has no transactions yet.
+   */
+  private static Node add(Node on, long time, long volume) {
+    if (on == null) {
+      return new Node(time, volume);
+    }
+
+    on.minRunningVolume = Math.min(on.minRunningVolume, on.volume + volume);
+    on.volume += volume;
+    on.update();
+    return on;
+  }
+
+  /**
+   * Multiplies all volumes of the subtree by the given power of ten.
+   */
+  private static void rescale(Node node, int scale, int newScale) {
+    if (node == null) {
+      return;
+    }
+
+    node.volume = FixedPoint.rescale(node.volume, scale, newScale);
+    node.minRunningVolume = FixedPoint.rescale(node.minRunningVolume, scale, newScale);
+    node.subtreeVolume = FixedPoint.rescale(node.subtreeVolume, scale, newScale);
+    node.subtreeMinRunningVolume =
+        FixedPoint.rescale(node.subtreeMinRunningVolume, scale, newScale);
+    rescale(node.left, scale, newScale);
+    rescale(node.right, scale, newScale);
+  }
+
+  /**
+   * Converts volumes to the scale of the tree, raising the scale of the tree when a volume is more
+   * precise than the others.
+   *
+   * @param volumes the volumes.
+   * @return the unscaled volumes at the scale of the tree.
+   * @throws ArithmeticException when the volumes could not be held with those in the tree, in
+   *                             which case the tree is left unchanged.
+   */
+  private long[] toScale(List<BigDecimal> volumes) throws ArithmeticException {
+    long[] values = new long[volumes.size()];
+    int newScale = this.scale;
+    for (int i = 0; i < values.length; i++) {
+      values[i] = FixedPoint.unscaled(volumes.get(i));
+      newScale = Math.max(newScale, volumes.get(i).scale());
+    }
+
+    long bound = FixedPoint.rescale(this.bound, this.scale, newScale);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = FixedPoint.rescale(values[i], volumes.get(i).scale(), newScale);
+      bound = Math.addExact(bound, Math.abs(values[i]));
+    }
+
+    // the bound holds every volume of the tree at the new scale, so none of them can overflow
+    if (newScale > this.scale) {
+      rescale(this.root, this.scale, newScale);
+      this.scale = newScale;
+    }
+    this.bound = bound;
+    return values;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Adds a transaction if the volume held stays non-negative at every point in time. The
+   * transaction is placed after the existing transactions on the same date.
+   *
+   * @param date   the date of the transaction.
+   * @param volume the volume of the transaction, negative when selling.
+   * @return whether the transaction was added.
+   * @throws ArithmeticException when the volume could not be held with those in the tree, in
+   *                             which case the tree is left unchanged.
+   */
+  boolean tryAdd(Date date, BigDecimal volume) throws ArithmeticException {
+    long value = this.toScale(List.of(volume))[0];
+    long time = date.getTime();
+    Node[] beforeAndRest = split(this.root, time);
+    Node[] onAndAfter = split(beforeAndRest[1], time + 1);
+
+    Node before = beforeAndRest[0];
+    Node on = onAndAfter[0];
+    Node after = onAndAfter[1];
+
+    long volumeBefore = before == null ? 0 : before.subtreeVolume;
+    long volumeOnDate = on == null ? 0 : on.volume;
+    long volumeAfterTransaction = volumeBefore + volumeOnDate + value;
+
+    // earlier dates are unaffected, the transaction itself and every later date are shifted by it
+    boolean isValid = volumeAfterTransaction >= 0
+        && (after == null || volumeAfterTransaction + after.subtreeMinRunningVolume >= 0);
+
+    if (isValid) {
+      on = add(on, time, value);
+    }
+
+    this.root = merge(merge(before, on), after);
+    return isValid;
+  }
+
+  /**
+   * Adds a batch of transactions if the volume held stays non-negative at every point in time
+   * once all of them are added. The batch is validated in a single pass over the existing dates
+   * and nothing is added if it is not valid. Transactions in the batch on the same date keep their
+   * order and are placed after the existing transactions on that date.
+   *
+   * @param transactions the dates and volumes of the transactions.
+   * @return whether the transactions were added.
+   * @throws ArithmeticException when the volumes could not be held with those in the tree, in
+   *                             which case the tree is left unchanged.
+   */
+  boolean tryAddAll(List<Pair<Date, BigDecimal>> transactions) throws ArithmeticException {
+    List<Pair<Date, BigDecimal>> batch = new ArrayList<>(transactions);
+    // the sort is stable, so transactions on the same date keep their order
+    batch.sort(Comparator.comparing(Pair::getO1));
+
+    List<BigDecimal> volumes = new ArrayList<>(batch.size());
+    for (Pair<Date, BigDecimal> transaction : batch) {
+      volumes.add(transaction.getO2());
+    }
+    long[] values = this.toScale(volumes);
+
+    // walk the existing dates in order alongside the batch
+    Deque<Node> stack = new ArrayDeque<>();
+    Node node = this.root;
+    int batchIndex = 0;
+    long runningVolume = 0;
+
+    while (node != null || !stack.isEmpty() || batchIndex < batch.size()) {
+      while (node != null) {
+        stack.push(node);
+        node = node.left;
+      }
+
+      Node next = stack.peek();
+      long batchTime = batchIndex < batch.size()
+          ? batch.get(batchIndex).getO1().getTime() : Long.MAX_VALUE;
+
+      if (next != null && next.time <= batchTime) {
+        stack.pop();
+        if (runningVolume + next.minRunningVolume < 0) {
+          return false;
+        }
+        runningVolume += next.volume;
+        node = next.right;
+
+        // the batch transactions on this date follow the existing ones
+        while (batchIndex < batch.size()
+            && batch.get(batchIndex).getO1().getTime() == next.time) {
+          runningVolume += values[batchIndex++];
+          if (runningVolume < 0) {
+            return false;
+          }
+        }
+      } else {
+        runningVolume += values[batchIndex++];
+        if (runningVolume < 0) {
+          return false;
+        }
+      }
+    }
+
+    // only the final history is valid, so the transactions are added without checking each
+    for (int i = 0; i < batch.size(); i++) {
+      long time = batch.get(i).getO1().getTime();
+      Node[] beforeAndRest = split(this.root, time);
+      Node[] onAndAfter = split(beforeAndRest[1], time + 1);
+
+      this.root = merge(merge(beforeAndRest[0], add(onAndAfter[0], time, values[i])),
+          onAndAfter[1]);
+    }
+    return true;
+  }
+
+  //</editor-fold>
+}
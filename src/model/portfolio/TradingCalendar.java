@@ -0,0 +1,273 @@
+package model.portfolio;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+
+/**
+ * The days on which the stock exchange is open, identified by the number of days since
+ * 1970-01-01. Weekends and the regular holidays of the New York Stock Exchange are closed. A
+ * calendar can be refined with the trading days of a downloaded price series, which then replace
+ * the holiday rules within the range of the series, so that unscheduled closures are known too. A
+ * trading calendar is immutable and can be used from multiple threads.
+ */
+public final class TradingCalendar {
+
+  //<editor-fold desc="Constants">
+
+  private static final TradingCalendar DEFAULT = new TradingCalendar(new int[0]);
+
+  /**
+   * The first year in which Juneteenth was an exchange holiday.
+   */
+  private static final int FIRST_JUNETEENTH_YEAR = 2022;
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  // the observed trading days in ascending order, authoritative between the first and the last
+  private final int[] tradingDays;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  private TradingCalendar(int[] tradingDays) {
+    this.tradingDays = tradingDays;
+  }
+
+  /**
+   * Gets the calendar of the exchange derived from the holiday rules only.
+   *
+   * @return the default trading calendar.
+   */
+  public static TradingCalendar getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Creates a calendar in which the given trading days replace the holiday rules between the first
+   * and the last of them. The rules still apply outside that range.
+   *
+   * @param tradingDays the observed trading days since the epoch in ascending order.
+   * @return the refined trading calendar.
+   * @throws IllegalArgumentException when the days are not in ascending order.
+   */
+  public TradingCalendar withTradingDays(int[] tradingDays) throws IllegalArgumentException {
+    for (int i = 1; i < tradingDays.length; i++) {
+      if (tradingDays[i] <= tradingDays[i - 1]) {
+        throw new IllegalArgumentException("The trading days have to be ascending!");
+      }
+    }
+    return new TradingCalendar(Arrays.copyOf(tradingDays, tradingDays.length));
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Holiday rules">
+
+  private static boolean isNthWeekday(LocalDate date, DayOfWeek dayOfWeek, int n) {
+    return date.getDayOfWeek() == dayOfWeek && (date.getDayOfMonth() - 1) / 7 == n - 1;
+  }
+
+  private static boolean isLastWeekday(LocalDate date, DayOfWeek dayOfWeek) {
+    return date.getDayOfWeek() == dayOfWeek
+        && date.getDayOfMonth() + 7 > date.lengthOfMonth();
+  }
+
+  /**
+   * Checks whether the date is the day on which a fixed date holiday is observed. A holiday on a
+   * Saturday is observed on the Friday before, and on a Sunday on the Monday after.
+   */
+  private static boolean isObserved(LocalDate date, LocalDate holiday) {
+    switch (holiday.getDayOfWeek()) {
+      case SATURDAY:
+        return date.equals(holiday.minusDays(1));
+      case SUNDAY:
+        return date.equals(holiday.plusDays(1));
+      default:
+        return date.equals(holiday);
+    }
+  }
+
+  private static LocalDate getEasterSunday(int year) {
+    // the anonymous Gregorian algorithm
+    int a = year % 19;
+    int b = year / 100;
+    int c = year % 100;
+    int d = b / 4;
+    int e = b % 4;
+    int f = (b + 8) / 25;
+    int g = (b - f + 1) / 3;
+    int h = (19 * a + b - d - g + 15) % 30;
+    int i = c / 4;
+    int k = c % 4;
+    int l = (32 + 2 * e + 2 * i - h - k) % 7;
+    int m = (a + 11 * h + 22 * l) / 451;
+    int month = (h + l - 7 * m + 114) / 31;
+    int day = (h + l - 7 * m + 114) % 31 + 1;
+    return LocalDate.of(year, month, day);
+  }
+
+  private static boolean isHoliday(LocalDate date) {
+    int year = date.getYear();
+
+    switch (date.getMonth()) {
+      case JANUARY:
+        // New Year's Day on a Saturday is not observed on the last day of the previous year
+        return (date.getDayOfMonth() == 1 && date.getDayOfWeek() != DayOfWeek.SUNDAY)
+            || (date.getDayOfMonth() == 2 && date.getDayOfWeek() == DayOfWeek.MONDAY)
+            || isNthWeekday(date, DayOfWeek.MONDAY, 3);
+      case FEBRUARY:
+        return isNthWeekday(date, DayOfWeek.MONDAY, 3);
+      case MARCH:
+      case APRIL:
+        return date.equals(getEasterSunday(year).minusDays(2));
+      case MAY:
+        return isLastWeekday(date, DayOfWeek.MONDAY);
+      case JUNE:
+        return year >= FIRST_JUNETEENTH_YEAR
+            && isObserved(date, LocalDate.of(year, Month.JUNE, 19));
+      case JULY:
+        return isObserved(date, LocalDate.of(year, Month.JULY, 4));
+      case SEPTEMBER:
+        return isNthWeekday(date, DayOfWeek.MONDAY, 1);
+      case NOVEMBER:
+        return isNthWeekday(date, DayOfWeek.THURSDAY, 4);
+      case DECEMBER:
+        return isObserved(date, LocalDate.of(year, Month.DECEMBER, 25));
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isRuleTradingDay(int epochDay) {
+    LocalDate date = LocalDate.ofEpochDay(epochDay);
+    DayOfWeek dayOfWeek = date.getDayOfWeek();
+
+    return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY
+        && !isHoliday(date);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private boolean isObservedDay(int epochDay) {
+    return this.tradingDays.length > 0 && epochDay >= this.tradingDays[0]
+        && epochDay <= this.tradingDays[this.tradingDays.length - 1];
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Checks whether the exchange is open on the given day.
+   *
+   * @param epochDay the day since the epoch.
+   * @return true if the day is a trading day, false otherwise.
+   */
+  public boolean isTradingDay(int epochDay) {
+    if (this.isObservedDay(epochDay)) {
+      return Arrays.binarySearch(this.tradingDays, epochDay) >= 0;
+    }
+    return isRuleTradingDay(epochDay);
+  }
+
+  /**
+   * Finds the first trading day on or after the given day.
+   *
+   * @param epochDay the day since the epoch.
+   * @return the trading day since the epoch.
+   */
+  public int nextTradingDay(int epochDay) {
+    if (this.isObservedDay(epochDay)) {
+      int index = Arrays.binarySearch(this.tradingDays, epochDay);
+      // the last observed day is a trading day, so a later one always exists
+      return this.tradingDays[index >= 0 ? index : -index - 1];
+    }
+
+    int day = epochDay;
+    while (!this.isTradingDay(day)) {
+      day++;
+    }
+    return day;
+  }
+
+  /**
+   * Finds the last trading day on or before the given day.
+   *
+   * @param epochDay the day since the epoch.
+   * @return the trading day since the epoch.
+   */
+  public int previousTradingDay(int epochDay) {
+    if (this.isObservedDay(epochDay)) {
+      int index = Arrays.binarySearch(this.tradingDays, epochDay);
+      // the first observed day is a trading day, so an earlier one always exists
+      return this.tradingDays[index >= 0 ? index : -index - 2];
+    }
+
+    int day = epochDay;
+    while (!this.isTradingDay(day)) {
+      day--;
+    }
+    return day;
+  }
+
+  /**
+   * Counts the trading days between the given days, both included.
+   *
+   * @param startDay the first day since the epoch.
+   * @param endDay   the last day since the epoch.
+   * @return the number of trading days, or 0 if the end is before the start.
+   */
+  public int tradingDaysBetween(int startDay, int endDay) {
+    int count = 0;
+    int day = startDay;
+
+    while (day <= endDay) {
+      if (this.isObservedDay(day)) {
+        // the observed days are counted by their position instead of one day at a time
+        int last = Math.min(endDay, this.tradingDays[this.tradingDays.length - 1]);
+        int from = Arrays.binarySearch(this.tradingDays, day);
+        int to = Arrays.binarySearch(this.tradingDays, last);
+        from = from >= 0 ? from : -from - 1;
+        to = to >= 0 ? to : -to - 2;
+        count += to - from + 1;
+        day = last + 1;
+      } else {
+        if (isRuleTradingDay(day)) {
+          count++;
+        }
+        day++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Gets the trading days between the given days, both included.
+   *
+   * @param startDay the first day since the epoch.
+   * @param endDay   the last day since the epoch.
+   * @return the trading days since the epoch in ascending order.
+   */
+  public int[] getTradingDays(int startDay, int endDay) {
+    int[] result = new int[this.tradingDaysBetween(startDay, endDay)];
+    int day = startDay;
+
+    for (int i = 0; i < result.length; i++) {
+      day = this.nextTradingDay(day);
+      result[i] = day;
+      day++;
+    }
+
+    return result;
+  }
+
+  //</editor-fold>
+}
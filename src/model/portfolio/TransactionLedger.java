@@ -0,0 +1,241 @@
+package model.portfolio;
+
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The transactions of a stock stored in columns of primitive arrays, ordered by date. Volumes,
+ * prices and commission fees are stored as fixed-point numbers, an unscaled {@code long} with its
+ * scale, so every value is kept exactly as it was given, while a transaction takes a few dozen
+ * bytes instead of a map entry, a list and four objects.
+ */
+class TransactionLedger {
+
+  //<editor-fold desc="State variables">
+
+  private long[] times;
+  private long[] volumes;
+  private long[] prices;
+  private long[] fees;
+  private byte[] volumeScales;
+  private byte[] priceScales;
+  private byte[] feeScales;
+  private int size;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Creates an empty transaction ledger.
+   */
+  TransactionLedger() {
+    this.times = new long[8];
+    this.volumes = new long[8];
+    this.prices = new long[8];
+    this.fees = new long[8];
+    this.volumeScales = new byte[8];
+    this.priceScales = new byte[8];
+    this.feeScales = new byte[8];
+    this.size = 0;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private static long unscaled(BigDecimal value) throws IllegalArgumentException {
+    BigInteger unscaledValue = value.unscaledValue();
+    if (unscaledValue.bitLength() > 63 || value.scale() < Byte.MIN_VALUE
+        || value.scale() > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException("The value " + value.toPlainString()
+          + " cannot be stored in a transaction as it is too precise!");
+    }
+    return unscaledValue.longValue();
+  }
+
+  /**
+   * Checks that the values of a transaction can be stored, so that a transaction can be validated
+   * before anything is added.
+   *
+   * @throws IllegalArgumentException when a value is too precise to be stored.
+   */
+  static void validate(BigDecimal volume, BigDecimal purchasePrice, BigDecimal commissionFees)
+      throws IllegalArgumentException {
+    unscaled(volume);
+    unscaled(purchasePrice);
+    unscaled(commissionFees);
+  }
+
+  private void grow() {
+    int capacity = this.times.length * 2;
+    this.times = Arrays.copyOf(this.times, capacity);
+    this.volumes = Arrays.copyOf(this.volumes, capacity);
+    this.prices = Arrays.copyOf(this.prices, capacity);
+    this.fees = Arrays.copyOf(this.fees, capacity);
+    this.volumeScales = Arrays.copyOf(this.volumeScales, capacity);
+    this.priceScales = Arrays.copyOf(this.priceScales, capacity);
+    this.feeScales = Arrays.copyOf(this.feeScales, capacity);
+  }
+
+  /**
+   * Finds the position after the last transaction on or before the given time.
+   */
+  private int upperBound(long time) {
+    // transactions are usually added in order, so the last date is checked first
+    if (this.size == 0 || this.times[this.size - 1] <= time) {
+      return this.size;
+    }
+
+    int low = 0;
+    int high = this.size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (this.times[middle] <= time) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Adds a transaction after the existing transactions on the same date.
+   *
+   * @param date           the date of the transaction.
+   * @param volume         the volume of the transaction, negative when selling.
+   * @param purchasePrice  the price of the stock in the transaction.
+   * @param commissionFees the commission fees of the transaction.
+   * @throws IllegalArgumentException when a value is too precise to be stored.
+   */
+  void add(Date date, BigDecimal volume, BigDecimal purchasePrice, BigDecimal commissionFees)
+      throws IllegalArgumentException {
+    long volumeValue = unscaled(volume);
+    long priceValue = unscaled(purchasePrice);
+    long feeValue = unscaled(commissionFees);
+
+    if (this.size == this.times.length) {
+      this.grow();
+    }
+
+    long time = date.getTime();
+    int position = this.upperBound(time);
+    int moved = this.size - position;
+    if (moved > 0) {
+      System.arraycopy(this.times, position, this.times, position + 1, moved);
+      System.arraycopy(this.volumes, position, this.volumes, position + 1, moved);
+      System.arraycopy(this.prices, position, this.prices, position + 1, moved);
+      System.arraycopy(this.fees, position, this.fees, position + 1, moved);
+      System.arraycopy(this.volumeScales, position, this.volumeScales, position + 1, moved);
+      System.arraycopy(this.priceScales, position, this.priceScales, position + 1, moved);
+      System.arraycopy(this.feeScales, position, this.feeScales, position + 1, moved);
+    }
+
+    this.times[position] = time;
+    this.volumes[position] = volumeValue;
+    this.prices[position] = priceValue;
+    this.fees[position] = feeValue;
+    this.volumeScales[position] = (byte) volume.scale();
+    this.priceScales[position] = (byte) purchasePrice.scale();
+    this.feeScales[position] = (byte) commissionFees.scale();
+    this.size++;
+  }
+
+  /**
+   * Gets the number of transactions.
+   *
+   * @return the number of transactions.
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Gets the time of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the date of the transaction in milliseconds since the epoch.
+   */
+  long getTime(int index) {
+    return this.times[index];
+  }
+
+  /**
+   * Gets the date of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the date of the transaction.
+   */
+  Date getDate(int index) {
+    return new Date(this.times[index]);
+  }
+
+  /**
+   * Gets the volume of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the volume of the transaction, negative when selling.
+   */
+  BigDecimal getVolume(int index) {
+    return BigDecimal.valueOf(this.volumes[index], this.volumeScales[index]);
+  }
+
+  /**
+   * Gets the price of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the price of the stock in the transaction.
+   */
+  BigDecimal getPrice(int index) {
+    return BigDecimal.valueOf(this.prices[index], this.priceScales[index]);
+  }
+
+  /**
+   * Gets the commission fees of the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the commission fees of the transaction.
+   */
+  BigDecimal getCommissionFees(int index) {
+    return BigDecimal.valueOf(this.fees[index], this.feeScales[index]);
+  }
+
+  /**
+   * Gets the transaction at the given position.
+   *
+   * @param index the position of the transaction in date order.
+   * @return the date, volume, purchase price and commission fees of the transaction.
+   */
+  Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>> get(int index) {
+    return new Pair<>(this.getDate(index),
+        new Triplet<>(this.getVolume(index), this.getPrice(index),
+            this.getCommissionFees(index)));
+  }
+
+  /**
+   * Gets all transactions in date order.
+   *
+   * @return the date, volume, purchase price and commission fees of each transaction.
+   */
+  List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> toList() {
+    List<Pair<Date, Triplet<BigDecimal, BigDecimal, BigDecimal>>> result =
+        new ArrayList<>(this.size);
+    for (int i = 0; i < this.size; i++) {
+      result.add(this.get(i));
+    }
+    return result;
+  }
+
+  //</editor-fold>
+}
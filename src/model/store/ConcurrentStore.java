@@ -0,0 +1,226 @@
+package model.store;
+
+import common.pair.Pair;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A generic store of items which can be shared by multiple threads. Items are saved concurrently
+ * under one of several locks chosen by the hash of the item, so that equal items are checked for
+ * duplicates under the same lock while other items are saved at the same time. Ids are allocated
+ * atomically without gaps, and {@code getAll}, {@code getPage}, {@code stream} and {@code forEach}
+ * see the items saved at a single point in time.
+ * Duplicates are detected with the {@code equals} and {@code hashCode} of the items, which must not
+ * change while an item is in the store.
+ *
+ * @param <T> The type of item this store will contain.
+ */
+public class ConcurrentStore<T> implements IStore<T> {
+
+  //<editor-fold desc="Constants">
+
+  /**
+   * The number of locks the items are spread over.
+   */
+  private static final int STRIPE_COUNT = 16;
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final Map<Integer, T> items;
+  private final Map<T, Integer> ids;
+  private final AtomicInteger itemCount;
+
+  private final ReentrantLock[] stripes;
+
+  // saves share this lock, getAll takes it exclusively to see no save half done
+  private final ReadWriteLock snapshotLock;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Instantiates the store with zero items.
+   */
+  public ConcurrentStore() {
+    this.items = new ConcurrentHashMap<>();
+    this.ids = new ConcurrentHashMap<>();
+    this.itemCount = new AtomicInteger();
+    this.snapshotLock = new ReentrantReadWriteLock();
+
+    this.stripes = new ReentrantLock[STRIPE_COUNT];
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      this.stripes[i] = new ReentrantLock();
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private int getStripeIndex(T item) {
+    return (item.hashCode() & 0x7fffffff) % STRIPE_COUNT;
+  }
+
+  /**
+   * Gets the number of items whose saves completed. No save is in progress while the count is
+   * read, so every id below it has its item.
+   */
+  private int getSavedCount() {
+    this.snapshotLock.writeLock().lock();
+    try {
+      return this.itemCount.get();
+    } finally {
+      this.snapshotLock.writeLock().unlock();
+    }
+  }
+
+  private void validateItem(T item) throws IllegalArgumentException {
+    if (item == null) {
+      throw new IllegalArgumentException("Provided item cannot be null!");
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  @Override
+  public int save(T item) throws IllegalArgumentException {
+    this.validateItem(item);
+    ReentrantLock stripe = this.stripes[this.getStripeIndex(item)];
+
+    this.snapshotLock.readLock().lock();
+    stripe.lock();
+    try {
+      if (this.ids.containsKey(item)) {
+        throw new IllegalArgumentException("Provided item already exists in the store!");
+      }
+
+      int id = this.itemCount.getAndIncrement();
+      this.items.put(id, item);
+      this.ids.put(item, id);
+
+      return id;
+    } finally {
+      stripe.unlock();
+      this.snapshotLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Integer> saveAll(List<T> items) throws IllegalArgumentException {
+    // the locks of the batch are always taken in the same order, so batches cannot deadlock
+    TreeSet<Integer> stripeIndices = new TreeSet<>();
+    for (T item : items) {
+      this.validateItem(item);
+      stripeIndices.add(this.getStripeIndex(item));
+    }
+
+    this.snapshotLock.readLock().lock();
+    for (int index : stripeIndices) {
+      this.stripes[index].lock();
+    }
+    try {
+      // the whole batch is validated before any item is added
+      Set<T> batch = new HashSet<>();
+      for (T item : items) {
+        if (this.ids.containsKey(item) || !batch.add(item)) {
+          throw new IllegalArgumentException("Provided item already exists in the store!");
+        }
+      }
+
+      int firstId = this.itemCount.getAndAdd(items.size());
+      List<Integer> result = new ArrayList<>(items.size());
+      for (int i = 0; i < items.size(); i++) {
+        this.items.put(firstId + i, items.get(i));
+        this.ids.put(items.get(i), firstId + i);
+        result.add(firstId + i);
+      }
+
+      return result;
+    } finally {
+      for (int index : stripeIndices.descendingSet()) {
+        this.stripes[index].unlock();
+      }
+      this.snapshotLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public T retrieve(int id) {
+    if (id < 0 || id >= this.itemCount.get()) {
+      throw new IllegalArgumentException("Provided id is not valid!");
+    }
+
+    T item = this.items.get(id);
+    if (item == null) {
+      // the id belongs to a save in progress, which has completed once the saved count is read
+      this.getSavedCount();
+      item = this.items.get(id);
+    }
+    return item;
+  }
+
+  @Override
+  public List<Pair<Integer, T>> getAll() {
+    // items are never removed, so the items below the count stay the same while they are copied
+    int count = this.getSavedCount();
+    List<Pair<Integer, T>> result = new ArrayList<>(count);
+    for (int id = 0; id < count; id++) {
+      result.add(new Pair<>(id, this.items.get(id)));
+    }
+
+    return result;
+  }
+
+  @Override
+  public List<Pair<Integer, T>> getPage(int offset, int limit) throws IllegalArgumentException {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("The offset and limit of a page cannot be negative!");
+    }
+
+    int end = (int) Math.min((long) offset + limit, this.getSavedCount());
+    List<Pair<Integer, T>> result = new ArrayList<>(Math.max(end - offset, 0));
+    for (int id = offset; id < end; id++) {
+      result.add(new Pair<>(id, this.items.get(id)));
+    }
+
+    return result;
+  }
+
+  @Override
+  public Stream<Pair<Integer, T>> stream() {
+    return IntStream.range(0, this.getSavedCount())
+        .mapToObj(id -> new Pair<>(id, this.items.get(id)));
+  }
+
+  @Override
+  public void forEach(ObjIntConsumer<T> action) {
+    int count = this.getSavedCount();
+    for (int id = 0; id < count; id++) {
+      action.accept(this.items.get(id), id);
+    }
+  }
+
+  @Override
+  public int getItemCount() {
+    return this.itemCount.get();
+  }
+
+  //</editor-fold>
+}
@@ -2,6 +2,8 @@ package model.store;
 
 import common.pair.Pair;
 import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 /**
  * A generic store of items which is meant to persist in memory. The store keeps the items with in
@@ -19,6 +21,16 @@ public interface IStore<T> {
    */
   int save(T item) throws IllegalArgumentException;
 
+  /**
+   * Adds all the items to the store. Either all the items are added or none of them.
+   *
+   * @param items the items to be added.
+   * @return the ids of the added items, in the order of the items.
+   * @throws IllegalArgumentException when an item already exists in the store or is repeated in
+   *                                  the given items.
+   */
+  List<Integer> saveAll(List<T> items) throws IllegalArgumentException;
+
   /**
    * Retrieves the item with the requested id.
    *
@@ -36,6 +48,32 @@ public interface IStore<T> {
    */
   List<Pair<Integer, T>> getAll();
 
+  /**
+   * Gets the items in the store with ids starting from the given offset, in the order of their ids.
+   *
+   * @param offset the id of the first item.
+   * @param limit  the maximum number of items.
+   * @return a list of pairs with the id and item, empty if the offset is past the last item.
+   * @throws IllegalArgumentException when the offset or the limit is negative.
+   */
+  List<Pair<Integer, T>> getPage(int offset, int limit) throws IllegalArgumentException;
+
+  /**
+   * Streams the items in the store in the order of their ids. Only the items in the store when the
+   * stream is created are streamed, and they are not copied up front.
+   *
+   * @return a stream of pairs with the id and item.
+   */
+  Stream<Pair<Integer, T>> stream();
+
+  /**
+   * Performs the action for each item in the store in the order of their ids, without creating a
+   * pair for each item.
+   *
+   * @param action the action which is given each item and its id.
+   */
+  void forEach(ObjIntConsumer<T> action);
+
   /**
    * Gets the current number of items in the store.
    *
@@ -3,11 +3,17 @@ package model.store;
 import common.pair.Pair;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
- * A generic store of items.
+ * A generic store of items. Duplicates are detected with the {@code equals} and {@code hashCode} of
+ * the items, which must not change while an item is in the store.
  *
  * @param <T> The type of item this store will contain.
  */
@@ -18,6 +24,9 @@ public class Store<T> implements IStore<T> {
   protected final Map<Integer, T> items;
   private int itemCount;
 
+  // the id of each item, so that duplicates are found without comparing against every item
+  private final Map<T, Integer> ids;
+
   //</editor-fold>
 
   //<editor-fold desc="Constructors">
@@ -28,6 +37,18 @@ public class Store<T> implements IStore<T> {
   public Store() {
     this.items = new HashMap<>();
     this.itemCount = 0;
+    this.ids = new HashMap<>();
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private int insert(T item) {
+    this.items.put(this.itemCount, item);
+    this.ids.put(item, this.itemCount);
+
+    return this.itemCount++;
   }
 
   //</editor-fold>
@@ -36,13 +57,29 @@ public class Store<T> implements IStore<T> {
 
   @Override
   public int save(T item) throws IllegalArgumentException {
-    if (this.items.containsValue(item)) {
+    if (this.ids.containsKey(item)) {
       throw new IllegalArgumentException("Provided item already exists in the store!");
     }
 
-    this.items.put(this.itemCount, item);
+    return this.insert(item);
+  }
 
-    return this.itemCount++;
+  @Override
+  public List<Integer> saveAll(List<T> items) throws IllegalArgumentException {
+    // the whole batch is validated before any item is added
+    Set<T> batch = new HashSet<>();
+    for (T item : items) {
+      if (this.ids.containsKey(item) || !batch.add(item)) {
+        throw new IllegalArgumentException("Provided item already exists in the store!");
+      }
+    }
+
+    List<Integer> result = new ArrayList<>(items.size());
+    for (T item : items) {
+      result.add(this.insert(item));
+    }
+
+    return result;
   }
 
   @Override
@@ -64,6 +101,33 @@ public class Store<T> implements IStore<T> {
     return result;
   }
 
+  @Override
+  public List<Pair<Integer, T>> getPage(int offset, int limit) throws IllegalArgumentException {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("The offset and limit of a page cannot be negative!");
+    }
+
+    int end = (int) Math.min((long) offset + limit, this.itemCount);
+    List<Pair<Integer, T>> result = new ArrayList<>(Math.max(end - offset, 0));
+    for (int id = offset; id < end; id++) {
+      result.add(new Pair<>(id, this.items.get(id)));
+    }
+
+    return result;
+  }
+
+  @Override
+  public Stream<Pair<Integer, T>> stream() {
+    return IntStream.range(0, this.itemCount).mapToObj(id -> new Pair<>(id, this.items.get(id)));
+  }
+
+  @Override
+  public void forEach(ObjIntConsumer<T> action) {
+    for (int id = 0; id < this.itemCount; id++) {
+      action.accept(this.items.get(id), id);
+    }
+  }
+
   @Override
   public int getItemCount() {
     return this.itemCount;
@@ -0,0 +1,157 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import common.Utils;
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.portfolio.StockDataSourceException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A test class to test valuing all portfolios of the model at once.
+ */
+public class PortfolioModelValueAllTest {
+
+  //<editor-fold desc="Setup">
+
+  private AtomicInteger priceLookups;
+  private Set<String> priceLookupThreads;
+  private PortfolioModel pm;
+
+  @Before
+  public void setUp() throws InstantiationException, StockDataSourceException {
+    this.priceLookups = new AtomicInteger();
+    this.priceLookupThreads = ConcurrentHashMap.newKeySet();
+    this.pm = new PortfolioModel(new StockDataSourceMock() {
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        priceLookups.incrementAndGet();
+        priceLookupThreads.add(Thread.currentThread().getName());
+        return super.getStockPrice(symbol, date, takeFuturePrice);
+      }
+    });
+
+    this.pm.setName("Regular");
+    this.pm.addStocksToPortfolioBuilder(List.of(new Pair<>("GOOG", new BigDecimal(100))));
+    this.pm.buildPortfolio();
+
+    for (String name : new String[]{"First", "Second"}) {
+      int id = this.pm.createFlexiblePortfolio(name);
+      this.pm.buyStocksForFlexiblePortfolio(id, List.of(
+          new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10")),
+          new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2"))),
+          new BigDecimal(1));
+    }
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testValueAll() throws StockDataSourceException {
+    Date date = this.date("2019-01-01");
+    this.priceLookups.set(0);
+
+    var result = this.pm.valueAll(date);
+
+    // the price of each stock is looked up once for all portfolios
+    assertEquals(2, this.priceLookups.get());
+
+    assertEquals(0, new BigDecimal(128000).compareTo(result.getO1()));
+    assertEquals(1, result.getO2().size());
+    assertEquals(0, new BigDecimal(100000).compareTo(result.getO2().get(0).getO2()));
+    assertEquals(2, result.getO3().size());
+    for (var flexiblePortfolio : result.getO3()) {
+      assertEquals(0, this.pm.getFlexiblePortfolioValue(flexiblePortfolio.getO1(), date).getO1()
+          .compareTo(flexiblePortfolio.getO2()));
+    }
+  }
+
+  @Test
+  public void testValueAllDates() throws StockDataSourceException {
+    List<Date> dates = List.of(this.date("2019-01-01"), this.date("2015-06-01"),
+        this.date("2014-01-01"));
+    this.pm.setValuationParallelism(4);
+
+    var result = this.pm.valueAll(dates);
+
+    assertEquals(3, result.size());
+    assertEquals(0, new BigDecimal(128000).compareTo(result.get(0).getO1()));
+    // before MSFT was bought
+    assertEquals(0, new BigDecimal(120000).compareTo(result.get(1).getO1()));
+    assertEquals(0, new BigDecimal(100000).compareTo(result.get(2).getO1()));
+  }
+
+  @Test
+  public void testValueAllOnValuationThreads() throws StockDataSourceException {
+    IPortfolioModel model = this.pm;
+    model.setValuationParallelism(3);
+    this.priceLookupThreads.clear();
+
+    var result = model.valueAll(List.of(this.date("2019-01-01")));
+
+    assertEquals(0, new BigDecimal(128000).compareTo(result.get(0).getO1()));
+    assertFalse(this.priceLookupThreads.isEmpty());
+    for (String thread : this.priceLookupThreads) {
+      assertTrue(thread.startsWith("portfolio-valuation-"));
+    }
+    model.setValuationParallelism(1);
+  }
+
+  @Test(timeout = 60000)
+  public void testParallelismChangedDuringValuation() throws Exception {
+    List<Date> dates = List.of(this.date("2019-01-01"), this.date("2015-06-01"));
+    Date date = this.date("2019-01-01");
+    int id = this.pm.valueAll(date).getO3().get(0).getO1();
+    this.pm.setValuationParallelism(2);
+
+    // the executor is replaced while other threads value the portfolios with it
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> valuations = executor.submit(() -> {
+        for (int i = 0; i < 300; i++) {
+          assertEquals(0, new BigDecimal(128000).compareTo(this.pm.valueAll(dates).get(0).getO1()));
+        }
+        return null;
+      });
+      Future<?> flexibleValuations = executor.submit(() -> {
+        for (int i = 0; i < 300; i++) {
+          assertEquals(0, new BigDecimal(14000)
+              .compareTo(this.pm.getFlexiblePortfolioValue(id, date).getO1()));
+        }
+        return null;
+      });
+
+      while (!valuations.isDone() || !flexibleValuations.isDone()) {
+        this.pm.setValuationParallelism(2 + (int) (System.nanoTime() % 3));
+      }
+      valuations.get();
+      flexibleValuations.get();
+    } finally {
+      executor.shutdown();
+      this.pm.setValuationParallelism(1);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValueAllFutureDate() throws StockDataSourceException {
+    this.pm.valueAll(Utils.convertEpochDayToDate(Utils.getTodayEpochDay() + 5));
+  }
+}
@@ -0,0 +1,116 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import model.portfolio.StockDataSourceException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the batch price lookup and the prefetch of the Alpha Vantage API against
+ * a local stub of the API.
+ */
+public class AlphaVantageBatchPriceTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private AlphaVantageStubServer server;
+  private AlphaVantageAPI api;
+
+  @Before
+  public void setup() throws IOException {
+    this.server = new AlphaVantageStubServer();
+    this.api = this.server.createAPI(null, new RequestScheduler(6000, 0, 0, 0));
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop();
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test(timeout = 10000)
+  public void testPricesAlignedWithDates() throws StockDataSourceException {
+    // the dates are neither sorted nor distinct, and one of them is not a trading day
+    List<Date> dates = List.of(this.date("2022-10-31"), this.date("2022-10-28"),
+        this.date("2022-10-30"), this.date("2022-10-31"));
+
+    assertEquals(List.of(new BigDecimal("232.1300"), new BigDecimal("235.8700"),
+            new BigDecimal("235.8700"), new BigDecimal("232.1300")),
+        this.api.getStockPrices("GOOG", dates, false));
+    assertEquals(List.of(new BigDecimal("232.1300"), new BigDecimal("235.8700"),
+            new BigDecimal("232.1300"), new BigDecimal("232.1300")),
+        this.api.getStockPrices("GOOG", dates, true));
+
+    // the series is downloaded once for all the dates
+    assertEquals(1, this.server.getTimeSeriesRequests("GOOG"));
+  }
+
+  @Test(timeout = 10000)
+  public void testPricesMatchSinglePrices() throws StockDataSourceException {
+    List<Date> dates = List.of(this.date("2022-10-28"), this.date("2022-10-31"));
+    List<BigDecimal> prices = this.api.getStockPrices("MSFT", dates, false);
+
+    assertEquals(dates.size(), prices.size());
+    for (int i = 0; i < dates.size(); i++) {
+      assertEquals(this.api.getStockPrice("MSFT", dates.get(i), false), prices.get(i));
+    }
+    assertEquals(new BigDecimal("235.0500"), prices.get(0));
+  }
+
+  @Test(timeout = 10000)
+  public void testNoDates() throws StockDataSourceException {
+    assertTrue(this.api.getStockPrices("GOOG", List.of(), false).isEmpty());
+    assertEquals(0, this.server.getTimeSeriesRequests());
+  }
+
+  @Test(timeout = 10000)
+  public void testPrefetchDownloadsEachSymbolOnce() throws StockDataSourceException {
+    this.api.prefetch(List.of("GOOG", "MSFT", "GOOG", "MSFT", "GOOG"));
+
+    assertEquals(1, this.server.getTimeSeriesRequests("GOOG"));
+    assertEquals(1, this.server.getTimeSeriesRequests("MSFT"));
+
+    // the prefetched series are used for the prices
+    assertEquals(new BigDecimal("232.8700"),
+        this.api.getStockPrice("MSFT", this.date("2022-10-31"), false));
+    assertEquals(List.of(new BigDecimal("235.8700")),
+        this.api.getStockPrices("GOOG", List.of(this.date("2022-10-28")), false));
+    assertEquals(2, this.server.getTimeSeriesRequests());
+  }
+
+  @Test(timeout = 10000)
+  public void testPrefetchSkipsLoadedSymbols() throws StockDataSourceException {
+    this.api.getStockPrice("GOOG", this.date("2022-10-31"), false);
+
+    this.api.prefetch(List.of("GOOG", "MSFT"));
+
+    assertEquals(1, this.server.getTimeSeriesRequests("GOOG"));
+    assertEquals(1, this.server.getTimeSeriesRequests("MSFT"));
+  }
+
+  @Test(timeout = 10000)
+  public void testPrefetchUnsupportedSymbol() throws StockDataSourceException {
+    try {
+      this.api.prefetch(List.of("GOOG", "UNKNOWN"));
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided stock symbol: UNKNOWN is not supported by the API!", e.getMessage());
+      assertEquals(0, this.server.getTimeSeriesRequests());
+      return;
+    }
+    fail("An unsupported symbol should not have been prefetched!");
+  }
+}
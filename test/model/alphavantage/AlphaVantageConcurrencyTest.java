@@ -0,0 +1,114 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+
+import common.Utils;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.portfolio.StockDataSourceException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests that concurrent price requests to the Alpha Vantage API share the loads of
+ * the price series.
+ */
+public class AlphaVantageConcurrencyTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private static final int THREAD_COUNT = 8;
+
+  private AlphaVantageStubServer server;
+  private AlphaVantageAPI api;
+  private ExecutorService executor;
+
+  @Before
+  public void setup() throws IOException {
+    this.server = new AlphaVantageStubServer();
+    this.api = this.server.createAPI(null, new RequestScheduler(6000, 0, 0, 0));
+    this.executor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+    // the listing is loaded up front, so that the callers only wait for the price series
+    this.api.getStock("GOOG");
+  }
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+    this.server.stop();
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  /**
+   * Requests the price of each of the symbols from its own thread, with the responses of the stub
+   * held back until every thread has started.
+   */
+  private List<BigDecimal> requestConcurrently(List<String> symbols) throws Exception {
+    CountDownLatch started = new CountDownLatch(symbols.size());
+    Date date = this.date("2022-10-31");
+    this.server.holdTimeSeries();
+
+    List<Future<BigDecimal>> results = new ArrayList<>();
+    for (String symbol : symbols) {
+      Callable<BigDecimal> request = () -> {
+        started.countDown();
+        return this.api.getStockPrice(symbol, date, false);
+      };
+      results.add(this.executor.submit(request));
+    }
+
+    started.await();
+    // the first requests reach the stub while the others wait for them
+    while (this.server.getTimeSeriesRequests() == 0) {
+      Thread.sleep(5);
+    }
+    Thread.sleep(100);
+    this.server.releaseTimeSeries();
+
+    List<BigDecimal> prices = new ArrayList<>();
+    for (Future<BigDecimal> result : results) {
+      prices.add(result.get());
+    }
+    return prices;
+  }
+
+  //</editor-fold>
+
+  @Test(timeout = 10000)
+  public void testConcurrentRequestsShareOneDownload() throws Exception {
+    List<String> symbols = new ArrayList<>();
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      symbols.add("GOOG");
+    }
+
+    List<BigDecimal> prices = this.requestConcurrently(symbols);
+
+    assertEquals(1, this.server.getTimeSeriesRequests("GOOG"));
+    for (BigDecimal price : prices) {
+      assertEquals(new BigDecimal("232.1300"), price);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testDifferentSymbolsLoadedSeparately() throws Exception {
+    List<BigDecimal> prices = this.requestConcurrently(List.of("GOOG", "MSFT", "GOOG", "MSFT"));
+
+    assertEquals(1, this.server.getTimeSeriesRequests("GOOG"));
+    assertEquals(1, this.server.getTimeSeriesRequests("MSFT"));
+    assertEquals(List.of(new BigDecimal("232.1300"), new BigDecimal("232.8700"),
+        new BigDecimal("232.1300"), new BigDecimal("232.8700")), prices);
+  }
+}
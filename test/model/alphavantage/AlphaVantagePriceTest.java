@@ -0,0 +1,85 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import model.portfolio.StockDataSourceException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests that the Alpha Vantage API takes the price of the closest trading day
+ * within the maximum staleness.
+ */
+public class AlphaVantagePriceTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private AlphaVantageStubServer server;
+  private AlphaVantageAPI api;
+
+  @Before
+  public void setup() throws IOException {
+    this.server = new AlphaVantageStubServer();
+    this.api = this.server.createAPI(null, new RequestScheduler(6000, 0, 0, 0));
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop();
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test(timeout = 10000)
+  public void testClosestTradingDay() throws StockDataSourceException {
+    // the stub has prices on Friday 2022-10-28 and Monday 2022-10-31
+    assertEquals(new BigDecimal("235.8700"),
+        this.api.getStockPrice("GOOG", this.date("2022-10-30"), false));
+    assertEquals(new BigDecimal("232.1300"),
+        this.api.getStockPrice("GOOG", this.date("2022-10-30"), true));
+
+    // no later trading day is known, so the last close is taken
+    assertEquals(new BigDecimal("232.1300"),
+        this.api.getStockPrice("GOOG", this.date("2022-11-05"), true));
+  }
+
+  @Test(timeout = 10000)
+  public void testStalePrice() throws StockDataSourceException {
+    Date date = this.date("2022-11-20");
+    try {
+      this.api.getStockPrice("GOOG", date, false);
+      fail("A price 20 days old should not be taken!");
+    } catch (StockDataSourceException e) {
+      assertEquals("No price of stock symbol: GOOG is available within 10 days of " + date + "!",
+          e.getMessage());
+    }
+
+    this.api.setMaxPriceStaleness(30);
+    assertEquals(new BigDecimal("232.1300"), this.api.getStockPrice("GOOG", date, false));
+  }
+
+  @Test(timeout = 10000)
+  public void testNoPriceBeforeSeries() {
+    try {
+      this.api.getStockPrice("GOOG", this.date("2022-09-01"), false);
+      fail("There is no price before the first trading day of the series!");
+    } catch (StockDataSourceException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeStaleness() {
+    this.api.setMaxPriceStaleness(-1);
+  }
+}
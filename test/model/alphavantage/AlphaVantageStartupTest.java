@@ -0,0 +1,117 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests that the Alpha Vantage API serves the persisted listings at startup and
+ * loads the listings from the API in the background.
+ */
+public class AlphaVantageStartupTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private AlphaVantageStubServer server;
+  private Path directory;
+
+  @Before
+  public void setup() throws IOException {
+    this.server = new AlphaVantageStubServer();
+    this.directory = Files.createTempDirectory("alpha-vantage-startup-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    this.server.stop();
+    try (Stream<Path> paths = Files.walk(this.directory)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private void writeSnapshot(int fetchedOn) throws IOException {
+    new SymbolDirectory.Builder()
+        .add("OLD", "Old Listing Inc", "NYSE", "Stock", "Active", 10000,
+            SymbolDirectory.NO_DELISTING_DAY)
+        .build(fetchedOn)
+        .write(this.directory.resolve("listing-status.dir"));
+  }
+
+  private AlphaVantageAPI createAPI() {
+    return this.server.createAPI(this.directory, new RequestScheduler(6000, 0, 0, 0));
+  }
+
+  //</editor-fold>
+
+  @Test(timeout = 10000)
+  public void testConstructorDoesNotWaitForListing() {
+    this.server.holdListing();
+
+    // the listing is held back, so this would never return if the constructor waited for it
+    AlphaVantageAPI api = this.createAPI();
+    this.server.releaseListing();
+
+    assertEquals("Alphabet Inc - Class C", api.getStock("GOOG").getName());
+  }
+
+  @Test(timeout = 10000)
+  public void testStaleSnapshotServedWhileRefreshing() throws Exception {
+    this.writeSnapshot(Utils.getTodayEpochDay() - 1);
+    this.server.holdListing();
+
+    AlphaVantageAPI api = this.createAPI();
+
+    // known symbols are served from the snapshot while the refresh is held back
+    assertEquals("Old Listing Inc", api.getStock("OLD").getName());
+
+    this.server.releaseListing();
+    assertEquals("Alphabet Inc - Class C", api.getStock("GOOG").getName());
+    assertEquals(Utils.getTodayEpochDay(),
+        SymbolDirectory.read(this.directory.resolve("listing-status.dir")).getFetchedOn());
+  }
+
+  @Test(timeout = 10000)
+  public void testSnapshotFromTodayIsNotRefreshed() throws Exception {
+    this.writeSnapshot(Utils.getTodayEpochDay());
+
+    AlphaVantageAPI api = this.createAPI();
+
+    assertEquals("Old Listing Inc", api.getStock("OLD").getName());
+    try {
+      api.getStock("GOOG");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided stock symbol: GOOG is not supported by the API!", e.getMessage());
+      assertEquals(0, this.server.getListingRequests());
+      return;
+    }
+    fail("The snapshot is from today and the listing should not have been fetched!");
+  }
+
+  @Test(timeout = 10000)
+  public void testListingFailureWithoutSnapshot() {
+    this.server.setListingFailing(true);
+    AlphaVantageAPI api = this.createAPI();
+
+    try {
+      api.getStock("GOOG");
+      fail("The listing could not be loaded and the lookup should have failed!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The stocks supported by the API could not be loaded!", e.getMessage());
+    }
+
+    // a failed load is retried on the next lookup
+    this.server.setListingFailing(false);
+    assertEquals("Alphabet Inc - Class C", api.getStock("GOOG").getName());
+  }
+}
@@ -0,0 +1,238 @@
+package model.alphavantage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stub of the Alpha Vantage API serving a fixed listing and time series, which can hold
+ * back listing and time series responses and answer requests as throttled.
+ */
+class AlphaVantageStubServer {
+
+  //<editor-fold desc="Responses">
+
+  static final String LISTING_RESPONSE =
+      "symbol,name,exchange,assetType,ipoDate,delistingDate,status\r\n"
+          + "GOOG,Alphabet Inc - Class C,NASDAQ,Stock,2014-03-27,null,Active\r\n"
+          + "MSFT,Microsoft Corporation,NASDAQ,Stock,1986-03-13,null,Active\r\n"
+          + "AAPL,Apple Inc,NASDAQ,Stock,1980-12-12,null,Active\r\n"
+          + "AMZN,Amazon.com Inc,NASDAQ,Stock,1997-05-15,null,Active\r\n"
+          + "NFLX,Netflix Inc,NASDAQ,Stock,2002-05-23,null,Active\r\n";
+
+  static final String DELISTED_RESPONSE =
+      "symbol,name,exchange,assetType,ipoDate,delistingDate,status\r\n";
+
+  static final String TIME_SERIES_RESPONSE = "timestamp,open,high,low,close,volume\r\n"
+      + "2022-10-31,233.7600,234.9200,231.1500,232.1300,28357256\r\n"
+      + "2022-10-28,226.2400,236.0000,225.2500,235.8700,40647742\r\n";
+
+  static final String MSFT_TIME_SERIES_RESPONSE = "timestamp,open,high,low,close,volume\r\n"
+      + "2022-10-31,233.7600,234.9200,231.1500,232.8700,28357256\r\n"
+      + "2022-10-28,226.2400,236.0000,225.2500,235.0500,40647742\r\n";
+
+  static final String THROTTLED_RESPONSE = "{\n    \"Note\": \"Thank you for using Alpha "
+      + "Vantage! Our standard API call frequency is 5 calls per minute.\"\n}";
+
+  static final String PREMIUM_RESPONSE = "{\n    \"Information\": \"Thank you for using Alpha "
+      + "Vantage! This is a premium endpoint. You may subscribe to any of the premium plans.\"\n}";
+
+  //</editor-fold>
+
+  //<editor-fold desc="State variables">
+
+  private final HttpServer server;
+  private final AtomicInteger listingRequests;
+  private final AtomicInteger timeSeriesRequests;
+  private final Map<String, AtomicInteger> timeSeriesRequestsBySymbol;
+  private final List<String> timeSeriesSymbols;
+  private final AtomicInteger throttledResponsesLeft;
+  private volatile boolean isTimeSeriesPremium;
+  private volatile CountDownLatch listingReleased;
+  private volatile CountDownLatch timeSeriesReleased;
+  private volatile boolean isListingFailing;
+
+  //</editor-fold>
+
+  //<editor-fold desc="Constructors">
+
+  /**
+   * Starts a stub server on a free local port.
+   *
+   * @throws IOException when the server could not be started.
+   */
+  AlphaVantageStubServer() throws IOException {
+    this.listingRequests = new AtomicInteger();
+    this.timeSeriesRequests = new AtomicInteger();
+    this.timeSeriesRequestsBySymbol = new ConcurrentHashMap<>();
+    this.timeSeriesSymbols = Collections.synchronizedList(new ArrayList<>());
+    this.throttledResponsesLeft = new AtomicInteger();
+    this.listingReleased = new CountDownLatch(0);
+    this.timeSeriesReleased = new CountDownLatch(0);
+
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/query", this::handleQuery);
+    this.server.start();
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Helper methods">
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static String getSymbol(String query) {
+    for (String param : query.split("&")) {
+      if (param.startsWith("symbol=")) {
+        return param.substring("symbol=".length());
+      }
+    }
+    return "";
+  }
+
+  private void handleQuery(HttpExchange exchange) throws IOException {
+    String query = exchange.getRequestURI().getQuery();
+    String response;
+
+    if (query.contains("function=LISTING_STATUS")) {
+      this.listingRequests.incrementAndGet();
+      await(this.listingReleased);
+
+      if (this.isListingFailing) {
+        exchange.sendResponseHeaders(500, -1);
+        exchange.close();
+        return;
+      }
+      response = query.contains("state=delisted") ? DELISTED_RESPONSE : LISTING_RESPONSE;
+    } else {
+      String symbol = getSymbol(query);
+      this.timeSeriesRequests.incrementAndGet();
+      this.timeSeriesRequestsBySymbol.computeIfAbsent(symbol, s -> new AtomicInteger())
+          .incrementAndGet();
+      this.timeSeriesSymbols.add(symbol);
+      await(this.timeSeriesReleased);
+
+      if (this.isTimeSeriesPremium) {
+        response = PREMIUM_RESPONSE;
+      } else if (this.throttledResponsesLeft.getAndDecrement() > 0) {
+        response = THROTTLED_RESPONSE;
+      } else {
+        response = symbol.equals("MSFT") ? MSFT_TIME_SERIES_RESPONSE : TIME_SERIES_RESPONSE;
+      }
+    }
+
+    byte[] body = response.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Core methods">
+
+  /**
+   * Creates an API instance sending its requests to this server.
+   *
+   * @param cacheDirectory the cache directory of the API, or {@code null} for none.
+   * @param scheduler      the request scheduler of the API.
+   * @return the API instance.
+   */
+  AlphaVantageAPI createAPI(Path cacheDirectory, RequestScheduler scheduler) {
+    return new AlphaVantageAPI("test", cacheDirectory,
+        "http://localhost:" + this.server.getAddress().getPort(), scheduler);
+  }
+
+  /**
+   * Holds back listing responses until {@code releaseListing} is called.
+   */
+  void holdListing() {
+    this.listingReleased = new CountDownLatch(1);
+  }
+
+  /**
+   * Sends the listing responses held back.
+   */
+  void releaseListing() {
+    this.listingReleased.countDown();
+  }
+
+  /**
+   * Holds back time series responses until {@code releaseTimeSeries} is called.
+   */
+  void holdTimeSeries() {
+    this.timeSeriesReleased = new CountDownLatch(1);
+  }
+
+  /**
+   * Sends the time series responses held back.
+   */
+  void releaseTimeSeries() {
+    this.timeSeriesReleased.countDown();
+  }
+
+  void setListingFailing(boolean isListingFailing) {
+    this.isListingFailing = isListingFailing;
+  }
+
+  void setTimeSeriesPremium(boolean isTimeSeriesPremium) {
+    this.isTimeSeriesPremium = isTimeSeriesPremium;
+  }
+
+  void setThrottledResponses(int count) {
+    this.throttledResponsesLeft.set(count);
+  }
+
+  int getListingRequests() {
+    return this.listingRequests.get();
+  }
+
+  int getTimeSeriesRequests() {
+    return this.timeSeriesRequests.get();
+  }
+
+  int getTimeSeriesRequests(String symbol) {
+    AtomicInteger requests = this.timeSeriesRequestsBySymbol.get(symbol);
+    return requests == null ? 0 : requests.get();
+  }
+
+  /**
+   * Gets the symbols of the time series requests in the order they were received.
+   *
+   * @return the requested symbols.
+   */
+  List<String> getTimeSeriesSymbols() {
+    synchronized (this.timeSeriesSymbols) {
+      return new ArrayList<>(this.timeSeriesSymbols);
+    }
+  }
+
+  /**
+   * Stops the server.
+   */
+  void stop() {
+    this.releaseListing();
+    this.releaseTimeSeries();
+    this.server.stop(0);
+  }
+
+  //</editor-fold>
+}
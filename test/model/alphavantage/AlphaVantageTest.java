@@ -4,11 +4,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import model.alphavantage.AlphaVantageAPI.IAVListingStatusResult;
-import model.alphavantage.AlphaVantageAPI.IAVTimeSeriesDailyResult;
 import model.portfolio.IStock;
 import model.portfolio.StockDataSourceException;
 import org.junit.Before;
@@ -32,27 +32,22 @@ public class AlphaVantageTest {
 
   @Test
   public void testTimeSeriesDaily() {
-    List<IAVTimeSeriesDailyResult> result = new ArrayList<>();
+    PriceSeries result = null;
     try {
-      result = this.alphaVantageAPI.alphaVantageEndpointTimeSeriesDaily("GOOG");
+      result = this.alphaVantageAPI.alphaVantageEndpointTimeSeriesDailySeries("GOOG", true);
     } catch (StockDataSourceException e) {
       fail("Error in Stock Data Source: " + e.getMessage());
     }
 
-    var last = result.get(result.size() - 1);
-
     // values from March 27, 2014
-    assertEquals(last.getOpenValue().toString(), "568.0000");
-    assertEquals(last.getHighValue().toString(), "568.0000");
-    assertEquals(last.getLowValue().toString(), "552.9200");
-    assertEquals(last.getCloseValue().toString(), "558.4600");
+    assertEquals(LocalDate.of(2014, 3, 27).toEpochDay(), result.getEpochDay(0));
+    assertEquals(result.getClose(0).toString(), "558.4600");
   }
 
   @Test
   public void testTimeSeriesDailyUnsupportedSymbol() {
     try {
-      List<IAVTimeSeriesDailyResult> result =
-          this.alphaVantageAPI.alphaVantageEndpointTimeSeriesDaily("GOOGS");
+      this.alphaVantageAPI.alphaVantageEndpointTimeSeriesDailySeries("GOOGS", true);
     } catch (IllegalArgumentException e) {
       assertEquals("Provided stock symbol: GOOGS is not supported by the API!", e.getMessage());
       return;
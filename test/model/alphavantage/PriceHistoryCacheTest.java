@@ -0,0 +1,72 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the persistent price history cache of the {@code AlphaVantageAPI}.
+ */
+public class PriceHistoryCacheTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private Path directory;
+  private PriceHistoryCache cache;
+
+  @Before
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("price-history-cache-test");
+    this.cache = new PriceHistoryCache(this.directory);
+  }
+
+  private int[] getEpochDays(PriceSeries series) {
+    int[] result = new int[series.size()];
+    for (int i = 0; i < series.size(); i++) {
+      result[i] = series.getEpochDay(i);
+    }
+    return result;
+  }
+
+  private long[] getCloses(PriceSeries series) {
+    long[] result = new long[series.size()];
+    for (int i = 0; i < series.size(); i++) {
+      result[i] = series.getScaledClose(i);
+    }
+    return result;
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testReadMissingSymbol() {
+    assertNull(this.cache.read("GOOG"));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    PriceSeries series = new PriceSeries(19300, new int[]{19000, 19001, 19004},
+        new long[]{5584600, 5600000, 5512300});
+    this.cache.write("GOOG", series);
+
+    PriceSeries read = this.cache.read("GOOG");
+
+    assertEquals(19300, read.getFetchedOn());
+    assertArrayEquals(new int[]{19000, 19001, 19004}, this.getEpochDays(read));
+    assertArrayEquals(new long[]{5584600, 5600000, 5512300}, this.getCloses(read));
+    assertEquals(19004, read.getLastEpochDay());
+  }
+
+  @Test
+  public void testReadCorruptFile() throws IOException {
+    Files.write(this.directory.resolve("GOOG.prices"), new byte[]{1, 2, 3});
+
+    assertNull(this.cache.read("GOOG"));
+  }
+}
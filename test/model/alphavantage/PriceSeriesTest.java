@@ -0,0 +1,100 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the date indexed price series used by the {@code AlphaVantageAPI}.
+ */
+public class PriceSeriesTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private PriceSeries series;
+
+  @Before
+  public void setup() {
+    // a friday, the following monday and tuesday, and the friday after a holiday week
+    this.series = new PriceSeries(19010, new int[]{18990, 18993, 18994, 19004},
+        new long[]{10000, 20000, 30000, 40000});
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testIndexOnOrBefore() {
+    assertEquals(-1, this.series.indexOnOrBefore(18989));
+    assertEquals(0, this.series.indexOnOrBefore(18990));
+    assertEquals(0, this.series.indexOnOrBefore(18992));
+    assertEquals(1, this.series.indexOnOrBefore(18993));
+    assertEquals(2, this.series.indexOnOrBefore(19003));
+    assertEquals(3, this.series.indexOnOrBefore(19004));
+    assertEquals(3, this.series.indexOnOrBefore(19100));
+  }
+
+  @Test
+  public void testIndexOnOrAfter() {
+    assertEquals(0, this.series.indexOnOrAfter(18900));
+    assertEquals(0, this.series.indexOnOrAfter(18990));
+    assertEquals(1, this.series.indexOnOrAfter(18991));
+    assertEquals(3, this.series.indexOnOrAfter(18995));
+    assertEquals(3, this.series.indexOnOrAfter(19004));
+    assertEquals(4, this.series.indexOnOrAfter(19005));
+  }
+
+  @Test
+  public void testEmptySeries() {
+    PriceSeries empty = new PriceSeries(19010, new int[0], new long[0]);
+
+    assertEquals(-1, empty.indexOnOrBefore(19000));
+    assertEquals(0, empty.indexOnOrAfter(19000));
+    assertEquals(Integer.MIN_VALUE, empty.getLastEpochDay());
+  }
+
+  @Test
+  public void testGetCloseIsReused() {
+    BigDecimal close = this.series.getClose(1);
+
+    assertEquals("2.0000", close.toString());
+    assertSame(close, this.series.getClose(1));
+  }
+
+  @Test
+  public void testUnorderedDays() {
+    try {
+      new PriceSeries(19010, new int[]{18993, 18990}, new long[]{1, 2});
+    } catch (IllegalArgumentException e) {
+      assertEquals("The days in a price series have to be ascending!", e.getMessage());
+      return;
+    }
+    fail("The days provided are not ascending and the constructor should have thrown an error!");
+  }
+
+  @Test
+  public void testMergeOverlappingSeries() {
+    PriceSeries newer = new PriceSeries(19020, new int[]{18994, 19004, 19005},
+        new long[]{31000, 41000, 50000});
+
+    PriceSeries merged = this.series.merge(newer);
+
+    assertEquals(19020, merged.getFetchedOn());
+    assertEquals(5, merged.size());
+    assertEquals(20000, merged.getScaledClose(1));
+    assertEquals(31000, merged.getScaledClose(2));
+    assertEquals(41000, merged.getScaledClose(3));
+    assertEquals(19005, merged.getLastEpochDay());
+  }
+
+  @Test
+  public void testScaledPriceConversion() {
+    long scaled = PriceSeries.toScaledPrice(new BigDecimal("558.4600"));
+
+    assertEquals(5584600, scaled);
+    assertEquals("558.4600", PriceSeries.fromScaledPrice(scaled).toString());
+  }
+}
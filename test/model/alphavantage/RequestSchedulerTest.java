@@ -0,0 +1,236 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.portfolio.StockDataSourceException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the request scheduler of the Alpha Vantage API, directly and against a
+ * local stub of the API.
+ */
+public class RequestSchedulerTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private AlphaVantageStubServer server;
+
+  @Before
+  public void setup() throws IOException {
+    this.server = new AlphaVantageStubServer();
+  }
+
+  @After
+  public void tearDown() {
+    this.server.stop();
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Scheduler tests">
+
+  @Test
+  public void testInvalidLimits() {
+    try {
+      new RequestScheduler(0, 0, 0, 0);
+    } catch (IllegalArgumentException e) {
+      assertEquals("Requests per minute has to be a positive number!", e.getMessage());
+      return;
+    }
+    fail("The scheduler should not be created without a request rate!");
+  }
+
+  @Test
+  public void testRetriesThrottledRequest() throws StockDataSourceException {
+    RequestScheduler scheduler = new RequestScheduler(6000, 0, 3, 1);
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = scheduler.execute(eRequestPriority.INTERACTIVE, () -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new RequestThrottledException("throttled");
+      }
+      return "done";
+    });
+
+    assertEquals("done", result);
+    assertEquals(3, attempts.get());
+    assertEquals(3, scheduler.getRequestCount());
+    assertEquals(2, scheduler.getThrottledCount());
+  }
+
+  @Test
+  public void testThrottledAfterAllRetries() {
+    RequestScheduler scheduler = new RequestScheduler(6000, 0, 2, 1);
+
+    try {
+      scheduler.execute(eRequestPriority.INTERACTIVE, () -> {
+        throw new RequestThrottledException("throttled");
+      });
+    } catch (StockDataSourceException e) {
+      assertEquals("The request limit of the API has been reached! Please try again later.",
+          e.getMessage());
+      assertEquals(3, scheduler.getThrottledCount());
+      return;
+    }
+    fail("The request is always throttled and the scheduler should have thrown an error!");
+  }
+
+  @Test
+  public void testDailyLimit() throws StockDataSourceException {
+    RequestScheduler scheduler = new RequestScheduler(60, 2, 0, 0);
+
+    scheduler.execute(eRequestPriority.INTERACTIVE, () -> 1);
+    scheduler.execute(eRequestPriority.BACKGROUND, () -> 2);
+
+    try {
+      scheduler.execute(eRequestPriority.INTERACTIVE, () -> 3);
+    } catch (StockDataSourceException e) {
+      assertEquals("The daily request limit of the API has been reached!", e.getMessage());
+      assertEquals(2, scheduler.getRequestCount());
+      return;
+    }
+    fail("The daily limit is reached and the scheduler should have thrown an error!");
+  }
+
+  @Test
+  public void testInteractiveBeforeBackground() throws Exception {
+    // a new token every 100 ms once the initial burst is used up
+    RequestScheduler scheduler = new RequestScheduler(600, 0, 0, 0);
+    for (int i = 0; i < 600; i++) {
+      scheduler.execute(eRequestPriority.BACKGROUND, () -> null);
+    }
+
+    List<eRequestPriority> order = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+    for (eRequestPriority priority : new eRequestPriority[]{eRequestPriority.BACKGROUND,
+        eRequestPriority.BACKGROUND, eRequestPriority.INTERACTIVE}) {
+      Thread thread = new Thread(() -> {
+        try {
+          scheduler.execute(priority, () -> order.add(priority));
+        } catch (StockDataSourceException e) {
+          // the order check below fails
+        }
+      });
+      threads.add(thread);
+      thread.start();
+
+      // the requests are queued one after the other
+      while (scheduler.getQueueDepth() < threads.size() && order.isEmpty()) {
+        Thread.sleep(1);
+      }
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(3, order.size());
+    assertEquals(eRequestPriority.INTERACTIVE, order.get(0));
+    assertTrue(scheduler.getMaxQueueDepth() >= 2);
+    assertTrue(scheduler.getMaxWaitMillis() > 0);
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Stub API tests">
+
+  @Test
+  public void testStubAPIRetriesThrottledResponse() throws StockDataSourceException {
+    RequestScheduler scheduler = new RequestScheduler(6000, 0, 3, 1);
+    AlphaVantageAPI api = this.server.createAPI(null, scheduler);
+    this.server.setThrottledResponses(2);
+
+    assertEquals("232.1300",
+        api.getStockPrice("GOOG", Utils.convertStringToDate("2022-10-31", "yyyy-MM-dd"), false)
+            .toString());
+
+    assertEquals(3, this.server.getTimeSeriesRequests());
+    assertEquals(2, scheduler.getThrottledCount());
+    // two listing requests and three time series requests
+    assertEquals(5, scheduler.getRequestCount());
+    assertEquals(0, scheduler.getQueueDepth());
+  }
+
+  @Test
+  public void testStubAPIThrottledAfterAllRetries() throws StockDataSourceException {
+    AlphaVantageAPI api = this.server.createAPI(null, new RequestScheduler(6000, 0, 1, 1));
+    this.server.setThrottledResponses(Integer.MAX_VALUE);
+
+    try {
+      api.getStockPrice("GOOG", Utils.convertStringToDate("2022-10-31", "yyyy-MM-dd"), false);
+    } catch (StockDataSourceException e) {
+      assertEquals("The request limit of the API has been reached! Please try again later.",
+          e.getMessage());
+      assertEquals(2, this.server.getTimeSeriesRequests());
+      return;
+    }
+    fail("The API always throttles and the request should have failed!");
+  }
+
+  @Test(timeout = 10000)
+  public void testStubAPIPriceBeforeBackgroundPrefetch() throws Exception {
+    // a new token every 500 ms once the initial burst is used up
+    RequestScheduler scheduler = new RequestScheduler(120, 0, 0, 0);
+    AlphaVantageAPI api = this.server.createAPI(null, scheduler);
+    api.getStock("GOOG");
+    while (scheduler.getRequestCount() < 120) {
+      scheduler.execute(eRequestPriority.BACKGROUND, () -> null);
+    }
+
+    List<String> prefetched = List.of("AAPL", "AMZN", "NFLX", "MSFT");
+    Thread prefetch = new Thread(() -> {
+      try {
+        api.prefetch(prefetched, eRequestPriority.BACKGROUND);
+      } catch (StockDataSourceException e) {
+        // the request count check below fails
+      }
+    });
+    prefetch.start();
+
+    // every load of the prefetch is waiting for a token before the price is requested
+    while (scheduler.getQueueDepth() < prefetched.size()) {
+      Thread.sleep(1);
+    }
+
+    BigDecimal price = api.getStockPrice("GOOG",
+        Utils.convertStringToDate("2022-10-31", "yyyy-MM-dd"), false);
+    List<String> servedBeforePrice = this.server.getTimeSeriesSymbols();
+    prefetch.join();
+
+    assertEquals("232.1300", price.toString());
+    assertEquals(List.of("GOOG"), servedBeforePrice);
+    assertEquals(prefetched.size() + 1, this.server.getTimeSeriesRequests());
+  }
+
+  @Test(timeout = 10000)
+  public void testStubAPIRejectedRequestNotRetried() throws StockDataSourceException {
+    RequestScheduler scheduler = new RequestScheduler(6000, 0, 3, 1000);
+    AlphaVantageAPI api = this.server.createAPI(null, scheduler);
+    this.server.setTimeSeriesPremium(true);
+
+    try {
+      api.getStockPrice("GOOG", Utils.convertStringToDate("2022-10-31", "yyyy-MM-dd"), false);
+    } catch (StockDataSourceException e) {
+      assertEquals("The API rejected the request! Please check the API key and the requested data.",
+          e.getMessage());
+      // waiting does not help, so the request fails without retries
+      assertEquals(1, this.server.getTimeSeriesRequests());
+      assertEquals(0, scheduler.getThrottledCount());
+      return;
+    }
+    fail("The API rejects the request and the request should have failed!");
+  }
+
+  //</editor-fold>
+}
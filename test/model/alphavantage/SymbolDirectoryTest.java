@@ -0,0 +1,132 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the packed directory of listed stocks.
+ */
+public class SymbolDirectoryTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private Path directory;
+  private SymbolDirectory symbolDirectory;
+
+  @Before
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("symbol-directory-test");
+    this.symbolDirectory = new SymbolDirectory.Builder()
+        .add("GOOGL", "Alphabet Inc - Class A", "NASDAQ", "Stock", "Active", 12000,
+            SymbolDirectory.NO_DELISTING_DAY)
+        .add("GOOG", "Alphabet Inc - Class C", "NASDAQ", "Stock", "Active", 16156,
+            SymbolDirectory.NO_DELISTING_DAY)
+        .add("AAPL", "Apple Inc", "NASDAQ", "Stock", "Active", 3999,
+            SymbolDirectory.NO_DELISTING_DAY)
+        .add("AAC", "Ares Acquisition Corp", "NYSE", "Stock", "Delisted", 18700, 19200)
+        .add("A", "Agilent Technologies Inc", "NYSE", "Stock", "Active", 10914,
+            SymbolDirectory.NO_DELISTING_DAY)
+        .build(19300);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(this.directory)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private List<String> getSymbols(SymbolDirectory directory, List<Integer> indices) {
+    List<String> symbols = new ArrayList<>();
+    for (int index : indices) {
+      symbols.add(directory.getSymbol(index));
+    }
+    return symbols;
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testLookup() {
+    assertEquals(5, this.symbolDirectory.size());
+    assertEquals(19300, this.symbolDirectory.getFetchedOn());
+
+    int index = this.symbolDirectory.indexOf("AAC");
+    assertEquals("AAC", this.symbolDirectory.getSymbol(index));
+    assertEquals("Ares Acquisition Corp", this.symbolDirectory.getName(index));
+    assertEquals("NYSE", this.symbolDirectory.getExchange(index));
+    assertEquals("Stock", this.symbolDirectory.getAssetType(index));
+    assertEquals("Delisted", this.symbolDirectory.getStatus(index));
+    assertEquals(18700, this.symbolDirectory.getIpoDay(index));
+    assertEquals(19200, this.symbolDirectory.getDelistingDay(index));
+
+    assertEquals("GOOG", this.symbolDirectory.getSymbol(this.symbolDirectory.indexOf("GOOG")));
+    assertEquals("A", this.symbolDirectory.getSymbol(this.symbolDirectory.indexOf("A")));
+    assertEquals(-1, this.symbolDirectory.indexOf("GOO"));
+    assertEquals(-1, this.symbolDirectory.indexOf("GOOGS"));
+    assertEquals(-1, this.symbolDirectory.indexOf("ZZZ"));
+  }
+
+  @Test
+  public void testSymbolPrefixSearch() {
+    assertEquals(List.of("GOOG", "GOOGL"),
+        this.getSymbols(this.symbolDirectory,
+            this.symbolDirectory.findBySymbolPrefix("GOO", 10)));
+    assertEquals(List.of("A", "AAC"),
+        this.getSymbols(this.symbolDirectory, this.symbolDirectory.findBySymbolPrefix("A", 2)));
+    assertEquals(List.of(),
+        this.getSymbols(this.symbolDirectory, this.symbolDirectory.findBySymbolPrefix("B", 10)));
+  }
+
+  @Test
+  public void testNamePrefixSearch() {
+    assertEquals(List.of("GOOGL", "GOOG"),
+        this.getSymbols(this.symbolDirectory,
+            this.symbolDirectory.findByNamePrefix("alphabet", 10)));
+    assertEquals(List.of("A", "GOOGL"),
+        this.getSymbols(this.symbolDirectory, this.symbolDirectory.findByNamePrefix("A", 2)));
+    assertEquals(List.of(),
+        this.getSymbols(this.symbolDirectory,
+            this.symbolDirectory.findByNamePrefix("Microsoft", 10)));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Path path = this.directory.resolve("listing-status.dir");
+    this.symbolDirectory.write(path);
+
+    SymbolDirectory mapped = SymbolDirectory.read(path);
+
+    assertEquals(5, mapped.size());
+    assertEquals(19300, mapped.getFetchedOn());
+    int index = mapped.indexOf("GOOG");
+    assertEquals("Alphabet Inc - Class C", mapped.getName(index));
+    assertEquals("NASDAQ", mapped.getExchange(index));
+    assertEquals(16156, mapped.getIpoDay(index));
+    assertEquals(SymbolDirectory.NO_DELISTING_DAY, mapped.getDelistingDay(index));
+    assertEquals(List.of("AAC", "AAPL"),
+        this.getSymbols(mapped, mapped.findBySymbolPrefix("AA", 10)));
+  }
+
+  @Test
+  public void testReadMissingOrCorruptFile() throws IOException {
+    Path path = this.directory.resolve("listing-status.dir");
+    assertNull(SymbolDirectory.read(path));
+
+    Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+    assertNull(SymbolDirectory.read(path));
+  }
+}
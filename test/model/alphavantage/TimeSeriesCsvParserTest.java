@@ -0,0 +1,105 @@
+package model.alphavantage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import org.junit.Test;
+
+/**
+ * This test class tests the streaming parser of the time series daily endpoint responses.
+ */
+public class TimeSeriesCsvParserTest {
+
+  //<editor-fold desc="Helpers">
+
+  private TimeSeriesCsvParser createParser(String text) {
+    return new TimeSeriesCsvParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private int epochDay(int year, int month, int day) {
+    return (int) LocalDate.of(year, month, day).toEpochDay();
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testParse() throws IOException {
+    String response = "timestamp,open,high,low,close,volume\r\n"
+        + "2022-10-31,233.7600,234.9200,231.1500,232.1300,28357256\r\n"
+        + "2022-10-28,226.2400,236.0000,225.2500,235.8700,40647742\r\n"
+        + "2014-03-27,568.0000,568.0000,552.9200,558.46,13100\r\n";
+    TimeSeriesCsvParser parser = this.createParser(response);
+
+    PriceSeries series = parser.parse(19300);
+
+    assertEquals(3, series.size());
+    assertEquals(3, parser.getRowsRead());
+    assertEquals(response.length(), parser.getBytesRead());
+    assertEquals(19300, series.getFetchedOn());
+
+    assertEquals(this.epochDay(2014, 3, 27), series.getEpochDay(0));
+    assertEquals("558.4600", series.getClose(0).toString());
+    assertEquals(this.epochDay(2022, 10, 28), series.getEpochDay(1));
+    assertEquals("235.8700", series.getClose(1).toString());
+    assertEquals(this.epochDay(2022, 10, 31), series.getEpochDay(2));
+    assertEquals("232.1300", series.getClose(2).toString());
+  }
+
+  @Test
+  public void testParseRoundsExtraDecimals() throws IOException {
+    PriceSeries series = this.createParser("timestamp,open,high,low,close,volume\n"
+        + "2022-10-31,1,1,1,10.123456,1\n"
+        + "2022-11-01,1,1,1,7,1").parse(19300);
+
+    assertEquals("10.1235", series.getClose(0).toString());
+    assertEquals("7.0000", series.getClose(1).toString());
+  }
+
+  @Test
+  public void testParseHeaderOnly() throws IOException {
+    PriceSeries series = this.createParser("timestamp,open,high,low,close,volume\r\n")
+        .parse(19300);
+
+    assertEquals(0, series.size());
+  }
+
+  @Test
+  public void testParseErrorResponse() throws IOException {
+    try {
+      this.createParser("{\n    \"Error Message\": \"Invalid API call.\"\n}").parse(19300);
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided String is not in expected format!", e.getMessage());
+      return;
+    }
+    fail("The response is not a CSV and the parser should have thrown an error!");
+  }
+
+  @Test
+  public void testParseInvalidNumber() throws IOException {
+    try {
+      this.createParser("timestamp,open,high,low,close,volume\n"
+          + "2022-10-31,1,1,1,abc,1\n").parse(19300);
+    } catch (IllegalArgumentException e) {
+      assertEquals("One or more provided values is not a number!", e.getMessage());
+      return;
+    }
+    fail("The close value is not a number and the parser should have thrown an error!");
+  }
+
+  @Test
+  public void testReadLine() throws IOException {
+    TimeSeriesCsvParser parser = this.createParser(
+        "symbol,name\r\nNSRGY,Nestl\u00e9 SA\r\n\nLAST,No newline");
+
+    assertEquals("symbol,name", parser.readLine());
+    assertEquals("NSRGY,Nestl\u00e9 SA", parser.readLine());
+    assertEquals("", parser.readLine());
+    assertEquals("LAST,No newline", parser.readLine());
+    assertNull(parser.readLine());
+  }
+}
@@ -2,10 +2,12 @@ package model.chart;
 
 import static org.junit.Assert.assertEquals;
 
+import common.Utils;
 import common.pair.Pair;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import model.portfolio.TradingCalendar;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -349,6 +351,27 @@ public class ChartTest {
     assertEquals(new Date(2000, 0, 10), intervals.getO2().get(9));
   }
 
+  @Test
+  public void testChartService_GetChartInterval_TradingDays() {
+    start = Utils.convertStringToDate("2022-11-19", "yyyy-MM-dd");
+    end = Utils.convertStringToDate("2022-12-04", "yyyy-MM-dd");
+    intervals = chartService.getChartInterval(start, end, TradingCalendar.getDefault());
+
+    // weekends and Thanksgiving are left out
+    assertEquals(eChartInterval.DAILY, intervals.getO1());
+    assertEquals(9, intervals.getO2().size());
+    assertEquals(Utils.convertStringToDate("2022-11-21", "yyyy-MM-dd"), intervals.getO2().get(0));
+    assertEquals(Utils.convertStringToDate("2022-11-25", "yyyy-MM-dd"), intervals.getO2().get(3));
+    assertEquals(Utils.convertStringToDate("2022-12-02", "yyyy-MM-dd"), intervals.getO2().get(8));
+
+    end = Utils.convertStringToDate("2023-02-10", "yyyy-MM-dd");
+    intervals = chartService.getChartInterval(start, end, TradingCalendar.getDefault());
+
+    assertEquals(eChartInterval.MULTI_DAILY, intervals.getO1());
+    assertEquals(Utils.convertStringToDate("2023-02-10", "yyyy-MM-dd"),
+        intervals.getO2().get(intervals.getO2().size() - 1));
+  }
+
   @Test
   public void testChartService_GetChartInterval_LessThanMinimumInterval()
       throws IllegalArgumentException {
@@ -0,0 +1,176 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import model.StockDataSourceMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the export and import of portfolio stores as binary snapshots.
+ */
+public class BinarySnapshotTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private IStockDataSource source;
+  private FlexiblePortfolioStore flexibleStore;
+  private PortfolioStore store;
+
+  @Before
+  public void setup() throws StockDataSourceException, InstantiationException {
+    this.source = new StockDataSourceMock();
+
+    this.flexibleStore = new FlexiblePortfolioStore(this.source);
+    IFlexiblePortfolio portfolio = new FlexiblePortfolio(this.source, "Flexible", null);
+    portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10.125")),
+        new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2"))), new BigDecimal(0));
+    portfolio.sellStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2017-06-01"), new BigDecimal("4"))),
+        new BigDecimal("2.50"));
+    this.flexibleStore.save(portfolio);
+    this.flexibleStore.save(new FlexiblePortfolio(this.source, "Empty", null));
+
+    this.store = new PortfolioStore(this.source);
+    this.store.save(Portfolio.getBuilder().setName("Fixed")
+        .addStocks(this.source, List.of(new Pair<>("GOOG", new BigDecimal("3.5")),
+            new Pair<>("A", new BigDecimal(1)))).create());
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  private <T extends IAbstractPortfolio> List<String> describe(IAbstractPortfolioStore<T> store) {
+    List<String> result = new ArrayList<>();
+    store.forEach((portfolio, id) -> {
+      result.add(id + ":" + portfolio.getName());
+      result.addAll(portfolio.toCsvRows());
+    });
+    return result;
+  }
+
+  private byte[] export(IAbstractPortfolioStore<?> store) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    store.exportItemsToBinary(outputStream);
+    return outputStream.toByteArray();
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testFlexiblePortfoliosRoundTrip() throws IOException, InstantiationException {
+    byte[] snapshot = this.export(this.flexibleStore);
+
+    FlexiblePortfolioStore imported = new FlexiblePortfolioStore(this.source);
+    imported.importItemsFromBinary(new ByteArrayInputStream(snapshot));
+
+    // the sale and the scales of the amounts are kept
+    assertEquals(this.describe(this.flexibleStore), this.describe(imported));
+    assertEquals(new BigDecimal("6.125"), imported.retrieve(0).getStocks().get(0).getVolume());
+  }
+
+  @Test
+  public void testDollarCostDatesRoundTripWestOfNewYork() throws Exception {
+    TimeZone defaultTimeZone = TimeZone.getDefault();
+    TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+
+    try {
+      // the occurrences after the first are at midnight in New York, still the day before here
+      IFlexiblePortfolio portfolio = new FlexiblePortfolio(this.source, "Recurring", null);
+      portfolio.addDollarCostInvestment(this.source, this.date("2022-10-29"),
+          new BigDecimal(500), new BigDecimal(1), List.of(new Pair<>("A", new BigDecimal(100))),
+          true, this.date("2022-12-31"), eRecurringIntervalType.DAILY, 7);
+      FlexiblePortfolioStore store = new FlexiblePortfolioStore(this.source);
+      store.save(portfolio);
+
+      FlexiblePortfolioStore imported = new FlexiblePortfolioStore(this.source);
+      imported.importItemsFromBinary(new ByteArrayInputStream(this.export(store)));
+
+      var transactions = portfolio.getStocks().get(0).getTransactions();
+      assertEquals(10, transactions.size());
+      assertEquals(transactions, imported.retrieve(0).getStocks().get(0).getTransactions());
+    } finally {
+      TimeZone.setDefault(defaultTimeZone);
+    }
+  }
+
+  @Test
+  public void testPortfoliosRoundTrip() throws IOException, InstantiationException {
+    PortfolioStore imported = new PortfolioStore(this.source);
+    imported.importItemsFromBinary(new ByteArrayInputStream(this.export(this.store)));
+
+    assertEquals(this.describe(this.store), this.describe(imported));
+  }
+
+  @Test
+  public void testSmallerThanCsv() throws IOException, StockDataSourceException {
+    IFlexiblePortfolio portfolio = this.flexibleStore.retrieve(0);
+    int epochDay = Utils.convertDateToEpochDay(this.date("2018-01-01"));
+    for (int i = 1; i <= 200; i++) {
+      portfolio.buyStocks(this.source, List.of(new Triplet<>("MSFT",
+          Utils.convertEpochDayToDate(epochDay + i), new BigDecimal(i))), new BigDecimal(1));
+    }
+
+    ByteArrayOutputStream csv = new ByteArrayOutputStream();
+    this.flexibleStore.exportItemsToCsv(csv);
+    assertTrue(this.export(this.flexibleStore).length * 4 < csv.size());
+  }
+
+  @Test
+  public void testDifferentKind() throws IOException, InstantiationException {
+    try {
+      new PortfolioStore(this.source).importItemsFromBinary(
+          new ByteArrayInputStream(this.export(this.flexibleStore)));
+      fail("A snapshot of flexible portfolios should not have been imported!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid input: The snapshot holds a different kind of portfolios!",
+          e.getMessage());
+    }
+  }
+
+  @Test
+  public void testUnsupportedVersion() throws IOException, InstantiationException {
+    byte[] snapshot = this.export(this.flexibleStore);
+    snapshot[BinarySnapshotWriter.MAGIC.length] = 2;
+
+    try {
+      new FlexiblePortfolioStore(this.source).importItemsFromBinary(
+          new ByteArrayInputStream(snapshot));
+      fail("A snapshot of an unknown version should not have been imported!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid input: Version 2 of the portfolio snapshot is not supported!",
+          e.getMessage());
+    }
+  }
+
+  @Test
+  public void testTruncatedSnapshot() throws IOException, InstantiationException {
+    byte[] snapshot = this.export(this.flexibleStore);
+    byte[] truncated = new byte[snapshot.length - 3];
+    System.arraycopy(snapshot, 0, truncated, 0, truncated.length);
+
+    FlexiblePortfolioStore imported = new FlexiblePortfolioStore(this.source);
+    try {
+      imported.importItemsFromBinary(new ByteArrayInputStream(truncated));
+      fail("A truncated snapshot should not have been imported!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid input: The snapshot ends unexpectedly!", e.getMessage());
+    }
+    assertEquals(0, imported.getItemCount());
+  }
+}
@@ -0,0 +1,137 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+
+import common.Utils;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import jdk.jshell.spi.ExecutionControl.NotImplementedException;
+import model.StockDataSourceMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests that the past occurrences of dollar cost investments are materialised
+ * with one batched price lookup.
+ */
+public class DollarCostEngineTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private int priceBatches;
+  private int priceLookups;
+  private IStockDataSource source;
+
+  @Before
+  public void setup() {
+    this.priceBatches = 0;
+    this.priceLookups = 0;
+    this.source = new StockDataSourceMock() {
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        priceLookups++;
+        return super.getStockPrice(symbol, date, takeFuturePrice);
+      }
+
+      @Override
+      public List<BigDecimal> getStockPrices(String symbol, List<Date> dates,
+          boolean takeFuturePrice) throws StockDataSourceException {
+        priceBatches++;
+        return super.getStockPrices(symbol, dates, takeFuturePrice);
+      }
+    };
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testDailyInvestment() throws StockDataSourceException {
+    IDollarCostInvestment dci = new DollarCostInvestment(this.date("2016-01-01"),
+        new BigDecimal("100"), new BigDecimal("1"),
+        new RecurringEvent(this.date("2020-12-31"), eRecurringIntervalType.DAILY, 1));
+    IFlexiblePortfolioStock stock = new FlexiblePortfolioStock(this.source, "GOOG", "Google",
+        "NASDAQ", dci);
+
+    // 2016 to 2020 has 1827 days
+    var transactions = stock.getTransactions();
+    assertEquals(1827, transactions.size());
+    assertEquals(this.date("2016-01-01"), transactions.get(0).getO1());
+    assertEquals(new BigDecimal("0.10"), transactions.get(0).getO2().getO1());
+    assertEquals(new BigDecimal("182.70"), stock.getVolume());
+
+    assertEquals(1, this.priceBatches);
+    assertEquals(0, stock.getDollarCostInvestments().size());
+  }
+
+  @Test
+  public void testOccurrencesContinueAfterToday() throws NotImplementedException {
+    Date today = this.date("2020-03-15");
+    IDollarCostInvestment dci = new DollarCostInvestment(this.date("2020-01-31"),
+        new BigDecimal("100"), new BigDecimal("1"),
+        new RecurringEvent(null, eRecurringIntervalType.MONTHLY, 1));
+
+    var occurrences = DollarCostEngine.getPastOccurrences(dci, today);
+
+    // the next date follows from the previous occurrence, as with getNextDate
+    Date second = RecurringEvent.getNextDate(this.date("2020-01-31"),
+        eRecurringIntervalType.MONTHLY, 1);
+    assertEquals(List.of(this.date("2020-01-31"), second), occurrences.getO1());
+    assertEquals(RecurringEvent.getNextDate(second, eRecurringIntervalType.MONTHLY, 1),
+        occurrences.getO2());
+  }
+
+  @Test
+  public void testFutureInvestmentFetchesNoPrices() throws StockDataSourceException {
+    Date start = Utils.convertEpochDayToDate(Utils.getTodayEpochDay() + 10);
+    IDollarCostInvestment dci = new DollarCostInvestment(start, new BigDecimal("100"),
+        new BigDecimal("1"), null);
+    IFlexiblePortfolioStock stock = new FlexiblePortfolioStock(this.source, "GOOG", "Google",
+        "NASDAQ", dci);
+
+    assertEquals(0, stock.getTransactions().size());
+    assertEquals(0, this.priceBatches + this.priceLookups);
+    assertEquals(1, stock.getDollarCostInvestments().size());
+  }
+
+  @Test
+  public void testOccurrencesWestOfNewYork() throws StockDataSourceException {
+    TimeZone defaultTimeZone = TimeZone.getDefault();
+    TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+
+    try {
+      List<Date> requestedDates = new ArrayList<>();
+      IStockDataSource source = new StockDataSourceMock() {
+        @Override
+        public List<BigDecimal> getStockPrices(String symbol, List<Date> dates,
+            boolean takeFuturePrice) throws StockDataSourceException {
+          requestedDates.addAll(dates);
+          return super.getStockPrices(symbol, dates, takeFuturePrice);
+        }
+      };
+
+      // every seven days on Saturdays, the occurrences after the first are at midnight in New
+      // York, which is still Friday in Los Angeles
+      IDollarCostInvestment dci = new DollarCostInvestment(this.date("2022-10-29"),
+          new BigDecimal("100"), new BigDecimal("1"),
+          new RecurringEvent(this.date("2022-11-12"), eRecurringIntervalType.DAILY, 7));
+      var occurrences = DollarCostEngine.getPastOccurrences(dci, this.date("2022-12-01"));
+      var transactions = DollarCostEngine.getTransactions(source, "A", dci,
+          occurrences.getO1());
+
+      // each occurrence is bought on the Monday after it, not on the Friday before
+      assertEquals(List.of(this.date("2022-10-31"), this.date("2022-11-07"),
+          this.date("2022-11-14")), requestedDates);
+      assertEquals(occurrences.getO1().size(), transactions.size());
+    } finally {
+      TimeZone.setDefault(defaultTimeZone);
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.StockDataSourceMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests finding the stocks of a flexible portfolio by their symbol, and valuing
+ * them concurrently.
+ */
+public class FlexiblePortfolioTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private IStockDataSource source;
+  private IFlexiblePortfolio portfolio;
+
+  @Before
+  public void setup() throws StockDataSourceException {
+    this.source = new StockDataSourceMock();
+    this.portfolio = new FlexiblePortfolio(this.source, "Lookup", null);
+
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10")),
+        new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2"))), new BigDecimal(1));
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testTransactionsAddedToExistingStock() throws StockDataSourceException {
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("MSFT", this.date("2017-03-01"), new BigDecimal("3")),
+        new Triplet<>("GOOG", this.date("2017-03-01"), new BigDecimal("1"))), new BigDecimal(1));
+    this.portfolio.sellStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2018-03-01"), new BigDecimal("4"))), new BigDecimal(1));
+
+    var stocks = this.portfolio.getStocks();
+    assertEquals(2, stocks.size());
+    assertEquals("GOOG", stocks.get(0).getSymbol());
+    assertEquals(new BigDecimal("7"), stocks.get(0).getVolume());
+    assertEquals(3, stocks.get(0).getTransactions().size());
+    assertEquals(new BigDecimal("5"), stocks.get(1).getVolume());
+  }
+
+  @Test
+  public void testIndexedTransactions() throws StockDataSourceException {
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2014-06-02"), new BigDecimal("1.5"))), new BigDecimal(2));
+    this.portfolio.sellStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2018-03-01"), new BigDecimal("4"))), new BigDecimal(1));
+
+    // the indexed getters see the same transactions as the list, in date order
+    IObservableFlexiblePortfolioStock stock = this.portfolio.getStocks().get(0);
+    var transactions = stock.getTransactions();
+    assertEquals(3, stock.getTransactionCount());
+    for (int i = 0; i < transactions.size(); i++) {
+      assertEquals(transactions.get(i).getO1().getTime(), stock.getTransactionTime(i));
+      assertEquals(transactions.get(i).getO2().getO1(), stock.getTransactionVolume(i));
+      assertEquals(transactions.get(i).getO2().getO2(), stock.getTransactionPrice(i));
+      assertEquals(transactions.get(i).getO2().getO3(), stock.getTransactionCommissionFees(i));
+    }
+    assertEquals(this.date("2014-06-02").getTime(), stock.getTransactionTime(0));
+    assertEquals(new BigDecimal("-4"), stock.getTransactionVolume(2));
+  }
+
+  @Test
+  public void testStocksView() throws StockDataSourceException {
+    var stocks = this.portfolio.getStocks();
+    assertSame(stocks, this.portfolio.getStocks());
+
+    try {
+      stocks.clear();
+      fail("The stocks of the portfolio should not be modifiable!");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("NFLX", this.date("2018-03-01"), new BigDecimal("1"))), new BigDecimal(1));
+
+    // a stock added later is not seen through the earlier list
+    assertEquals(2, stocks.size());
+    assertEquals(3, this.portfolio.getStocks().size());
+  }
+
+  @Test
+  public void testParallelValuation() throws StockDataSourceException, InterruptedException {
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("NFLX", this.date("2018-03-01"), new BigDecimal("1")),
+        new Triplet<>("TSLA", this.date("2018-03-01"), new BigDecimal("3"))), new BigDecimal(1));
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    IStockDataSource slowSource = new StockDataSourceMock() {
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        return super.getStockPrice(symbol, date, takeFuturePrice);
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Date date = this.date("2019-01-01");
+      var serial = this.portfolio.getValue(this.source, date);
+      var parallel = this.portfolio.getValue(slowSource, date, executor);
+
+      assertEquals(serial.getO1(), parallel.getO1());
+      for (int i = 0; i < serial.getO2().size(); i++) {
+        assertEquals(serial.getO2().get(i).getSymbol(), parallel.getO2().get(i).getSymbol());
+        assertEquals(serial.getO2().get(i).getValue(), parallel.getO2().get(i).getValue());
+      }
+      assertTrue(maxRunning.get() > 1);
+      assertEquals(this.portfolio.getCostBasis(this.source, date),
+          this.portfolio.getCostBasis(slowSource, date, executor));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelValuationError() {
+    IStockDataSource failingSource = new StockDataSourceMock() {
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        throw new StockDataSourceException("Price of " + symbol + " is not available!");
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      this.portfolio.getValue(failingSource, this.date("2019-01-01"), executor);
+      fail("The error of the data source should be thrown!");
+    } catch (StockDataSourceException e) {
+      // the error of the first stock is thrown, as when valuing one stock after another
+      assertEquals("Price of GOOG is not available!", e.getMessage());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testConcurrentProjectedCostBasis() throws Exception {
+    Date start = Utils.convertEpochDayToDate(Utils.getTodayEpochDay() + 3);
+    IFlexiblePortfolio reference = new FlexiblePortfolio(this.source, "Reference", null);
+    reference.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10")),
+        new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2"))), new BigDecimal(1));
+    for (IFlexiblePortfolio portfolio : List.of(this.portfolio, reference)) {
+      portfolio.addDollarCostInvestment(this.source, start, new BigDecimal(100),
+          new BigDecimal(1), List.of(new Pair<>("GOOG", new BigDecimal(100))), true, null,
+          eRecurringIntervalType.DAILY, 2);
+    }
+
+    List<Date> dates = new ArrayList<>();
+    List<BigDecimal> expected = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Date date = Utils.convertEpochDayToDate(Utils.getTodayEpochDay() + 5 + i * 3);
+      dates.add(date);
+      expected.add(reference.getCostBasis(this.source, date));
+    }
+
+    // the projected cost basis of the stock is cached while other threads read and fill it
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<BigDecimal>>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(executor.submit(() -> {
+          List<BigDecimal> costBases = new ArrayList<>();
+          for (Date date : dates) {
+            costBases.add(this.portfolio.getCostBasis(this.source, date));
+          }
+          return costBases;
+        }));
+      }
+
+      for (Future<List<BigDecimal>> result : results) {
+        assertEquals(expected, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPositionsTooPreciseForIndex() throws StockDataSourceException {
+    FlexiblePortfolioStock stock = new FlexiblePortfolioStock("A", "A", "NYSE",
+        new BigDecimal("100000"), this.date("2022-01-10"), new BigDecimal("10"),
+        new BigDecimal("1"));
+
+    // the volume does not fit at the scale of the earlier one, so the history is used instead
+    BigDecimal tiny = new BigDecimal("0.000000000000000001");
+    stock.addTransaction(this.date("2022-01-05"), tiny, new BigDecimal("1"), new BigDecimal(0));
+    try {
+      stock.addTransaction(this.date("2022-01-06"), tiny.add(tiny).negate(), new BigDecimal("1"),
+          new BigDecimal(0));
+      fail("The volume should not have become negative!");
+    } catch (IllegalStateException e) {
+      // the sale was not added
+    }
+    stock.addTransaction(this.date("2022-01-11"), new BigDecimal("-100000"),
+        new BigDecimal("12"), new BigDecimal(0));
+
+    assertEquals(tiny, stock.getValueOnDate(this.source, this.date("2022-01-07")).getO1());
+    assertEquals(new BigDecimal("100000.000000000000000001"),
+        stock.getValueOnDate(this.source, this.date("2022-01-10")).getO1());
+    assertEquals(tiny, stock.getValueOnDate(this.source, this.date("2022-01-11")).getO1());
+    assertEquals(new BigDecimal("1000001.000000000000000001"),
+        stock.getCostBasis(this.source, this.date("2022-01-11")));
+    assertEquals(3, stock.getTransactions().size());
+  }
+}
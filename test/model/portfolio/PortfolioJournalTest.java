@@ -0,0 +1,258 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+import model.StockDataSourceMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests that the flexible portfolios of a store are restored from its journal.
+ */
+public class PortfolioJournalTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private Path directory;
+  private IStockDataSource source;
+  private FlexiblePortfolioStore store;
+
+  @Before
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("journal");
+    this.source = new StockDataSourceMock();
+    this.store = new FlexiblePortfolioStore(this.source);
+    this.store.openJournal(this.directory);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    this.store.closeJournal();
+    try (Stream<Path> files = Files.walk(this.directory)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  private IFlexiblePortfolio createPortfolio(String name) throws StockDataSourceException {
+    IFlexiblePortfolio portfolio = new FlexiblePortfolio(this.source, name, null);
+    this.store.save(portfolio);
+
+    portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10")),
+        new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2"))), new BigDecimal(1));
+    portfolio.sellStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2017-06-01"), new BigDecimal("4"))), new BigDecimal(2));
+    portfolio.addDollarCostInvestment(this.source, this.date("2019-01-01"), new BigDecimal(500),
+        new BigDecimal(1), List.of(new Pair<>("GOOG", new BigDecimal(60)),
+            new Pair<>("A", new BigDecimal(40))), true, null, eRecurringIntervalType.YEARLY, 1);
+    portfolio.addRebalance(this.source, this.date("2018-01-02"), new BigDecimal(20000),
+        List.of(new Pair<>("GOOG", new BigDecimal(50)), new Pair<>("MSFT", new BigDecimal(50))));
+    return portfolio;
+  }
+
+  /**
+   * Reopens the journal in a store whose data source has no prices, so the portfolios can only be
+   * restored from the recorded prices.
+   */
+  private FlexiblePortfolioStore reopen() throws IOException {
+    this.store.closeJournal();
+
+    FlexiblePortfolioStore result = new FlexiblePortfolioStore(new StockDataSourceMock() {
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        throw new StockDataSourceException("No prices are available!");
+      }
+    });
+    result.openJournal(this.directory);
+    return result;
+  }
+
+  private List<String> describe(IFlexiblePortfolio portfolio) {
+    List<String> result = new ArrayList<>(portfolio.toCsvRows());
+    for (var dollarCostInvestment : portfolio.getDollarCostInvestments()) {
+      IDollarCostInvestment dci = dollarCostInvestment.getO2();
+      result.add(dollarCostInvestment.getO1() + "," + dci.getDate().getTime() + ","
+          + dci.getAmount() + "," + dci.getCommissionFees() + ","
+          + dci.getRecurringEvent().getRecurringIntervalType());
+    }
+    for (var rebalance : portfolio.getRebalanceData()) {
+      if (rebalance.getO2() != null) {
+        result.add(rebalance.getO1() + "," + rebalance.getO2().getDate().getTime() + ","
+            + rebalance.getO2().getAmount() + "," + rebalance.getO2().getWeight());
+      }
+    }
+    return result;
+  }
+
+  private List<List<String>> describeAll(FlexiblePortfolioStore store) {
+    List<List<String>> result = new ArrayList<>();
+    store.forEach((portfolio, id) -> result.add(this.describe(portfolio)));
+    return result;
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testReplay() throws IOException, StockDataSourceException {
+    IFlexiblePortfolio portfolio = this.createPortfolio("Journaled");
+    this.store.save(new FlexiblePortfolio(this.source, "Empty", null));
+
+    List<List<String>> expected = this.describeAll(this.store);
+    assertEquals(2, portfolio.getDollarCostInvestments().size());
+    assertEquals(3, portfolio.getRebalanceData().size());
+
+    this.store = this.reopen();
+    assertEquals(2, this.store.getItemCount());
+    assertEquals("Empty", this.store.retrieve(1).getName());
+    assertEquals(expected, this.describeAll(this.store));
+  }
+
+  @Test
+  public void testChangesAfterReplay() throws IOException, StockDataSourceException {
+    this.createPortfolio("Journaled");
+    this.store = this.reopen();
+    this.store.closeJournal();
+
+    this.store = new FlexiblePortfolioStore(this.source);
+    this.store.openJournal(this.directory);
+    this.store.retrieve(0).buyStocks(this.source, List.of(
+        new Triplet<>("AMZN", this.date("2020-02-03"), new BigDecimal("3"))), new BigDecimal(0));
+    List<List<String>> expected = this.describeAll(this.store);
+
+    this.store = this.reopen();
+    assertEquals(expected, this.describeAll(this.store));
+  }
+
+  @Test
+  public void testCompaction() throws IOException, StockDataSourceException {
+    this.createPortfolio("Compacted");
+    this.store.compactJournal();
+    assertTrue(Files.exists(this.directory.resolve(PortfolioJournal.SNAPSHOT_FILE_NAME)));
+
+    this.store.retrieve(0).sellStocks(this.source, List.of(
+        new Triplet<>("MSFT", this.date("2020-02-03"), new BigDecimal("1"))), new BigDecimal(0));
+    List<List<String>> expected = this.describeAll(this.store);
+
+    this.store = this.reopen();
+    assertEquals(expected, this.describeAll(this.store));
+  }
+
+  @Test
+  public void testJournalIncludedInSnapshot() throws IOException, StockDataSourceException {
+    this.createPortfolio("Compacted");
+    List<List<String>> expected = this.describeAll(this.store);
+
+    // the application stops after the snapshot is written but before the journal starts over
+    Path journal = this.directory.resolve(PortfolioJournal.JOURNAL_FILE_NAME);
+    Path copy = this.directory.resolve("copy");
+    Files.copy(journal, copy);
+    this.store.compactJournal();
+    this.store.closeJournal();
+    Files.move(copy, journal, StandardCopyOption.REPLACE_EXISTING);
+
+    this.store = this.reopen();
+    assertEquals(expected, this.describeAll(this.store));
+  }
+
+  @Test
+  public void testIncompleteRecord() throws IOException, StockDataSourceException {
+    this.createPortfolio("Torn");
+    List<List<String>> expected = this.describeAll(this.store);
+    this.store.closeJournal();
+
+    // the application stops while a record is written
+    Files.write(this.directory.resolve(PortfolioJournal.JOURNAL_FILE_NAME),
+        "T\t0\tGOOG\tAlph".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    this.store = new FlexiblePortfolioStore(this.source);
+    this.store.openJournal(this.directory);
+    assertEquals(expected, this.describeAll(this.store));
+
+    // records appended after the incomplete record are replayed
+    this.store.save(new FlexiblePortfolio(this.source, "After", null));
+    this.store = this.reopen();
+    assertEquals(2, this.store.getItemCount());
+  }
+
+  @Test
+  public void testUncommittedChange() throws IOException, StockDataSourceException {
+    this.createPortfolio("Uncommitted");
+    List<List<String>> expected = this.describeAll(this.store);
+    this.store.closeJournal();
+
+    // the application stops between the trades of a purchase of two stocks
+    Files.write(this.directory.resolve(PortfolioJournal.JOURNAL_FILE_NAME),
+        ("B\t0\nT\t0\tGOOG\tAlphabet Inc\tNASDAQ\t" + this.date("2020-02-03").getTime()
+            + "\t1\t100\t0\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    this.store = new FlexiblePortfolioStore(this.source);
+    this.store.openJournal(this.directory);
+    assertEquals(expected, this.describeAll(this.store));
+
+    // the next change of the portfolio is replayed without the uncommitted one
+    this.store.retrieve(0).buyStocks(this.source, List.of(
+        new Triplet<>("AMZN", this.date("2020-02-03"), new BigDecimal("3")),
+        new Triplet<>("MSFT", this.date("2020-02-03"), new BigDecimal("1"))), new BigDecimal(0));
+    expected = this.describeAll(this.store);
+
+    this.store = this.reopen();
+    assertEquals(expected, this.describeAll(this.store));
+  }
+
+  @Test
+  public void testChangesCommitted() throws IOException, StockDataSourceException {
+    this.createPortfolio("Committed");
+
+    List<String> records = Files.readAllLines(
+        this.directory.resolve(PortfolioJournal.JOURNAL_FILE_NAME), StandardCharsets.UTF_8);
+    List<String> markers = new ArrayList<>();
+    for (String record : records) {
+      if (record.startsWith("B\t") || record.startsWith("C\t")) {
+        markers.add(record);
+      }
+    }
+
+    // the portfolio is saved, and two trades, a dollar cost investment and a rebalance are made
+    assertEquals(List.of("B\t0", "C\t0", "B\t0", "C\t0", "B\t0", "C\t0", "B\t0", "C\t0",
+        "B\t0", "C\t0"), markers);
+    assertEquals("C\t0", records.get(records.size() - 1));
+  }
+
+  @Test
+  public void testOpenNonEmptyStore() {
+    FlexiblePortfolioStore store = new FlexiblePortfolioStore(this.source);
+    store.save(new FlexiblePortfolio(this.source, "Unjournaled", null));
+    try {
+      store.openJournal(this.directory);
+      fail("A journal should not have been opened for a store with portfolios!");
+    } catch (IllegalStateException | IOException e) {
+      assertEquals("A journal can only be opened for an empty store without a journal!",
+          e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+
+import common.Utils;
+import common.triplet.Triplet;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import model.StockDataSourceMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests that valuing a flexible portfolio on many dates in one sweep matches
+ * valuing it one date at a time.
+ */
+public class PortfolioValueSweepTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private IStockDataSource source;
+  private IFlexiblePortfolio portfolio;
+
+  @Before
+  public void setup() throws StockDataSourceException {
+    this.source = new StockDataSourceMock();
+    this.portfolio = new FlexiblePortfolio(this.source, "Sweep", null);
+
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10")),
+        new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2.5")),
+        new Triplet<>("GOOG", this.date("2017-06-15"), new BigDecimal("4"))), new BigDecimal(1));
+    this.portfolio.sellStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2018-02-01"), new BigDecimal("6"))), new BigDecimal(1));
+    // the delisted stock is valued at -1 after its delisting date
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("AMZN", this.date("2019-01-01"), new BigDecimal("1"))), new BigDecimal(1));
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testValuesMatchValueOnEachDate() throws StockDataSourceException {
+    List<Date> dates = new ArrayList<>();
+    for (String text : new String[]{"2018-02-01", "2014-01-01", "2015-01-05", "2016-02-29",
+        "2017-06-15", "2015-01-05", "2022-01-01", "2018-01-31"}) {
+      dates.add(this.date(text));
+    }
+
+    List<BigDecimal> values = this.portfolio.getValues(this.source, dates);
+
+    assertEquals(dates.size(), values.size());
+    for (int i = 0; i < dates.size(); i++) {
+      assertEquals(this.portfolio.getValue(this.source, dates.get(i)).getO1(), values.get(i));
+    }
+    assertEquals(new BigDecimal("19000.0"), values.get(4));
+  }
+
+  @Test
+  public void testNoDates() throws StockDataSourceException {
+    assertEquals(0, this.portfolio.getValues(this.source, new ArrayList<>()).size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFutureDate() throws StockDataSourceException {
+    this.portfolio.getValues(this.source,
+        List.of(this.date("2018-01-01"), Utils.convertEpochDayToDate(
+            Utils.getTodayEpochDay() + 5)));
+  }
+}
@@ -0,0 +1,107 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import java.math.BigDecimal;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the cumulative position index of a stock's transactions.
+ */
+public class PositionIndexTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private PositionIndex positionIndex;
+
+  @Before
+  public void setup() {
+    this.positionIndex = new PositionIndex();
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testEmptyIndex() {
+    assertEquals(new BigDecimal(0), this.positionIndex.getVolumeOn(this.date("2022-01-01")));
+    assertEquals(new BigDecimal(0), this.positionIndex.getCostOn(this.date("2022-01-01")));
+  }
+
+  @Test
+  public void testFloorLookup() {
+    this.positionIndex.add(this.date("2022-01-10"), new BigDecimal("10"), new BigDecimal("105"));
+    this.positionIndex.add(this.date("2022-02-10"), new BigDecimal("-4"), new BigDecimal("5"));
+    this.positionIndex.add(this.date("2022-02-10"), new BigDecimal("2"), new BigDecimal("25"));
+
+    assertEquals(new BigDecimal(0), this.positionIndex.getVolumeOn(this.date("2022-01-09")));
+    assertEquals(new BigDecimal("10"), this.positionIndex.getVolumeOn(this.date("2022-01-10")));
+    assertEquals(new BigDecimal("105"), this.positionIndex.getCostOn(this.date("2022-02-09")));
+    assertEquals(new BigDecimal("8"), this.positionIndex.getVolumeOn(this.date("2022-02-10")));
+    assertEquals(new BigDecimal("135"), this.positionIndex.getCostOn(this.date("2022-12-31")));
+  }
+
+  @Test
+  public void testInsertBeforeLastDate() {
+    this.positionIndex.add(this.date("2022-03-01"), new BigDecimal("5"), new BigDecimal("50"));
+    this.positionIndex.add(this.date("2022-01-01"), new BigDecimal("1"), new BigDecimal("10"));
+    this.positionIndex.add(this.date("2022-02-01"), new BigDecimal("2"), new BigDecimal("20"));
+
+    assertEquals(new BigDecimal("1"), this.positionIndex.getVolumeOn(this.date("2022-01-15")));
+    assertEquals(new BigDecimal("3"), this.positionIndex.getVolumeOn(this.date("2022-02-15")));
+    assertEquals(new BigDecimal("8"), this.positionIndex.getVolumeOn(this.date("2022-03-01")));
+    assertEquals(new BigDecimal("80"), this.positionIndex.getCostOn(this.date("2022-03-01")));
+  }
+
+  @Test
+  public void testManyTransactions() {
+    int start = Utils.convertDateToEpochDay(this.date("2010-01-01"));
+    for (int i = 0; i < 2000; i++) {
+      this.positionIndex.add(Utils.convertEpochDayToDate(start + i), new BigDecimal("1.5"),
+          new BigDecimal("3"));
+    }
+
+    assertEquals(new BigDecimal("1500.0"),
+        this.positionIndex.getVolumeOn(Utils.convertEpochDayToDate(start + 999)));
+    assertEquals(new BigDecimal("6000"), this.positionIndex.getCostOn(this.date("2022-01-01")));
+  }
+
+  @Test
+  public void testScalesOfBigDecimalSums() {
+    this.positionIndex.add(this.date("2022-01-10"), new BigDecimal("10"), new BigDecimal("1E+2"));
+    this.positionIndex.add(this.date("2022-03-10"), new BigDecimal("-2.25"),
+        new BigDecimal("1.5"));
+    this.positionIndex.add(this.date("2022-02-10"), new BigDecimal("0.5"), new BigDecimal("7"));
+
+    // each position has the scale of the sum of the transactions up to it
+    assertEquals(new BigDecimal("10"), this.positionIndex.getVolumeOn(this.date("2022-01-10")));
+    assertEquals(new BigDecimal("100"), this.positionIndex.getCostOn(this.date("2022-01-10")));
+    assertEquals(new BigDecimal("10.5"), this.positionIndex.getVolumeOn(this.date("2022-02-10")));
+    assertEquals(new BigDecimal("8.25"), this.positionIndex.getVolumeOn(this.date("2022-03-10")));
+    assertEquals(new BigDecimal("108.5"), this.positionIndex.getCostOn(this.date("2022-03-10")));
+  }
+
+  @Test
+  public void testTooPreciseLeavesIndexUnchanged() {
+    this.positionIndex.add(this.date("2022-01-10"), new BigDecimal("100000"), new BigDecimal("1"));
+
+    try {
+      // fits on its own, but not at the scale of the earlier volume added to it
+      this.positionIndex.add(this.date("2022-01-01"), new BigDecimal("0.000000000000000001"),
+          new BigDecimal("1"));
+      fail("A position which does not fit should not have been added!");
+    } catch (ArithmeticException e) {
+      assertEquals(new BigDecimal(0), this.positionIndex.getVolumeOn(this.date("2022-01-01")));
+      assertEquals(new BigDecimal("100000"),
+          this.positionIndex.getVolumeOn(this.date("2022-01-10")));
+      assertEquals(new BigDecimal("1"), this.positionIndex.getCostOn(this.date("2022-01-10")));
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import common.pair.Pair;
+import common.triplet.Triplet;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.StockDataSourceMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests valuing and rebalancing a flexible portfolio from a snapshot of prices.
+ */
+public class PriceSnapshotTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private AtomicInteger priceLookups;
+  private IStockDataSource source;
+  private IFlexiblePortfolio portfolio;
+
+  @Before
+  public void setup() throws StockDataSourceException {
+    this.priceLookups = new AtomicInteger();
+    this.source = new StockDataSourceMock() {
+      @Override
+      public BigDecimal getStockPrice(String symbol, Date date, boolean takeFuturePrice)
+          throws StockDataSourceException {
+        priceLookups.incrementAndGet();
+        return super.getStockPrice(symbol, date, takeFuturePrice);
+      }
+    };
+    this.portfolio = new FlexiblePortfolio(this.source, "Snapshot", null);
+
+    this.portfolio.buyStocks(this.source, List.of(
+        new Triplet<>("GOOG", this.date("2015-01-05"), new BigDecimal("10")),
+        new Triplet<>("MSFT", this.date("2016-03-01"), new BigDecimal("2"))), new BigDecimal(1));
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testPricesResolvedOnce() throws StockDataSourceException {
+    Date date = this.date("2019-01-01");
+    this.priceLookups.set(0);
+
+    PriceSnapshot snapshot = PriceSnapshot.of(this.source, date,
+        List.of("GOOG", "MSFT", "GOOG"));
+    assertEquals(2, this.priceLookups.get());
+    assertEquals(List.of("GOOG", "MSFT"), List.copyOf(snapshot.getSymbols()));
+
+    var expected = this.portfolio.getValue(this.source, date);
+    this.priceLookups.set(0);
+    var value = this.portfolio.getValue(snapshot);
+
+    assertEquals(0, this.priceLookups.get());
+    assertEquals(expected.getO1(), value.getO1());
+    assertEquals(this.portfolio.getCostBasis(this.source, date),
+        this.portfolio.getCostBasis(snapshot));
+  }
+
+  @Test
+  public void testSnapshotCannotBeModified() throws StockDataSourceException {
+    Date date = this.date("2019-01-01");
+    PriceSnapshot snapshot = PriceSnapshot.of(this.source, date, List.of("GOOG"));
+
+    date.setTime(0);
+    snapshot.getDate().setTime(0);
+    assertEquals(this.date("2019-01-01"), snapshot.getDate());
+
+    try {
+      snapshot.getSymbols().add("MSFT");
+      fail("The symbols of the snapshot should not be modifiable!");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMissingSymbol() throws StockDataSourceException {
+    PriceSnapshot snapshot = PriceSnapshot.of(this.source, this.date("2019-01-01"),
+        List.of("GOOG"));
+
+    try {
+      snapshot.getPrice("MSFT");
+      fail("The price of a stock not in the snapshot should not be given!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The price of stock symbol: MSFT is not in the snapshot!", e.getMessage());
+    }
+
+    try {
+      this.portfolio.getValue(snapshot);
+      fail("The portfolio should not be valued without the prices of all its stocks!");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRebalance() throws StockDataSourceException {
+    Date date = this.date("2019-01-01");
+    PriceSnapshot snapshot = PriceSnapshot.of(this.source, date, List.of("GOOG", "MSFT"));
+    BigDecimal total = this.portfolio.getValue(snapshot).getO1();
+    this.priceLookups.set(0);
+
+    this.portfolio.addRebalance(this.source, snapshot, total, List.of(
+        new Pair<>("GOOG", new BigDecimal(50)), new Pair<>("MSFT", new BigDecimal(50))));
+
+    // the prices of the trades are taken from the snapshot
+    assertEquals(0, this.priceLookups.get());
+    var stocks = this.portfolio.getValue(snapshot).getO2();
+    assertEquals(0, stocks.get(0).getValue().compareTo(stocks.get(1).getValue()));
+  }
+}
@@ -0,0 +1,84 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+
+import common.Utils;
+import java.util.Date;
+import jdk.jshell.spi.ExecutionControl.NotImplementedException;
+import org.junit.Test;
+
+/**
+ * This test class tests that occurrences of recurring events computed arithmetically match
+ * stepping through them with {@code getNextDate}.
+ */
+public class RecurringEventTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  private void assertMatchesSteps(String start, eRecurringIntervalType intervalType,
+      int intervalDelta, String before) throws NotImplementedException {
+    Date startDate = this.date(start);
+    Date beforeDate = this.date(before);
+
+    Date currentDate = startDate;
+    long occurrence = 0;
+    while (currentDate.before(beforeDate)) {
+      assertEquals(currentDate, RecurringEvent.getOccurrenceDate(startDate, intervalType,
+          intervalDelta, occurrence));
+      currentDate = RecurringEvent.getNextDate(currentDate, intervalType, intervalDelta);
+      occurrence++;
+    }
+
+    assertEquals(occurrence,
+        RecurringEvent.countOccurrences(startDate, intervalType, intervalDelta, beforeDate));
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testDaily() throws NotImplementedException {
+    this.assertMatchesSteps("2022-11-05", eRecurringIntervalType.DAILY, 1, "2032-11-05");
+    this.assertMatchesSteps("2022-11-05", eRecurringIntervalType.DAILY, 9, "2025-03-10");
+  }
+
+  @Test
+  public void testMonthlyEndOfMonth() throws NotImplementedException {
+    this.assertMatchesSteps("2022-01-31", eRecurringIntervalType.MONTHLY, 1, "2040-01-01");
+    this.assertMatchesSteps("2022-03-31", eRecurringIntervalType.MONTHLY, 12, "2060-01-01");
+    this.assertMatchesSteps("2023-08-30", eRecurringIntervalType.MONTHLY, 7, "2050-01-01");
+  }
+
+  @Test
+  public void testMonthlyLeapDay() throws NotImplementedException {
+    // every 4 years on the 29th of February, clamped in 2100
+    this.assertMatchesSteps("2096-02-29", eRecurringIntervalType.MONTHLY, 48, "2310-01-01");
+    this.assertMatchesSteps("2024-01-29", eRecurringIntervalType.MONTHLY, 25, "2400-01-01");
+    this.assertMatchesSteps("1996-02-29", eRecurringIntervalType.MONTHLY, 4800, "2900-01-01");
+  }
+
+  @Test
+  public void testYearlyLeapDay() throws NotImplementedException {
+    this.assertMatchesSteps("2024-02-29", eRecurringIntervalType.YEARLY, 1, "2060-01-01");
+    this.assertMatchesSteps("2000-02-29", eRecurringIntervalType.YEARLY, 4, "2210-01-01");
+    this.assertMatchesSteps("2000-02-29", eRecurringIntervalType.YEARLY, 400, "3210-01-01");
+    this.assertMatchesSteps("2096-02-29", eRecurringIntervalType.YEARLY, 8, "2310-01-01");
+  }
+
+  @Test
+  public void testNoOccurrences() throws NotImplementedException {
+    assertEquals(0, RecurringEvent.countOccurrences(this.date("2022-11-05"),
+        eRecurringIntervalType.DAILY, 1, this.date("2022-11-05")));
+    assertEquals(0, RecurringEvent.countOccurrences(this.date("2022-11-05"),
+        eRecurringIntervalType.YEARLY, 1, this.date("2020-01-01")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroDelta() throws NotImplementedException {
+    RecurringEvent.countOccurrences(this.date("2022-11-05"), eRecurringIntervalType.DAILY, 0,
+        this.date("2023-11-05"));
+  }
+}
@@ -0,0 +1,125 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.Utils;
+import common.pair.Pair;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the validation of the running volume of a stock's transactions.
+ */
+public class RunningVolumeTreeTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private RunningVolumeTree runningVolumeTree;
+
+  @Before
+  public void setup() {
+    this.runningVolumeTree = new RunningVolumeTree();
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testSellBeforeBuy() {
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("-1")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("1")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("-1")));
+  }
+
+  @Test
+  public void testEarlierSellMakesLaterVolumeNegative() {
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("10")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-03-01"), new BigDecimal("-8")));
+
+    // valid on its own date, but leaves only 2 for the sale of 8 in march
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-3")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-2")));
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-04-01"), new BigDecimal("-0.5")));
+  }
+
+  @Test
+  public void testSameDateOrder() {
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("5")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-5")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("5")));
+
+    // selling on the same date is placed after the existing transactions
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-5")));
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-1")));
+  }
+
+  @Test
+  public void testBatchValidatedAsAWhole() {
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("5")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-05-01"), new BigDecimal("-5")));
+
+    // the sale in february is only valid together with the purchase in march
+    assertFalse(this.runningVolumeTree.tryAddAll(
+        List.of(new Pair<>(this.date("2022-02-01"), new BigDecimal("-5")))));
+    assertTrue(this.runningVolumeTree.tryAddAll(
+        List.of(new Pair<>(this.date("2022-03-01"), new BigDecimal("5")),
+            new Pair<>(this.date("2022-02-01"), new BigDecimal("-5")))));
+
+    // nothing of a rejected batch is added
+    assertFalse(this.runningVolumeTree.tryAddAll(
+        List.of(new Pair<>(this.date("2022-06-01"), new BigDecimal("1")),
+            new Pair<>(this.date("2022-06-01"), new BigDecimal("-2")))));
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-07-01"), new BigDecimal("-1")));
+  }
+
+  @Test
+  public void testManyTransactions() {
+    int start = Utils.convertDateToEpochDay(this.date("2000-01-01"));
+    for (int i = 0; i < 5000; i++) {
+      assertTrue(this.runningVolumeTree.tryAdd(Utils.convertEpochDayToDate(start + i),
+          new BigDecimal(i % 2 == 0 ? "2" : "-1")));
+    }
+
+    // 2500 are held at the end, but only 1 after the first date
+    assertFalse(this.runningVolumeTree.tryAdd(Utils.convertEpochDayToDate(start),
+        new BigDecimal("-2")));
+    assertTrue(this.runningVolumeTree.tryAdd(Utils.convertEpochDayToDate(start + 4999),
+        new BigDecimal("-2500")));
+  }
+
+  @Test
+  public void testMorePreciseVolumeAdded() {
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("3")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-03-01"), new BigDecimal("-2")));
+
+    // the earlier volumes are compared at the scale of the new ones
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-1.001")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-02-01"), new BigDecimal("-0.999")));
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-04-01"), new BigDecimal("-1E-3")));
+    assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-04-01"), new BigDecimal("-1E-3")));
+  }
+
+  @Test
+  public void testTooPreciseLeavesTreeUnchanged() {
+    assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-01-01"), new BigDecimal("100000")));
+
+    try {
+      this.runningVolumeTree.tryAddAll(
+          List.of(new Pair<>(this.date("2022-02-01"), new BigDecimal("-0.000000000000000001"))));
+      fail("A volume which does not fit should not have been added!");
+    } catch (ArithmeticException e) {
+      assertFalse(this.runningVolumeTree.tryAdd(this.date("2022-02-01"),
+          new BigDecimal("-100001")));
+      assertTrue(this.runningVolumeTree.tryAdd(this.date("2022-02-01"),
+          new BigDecimal("-100000")));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the trading days of the trading calendar.
+ */
+public class TradingCalendarTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private TradingCalendar calendar;
+
+  @Before
+  public void setup() {
+    this.calendar = TradingCalendar.getDefault();
+  }
+
+  private int day(String text) {
+    return (int) LocalDate.parse(text).toEpochDay();
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testHolidays() {
+    // Good Friday, Juneteenth observed on Monday and Christmas observed on Monday
+    assertFalse(this.calendar.isTradingDay(this.day("2022-04-15")));
+    assertFalse(this.calendar.isTradingDay(this.day("2022-06-20")));
+    assertFalse(this.calendar.isTradingDay(this.day("2022-12-26")));
+    assertFalse(this.calendar.isTradingDay(this.day("2022-11-24")));
+    assertFalse(this.calendar.isTradingDay(this.day("2022-10-29")));
+
+    // New Year's Day on a Saturday is not observed on the Friday before
+    assertTrue(this.calendar.isTradingDay(this.day("2021-12-31")));
+    assertTrue(this.calendar.isTradingDay(this.day("2022-11-25")));
+  }
+
+  @Test
+  public void testNextAndPreviousTradingDay() {
+    assertEquals(this.day("2022-11-25"), this.calendar.nextTradingDay(this.day("2022-11-24")));
+    assertEquals(this.day("2022-11-23"), this.calendar.previousTradingDay(this.day("2022-11-24")));
+    assertEquals(this.day("2022-04-18"), this.calendar.nextTradingDay(this.day("2022-04-15")));
+    assertEquals(this.day("2022-04-14"),
+        this.calendar.previousTradingDay(this.day("2022-04-17")));
+    assertEquals(this.day("2022-11-23"), this.calendar.nextTradingDay(this.day("2022-11-23")));
+  }
+
+  @Test
+  public void testTradingDaysBetween() {
+    assertEquals(251, this.calendar.tradingDaysBetween(this.day("2022-01-01"),
+        this.day("2022-12-31")));
+    assertEquals(0, this.calendar.tradingDaysBetween(this.day("2022-01-02"),
+        this.day("2022-01-01")));
+    assertArrayEquals(new int[]{this.day("2022-11-23"), this.day("2022-11-25"),
+            this.day("2022-11-28")},
+        this.calendar.getTradingDays(this.day("2022-11-23"), this.day("2022-11-28")));
+  }
+
+  @Test
+  public void testObservedTradingDays() {
+    // the exchange was closed on 2012-10-29 and 2012-10-30 for a hurricane
+    TradingCalendar refined = this.calendar.withTradingDays(new int[]{this.day("2012-10-25"),
+        this.day("2012-10-26"), this.day("2012-10-31"), this.day("2012-11-01")});
+
+    assertTrue(this.calendar.isTradingDay(this.day("2012-10-29")));
+    assertFalse(refined.isTradingDay(this.day("2012-10-29")));
+    assertEquals(this.day("2012-10-31"), refined.nextTradingDay(this.day("2012-10-27")));
+    assertEquals(this.day("2012-10-26"), refined.previousTradingDay(this.day("2012-10-30")));
+    // the days before and after the observed days are counted by the holiday rules
+    assertEquals(6, refined.tradingDaysBetween(this.day("2012-10-24"),
+        this.day("2012-11-02")));
+
+    // outside the observed days the holiday rules apply
+    assertFalse(refined.isTradingDay(this.day("2012-11-22")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testObservedTradingDaysNotAscending() {
+    this.calendar.withTradingDays(new int[]{2, 1});
+  }
+}
@@ -0,0 +1,86 @@
+package model.portfolio;
+
+import static org.junit.Assert.assertEquals;
+
+import common.Utils;
+import java.math.BigDecimal;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test class tests the columnar transaction ledger of a stock.
+ */
+public class TransactionLedgerTest {
+
+  //<editor-fold desc="Setup and internal variables">
+
+  private TransactionLedger ledger;
+
+  @Before
+  public void setup() {
+    this.ledger = new TransactionLedger();
+  }
+
+  private Date date(String text) {
+    return Utils.convertStringToDate(text, "yyyy-MM-dd");
+  }
+
+  //</editor-fold>
+
+  @Test
+  public void testValuesKeptExactly() {
+    this.ledger.add(this.date("2022-01-10"), new BigDecimal("10.50"), new BigDecimal("135.2345"),
+        new BigDecimal("1"));
+    this.ledger.add(this.date("2022-01-11"), new BigDecimal("-0.000001"),
+        new BigDecimal("1E+3"), new BigDecimal("0.0"));
+
+    assertEquals(new BigDecimal("10.50"), this.ledger.getVolume(0));
+    assertEquals(new BigDecimal("135.2345"), this.ledger.getPrice(0));
+    assertEquals(new BigDecimal("1"), this.ledger.getCommissionFees(0));
+    assertEquals(new BigDecimal("-0.000001"), this.ledger.getVolume(1));
+    assertEquals(new BigDecimal("1E+3"), this.ledger.getPrice(1));
+    assertEquals(new BigDecimal("0.0"), this.ledger.getCommissionFees(1));
+  }
+
+  @Test
+  public void testDateOrder() {
+    this.ledger.add(this.date("2022-03-01"), new BigDecimal("1"), new BigDecimal("1"),
+        new BigDecimal("0"));
+    this.ledger.add(this.date("2022-01-01"), new BigDecimal("2"), new BigDecimal("1"),
+        new BigDecimal("0"));
+    this.ledger.add(this.date("2022-03-01"), new BigDecimal("3"), new BigDecimal("1"),
+        new BigDecimal("0"));
+    this.ledger.add(this.date("2022-01-01"), new BigDecimal("4"), new BigDecimal("1"),
+        new BigDecimal("0"));
+
+    // transactions on the same date keep the order they were added in
+    var transactions = this.ledger.toList();
+    assertEquals(4, transactions.size());
+    assertEquals(this.date("2022-01-01"), transactions.get(0).getO1());
+    assertEquals(new BigDecimal("2"), transactions.get(0).getO2().getO1());
+    assertEquals(new BigDecimal("4"), transactions.get(1).getO2().getO1());
+    assertEquals(new BigDecimal("1"), transactions.get(2).getO2().getO1());
+    assertEquals(this.date("2022-03-01"), transactions.get(3).getO1());
+    assertEquals(new BigDecimal("3"), transactions.get(3).getO2().getO1());
+  }
+
+  @Test
+  public void testManyTransactions() {
+    int start = Utils.convertDateToEpochDay(this.date("2000-01-01"));
+    for (int i = 0; i < 10000; i++) {
+      this.ledger.add(Utils.convertEpochDayToDate(start + i), new BigDecimal("0.25"),
+          new BigDecimal("100.1234"), new BigDecimal("0.5"));
+    }
+
+    assertEquals(10000, this.ledger.size());
+    assertEquals(Utils.convertEpochDayToDate(start + 9999), this.ledger.getDate(9999));
+    assertEquals(new BigDecimal("100.1234"), this.ledger.getPrice(5000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooPrecise() {
+    TransactionLedger.validate(new BigDecimal("1.00000000000000000000001"), new BigDecimal("1"),
+        new BigDecimal("0"));
+  }
+}
@@ -0,0 +1,206 @@
+package model.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import common.pair.Pair;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A test class to test the store shared by multiple threads.
+ */
+public class ConcurrentStoreTest {
+
+  //<editor-fold desc="Setup">
+
+  private static final int THREAD_COUNT = 8;
+  private static final int ITEMS_PER_THREAD = 2000;
+
+  private IStore<String> store;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    this.store = new ConcurrentStore<>();
+    this.executor = Executors.newFixedThreadPool(THREAD_COUNT + 1);
+  }
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<T>> futures = new ArrayList<>();
+    for (Callable<T> task : tasks) {
+      futures.add(this.executor.submit(() -> {
+        start.await();
+        return task.call();
+      }));
+    }
+    start.countDown();
+
+    List<T> result = new ArrayList<>();
+    for (Future<T> future : futures) {
+      result.add(future.get());
+    }
+    return result;
+  }
+
+  //</editor-fold>
+
+  @Test(timeout = 60000)
+  public void testConcurrentSaveRetrieveGetAll() throws Exception {
+    AtomicInteger saversLeft = new AtomicInteger(THREAD_COUNT);
+    List<Callable<Integer>> tasks = new ArrayList<>();
+
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      int thread = t;
+      tasks.add(() -> {
+        for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+          String item = "Portfolio " + thread + "-" + i;
+          if (i % 10 == 0) {
+            List<Integer> ids = this.store.saveAll(List.of(item, item + "b"));
+            assertEquals(item + "b", this.store.retrieve(ids.get(1)));
+            i++;
+          } else {
+            assertEquals(item, this.store.retrieve(this.store.save(item)));
+          }
+        }
+        saversLeft.decrementAndGet();
+        return 0;
+      });
+    }
+
+    // reads snapshots while the items are saved
+    tasks.add(() -> {
+      int snapshots = 0;
+      while (saversLeft.get() > 0) {
+        List<Pair<Integer, String>> all = this.store.getAll();
+        for (int i = 0; i < all.size(); i++) {
+          assertEquals(Integer.valueOf(i), all.get(i).getO1());
+          assertNotNull(all.get(i).getO2());
+        }
+        snapshots++;
+      }
+      return snapshots;
+    });
+
+    List<Integer> results = this.runTogether(tasks);
+
+    assertTrue(results.get(THREAD_COUNT) > 0);
+    assertEquals(THREAD_COUNT * ITEMS_PER_THREAD, this.store.getItemCount());
+
+    Set<String> items = new HashSet<>();
+    for (Pair<Integer, String> item : this.store.getAll()) {
+      items.add(item.getO2());
+    }
+    assertEquals(THREAD_COUNT * ITEMS_PER_THREAD, items.size());
+  }
+
+  @Test(timeout = 60000)
+  public void testRetrieveWhileSaving() throws Exception {
+    AtomicInteger saversLeft = new AtomicInteger(THREAD_COUNT);
+    List<Callable<Integer>> tasks = new ArrayList<>();
+
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      int thread = t;
+      tasks.add(() -> {
+        for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+          this.store.save("Portfolio " + thread + "-" + i);
+        }
+        saversLeft.decrementAndGet();
+        return 0;
+      });
+    }
+
+    // every id below the count has its item, even while the save of the id is in progress
+    tasks.add(() -> {
+      int retrieved = 0;
+      while (saversLeft.get() > 0) {
+        int count = this.store.getItemCount();
+        if (count > 0) {
+          assertNotNull(this.store.retrieve(count - 1));
+          retrieved++;
+        }
+      }
+      return retrieved;
+    });
+
+    List<Integer> results = this.runTogether(tasks);
+    assertTrue(results.get(THREAD_COUNT) > 0);
+
+    try {
+      this.store.retrieve(this.store.getItemCount());
+      fail("An id which was not saved should not have been retrieved!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided id is not valid!", e.getMessage());
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testConcurrentDuplicates() throws Exception {
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      tasks.add(() -> {
+        int saved = 0;
+        for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+          try {
+            this.store.save("Portfolio " + i);
+            saved++;
+          } catch (IllegalArgumentException e) {
+            assertEquals("Provided item already exists in the store!", e.getMessage());
+          }
+        }
+        return saved;
+      });
+    }
+
+    int saved = 0;
+    for (int threadSaved : this.runTogether(tasks)) {
+      saved += threadSaved;
+    }
+
+    // every item is saved by exactly one thread
+    assertEquals(ITEMS_PER_THREAD, saved);
+    assertEquals(ITEMS_PER_THREAD, this.store.getItemCount());
+  }
+
+  @Test
+  public void testPagingAndForEach() {
+    this.store.saveAll(List.of("Google", "Microsoft", "Amazon"));
+
+    assertEquals(List.of(new Pair<>(1, "Microsoft"), new Pair<>(2, "Amazon")),
+        this.store.getPage(1, 10));
+    assertEquals(3, this.store.stream().count());
+
+    StringBuilder visited = new StringBuilder();
+    this.store.forEach((item, id) -> visited.append(id).append(item));
+    assertEquals("0Google1Microsoft2Amazon", visited.toString());
+  }
+
+  @Test
+  public void testSaveNull() {
+    try {
+      this.store.save(null);
+      fail("A null item should not have been saved!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided item cannot be null!", e.getMessage());
+    }
+  }
+}
@@ -1,10 +1,13 @@
 package model.store;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import common.pair.Pair;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import model.StockDataSourceMock;
 import model.portfolio.IPortfolio;
 import model.portfolio.IPortfolioStock;
@@ -264,6 +267,113 @@ public class StoreTest {
 
   //</editor-fold>
 
+  //<editor-fold desc="Store Duplicate Tests">
+
+  /**
+   * Testing saving an item which already exists in the store.
+   */
+  @Test
+  public void testSave_Duplicate() {
+    saveToStringStoreHelper();
+
+    try {
+      stringStore.save("Microsoft");
+      fail("The item already exists in the store and should not have been saved!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided item already exists in the store!", e.getMessage());
+    }
+    assertEquals(3, stringStore.getItemCount());
+  }
+
+  /**
+   * Testing saving a batch of items to the store.
+   */
+  @Test
+  public void testSaveAll() {
+    saveToStringStoreHelper();
+
+    List<String> batch = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      batch.add("Portfolio " + i);
+    }
+
+    List<Integer> ids = stringStore.saveAll(batch);
+
+    assertEquals(2000, ids.size());
+    assertEquals(Integer.valueOf(3), ids.get(0));
+    assertEquals(Integer.valueOf(2002), ids.get(1999));
+    assertEquals("Portfolio 1999", stringStore.retrieve(2002));
+    assertEquals(2003, stringStore.getItemCount());
+  }
+
+  /**
+   * Testing that a batch with a duplicate item adds none of its items.
+   */
+  @Test
+  public void testSaveAll_Duplicate() {
+    saveToStringStoreHelper();
+
+    try {
+      stringStore.saveAll(List.of("Netflix", "Tesla", "Netflix"));
+      fail("The batch repeats an item and should not have been saved!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided item already exists in the store!", e.getMessage());
+    }
+
+    try {
+      stringStore.saveAll(List.of("Netflix", "Amazon"));
+      fail("The batch contains an item of the store and should not have been saved!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Provided item already exists in the store!", e.getMessage());
+    }
+
+    assertEquals(3, stringStore.getItemCount());
+    assertEquals(3, stringStore.save("Netflix"));
+  }
+
+  //</editor-fold>
+
+  //<editor-fold desc="Store Paging Tests">
+
+  /**
+   * Testing getting a page of items from the store.
+   */
+  @Test
+  public void testGetPage() {
+    saveToStringStoreHelper();
+
+    List<Pair<Integer, String>> page = stringStore.getPage(1, 5);
+    assertEquals(2, page.size());
+    assertEquals(new Pair<Integer, String>(1, "Microsoft"), page.get(0));
+    assertEquals(new Pair<Integer, String>(2, "Amazon"), page.get(1));
+
+    assertEquals(0, stringStore.getPage(3, 5).size());
+    assertEquals(1, stringStore.getPage(0, 1).size());
+
+    try {
+      stringStore.getPage(-1, 5);
+      fail("A negative offset should not be accepted!");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The offset and limit of a page cannot be negative!", e.getMessage());
+    }
+  }
+
+  /**
+   * Testing streaming and iterating over the items of the store.
+   */
+  @Test
+  public void testStreamAndForEach() {
+    saveToStringStoreHelper();
+
+    checkContentsStringStoreHelper(stringStore.stream().collect(Collectors.toList()));
+
+    List<Pair<Integer, String>> visited = new ArrayList<>();
+    stringStore.forEach((item, id) -> visited.add(new Pair<>(id, item)));
+    checkContentsStringStoreHelper(visited);
+  }
+
+  //</editor-fold>
+
   //<editor-fold desc="Helper Methods">
 
   private void saveToStringStoreHelper() {